@@ -1,8 +1,15 @@
 package com.yeshwanth.pcs.config;
 
+import com.yeshwanth.pcs.dto.ProductEvent;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
 
 @Configuration
+@EnableConfigurationProperties(ProducerProperties.class)
 public class KafkaConfig {
 
     // Kafka topic name
@@ -12,8 +19,25 @@ public class KafkaConfig {
     public static final String EVENT_CREATE_PRODUCT = "CREATE_PRODUCT";
     public static final String EVENT_UPDATE_PRODUCT = "UPDATE_PRODUCT";
     public static final String EVENT_DELETE_PRODUCT = "DELETE_PRODUCT";
-
-
+    // Written by a stock flush; carries the whole row like an update
+    public static final String EVENT_STOCK_ADJUSTED = "STOCK_ADJUSTED";
+
+    /**
+     * Creates the topic on startup (or grows it to the configured partition count).
+     * Adding partitions later remaps product ids to partitions, so per-product order
+     * is only guaranteed for events produced after the change.
+     */
+    @Bean
+    public NewTopic productEventTopic(@Value("${pcs.kafka.topic.partitions:6}") int partitions,
+                                      @Value("${pcs.kafka.topic.replicas:1}") int replicas) {
+        return TopicBuilder.name(PRODUCT_EVENT_TOPIC)
+                .partitions(partitions)
+                .replicas(replicas)
+                .build();
+    }
+
+    // Events are keyed by product id so every change to a product lands on the same partition
+    public static String eventKey(ProductEvent productEvent) {
+        return String.valueOf(productEvent.getProduct().getId());
+    }
 }
-
-
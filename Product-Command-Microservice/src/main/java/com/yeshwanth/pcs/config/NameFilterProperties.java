@@ -0,0 +1,18 @@
+package com.yeshwanth.pcs.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "pcs.name-filter")
+public class NameFilterProperties {
+
+    // false: every create asks the database whether its name is taken
+    private boolean enabled = true;
+
+    // Names the filter is sized for at least; it is rebuilt at twice the catalog size once that is larger
+    private long expectedNames = 1_000_000;
+
+    // Share of new names still checked against the database while the filter is within its size
+    private double falsePositiveRate = 0.01;
+}
@@ -0,0 +1,11 @@
+package com.yeshwanth.pcs.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(OutboxProperties.class)
+@ConditionalOnProperty(name = "pcs.events.delivery", havingValue = "outbox")
+public class OutboxConfig {
+}
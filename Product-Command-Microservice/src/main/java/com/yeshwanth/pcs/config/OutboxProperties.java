@@ -0,0 +1,23 @@
+package com.yeshwanth.pcs.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "pcs.outbox")
+public class OutboxProperties {
+
+    // Rows the relay reads, sends and marks per round trip
+    private int batchSize = 200;
+
+    // Pause between relay runs once the backlog is drained
+    private Duration pollInterval = Duration.ofMillis(200);
+
+    // How long the relay waits for broker acknowledgements of a batch; it holds the relay lease for twice this
+    private Duration sendTimeout = Duration.ofSeconds(30);
+
+    // Published rows are kept this long before being purged
+    private Duration purgeAfter = Duration.ofMinutes(10);
+}
@@ -0,0 +1,17 @@
+package com.yeshwanth.pcs.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "pcs.kafka.producer")
+public class ProducerProperties {
+
+    // Events sent but not yet acknowledged before writes are refused; must exceed pcs.batch.max-size
+    private int maxInFlight = 10000;
+
+    // Returned in Retry-After when a write is refused
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
@@ -0,0 +1,12 @@
+package com.yeshwanth.pcs.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "pcs.batch")
+public class ProductBatchProperties {
+
+    // Largest list accepted by the bulk create and update endpoints
+    private int maxSize = 1000;
+}
@@ -0,0 +1,9 @@
+package com.yeshwanth.pcs.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(StockProperties.class)
+public class StockConfig {
+}
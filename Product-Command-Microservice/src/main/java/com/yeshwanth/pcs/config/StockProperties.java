@@ -0,0 +1,17 @@
+package com.yeshwanth.pcs.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "pcs.stock")
+public class StockProperties {
+
+    // How often queued stock adjustments are written to product_command; callers wait up to this long plus the write
+    private Duration flushInterval = Duration.ofMillis(20);
+
+    // How long an adjustment may stay queued before its request gets 503; once a flush has taken it, it waits for that flush
+    private Duration queueTimeout = Duration.ofSeconds(1);
+}
@@ -1,33 +1,102 @@
 package com.yeshwanth.pcs.controller;
 
+import com.yeshwanth.pcs.dto.ProductBatchResponse;
 import com.yeshwanth.pcs.dto.ProductRequest;
 import com.yeshwanth.pcs.dto.ProductResponse;
+import com.yeshwanth.pcs.dto.ProductUpdateItem;
+import com.yeshwanth.pcs.dto.StockAdjustmentRequest;
+import com.yeshwanth.pcs.dto.StockAdjustmentResponse;
 import com.yeshwanth.pcs.service.ProductService;
+import com.yeshwanth.pcs.service.ProductStockService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/products")
 @RequiredArgsConstructor
 public class ProductController {
 
+    // Product version after the write; the query service accepts it as ?minVersion=
+    public static final String PRODUCT_VERSION_HEADER = "X-Product-Version";
+
     private final ProductService productService;
+    private final ProductStockService productStockService;
 
     @PostMapping
     public ResponseEntity<ProductResponse> createProduct(@RequestBody ProductRequest productRequest) {
-        return new ResponseEntity<>(productService.createProduct(productRequest), HttpStatus.CREATED);
+        ProductResponse product = productService.createProduct(productRequest);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(PRODUCT_VERSION_HEADER, String.valueOf(product.getVersion()))
+                .eTag(eTag(product.getVersion()))
+                .body(product);
+    }
+
+    // Per-item results; rejected items do not stop the rest of the batch
+    @PostMapping("/batch")
+    public ResponseEntity<ProductBatchResponse> createProducts(@RequestBody List<ProductRequest> productRequests) {
+        return ResponseEntity.ok(productService.createProducts(productRequests));
+    }
+
+    @PutMapping("/batch")
+    public ResponseEntity<ProductBatchResponse> updateProducts(@RequestBody List<ProductUpdateItem> productUpdates) {
+        return ResponseEntity.ok(productService.updateProducts(productUpdates));
     }
 
+    // With If-Match: "<version>" the update is a single conditional statement, 412 on mismatch
     @PutMapping("/{id}")
-    public ResponseEntity<ProductResponse> updateProduct(@PathVariable Long id, @RequestBody ProductRequest productRequest) {
-        return ResponseEntity.ok(productService.updateProduct(id, productRequest));
+    public ResponseEntity<ProductResponse> updateProduct(@PathVariable Long id,
+                                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                         @RequestBody ProductRequest productRequest) {
+        ProductResponse product = productService.updateProduct(id, productRequest, expectedVersion(ifMatch));
+        return ResponseEntity.ok()
+                .header(PRODUCT_VERSION_HEADER, String.valueOf(product.getVersion()))
+                .eTag(eTag(product.getVersion()))
+                .body(product);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteProduct(@PathVariable Long id) {
-        productService.deleteProduct(id);
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<Void> deleteProduct(@PathVariable Long id,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        long version = productService.deleteProduct(id, expectedVersion(ifMatch));
+        return ResponseEntity.noContent()
+                .header(PRODUCT_VERSION_HEADER, String.valueOf(version))
+                .build();
+    }
+
+    // Answered once the flush holding the adjustment has committed
+    @PostMapping("/{id}/stock")
+    public ResponseEntity<StockAdjustmentResponse> adjustStock(@PathVariable Long id,
+                                                               @RequestBody StockAdjustmentRequest stockAdjustment) {
+        StockAdjustmentResponse adjustment = productStockService.adjustStock(id, stockAdjustment.getDelta());
+        return ResponseEntity.ok()
+                .header(PRODUCT_VERSION_HEADER, String.valueOf(adjustment.getVersion()))
+                .eTag(eTag(adjustment.getVersion()))
+                .body(adjustment);
+    }
+
+    private static String eTag(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    // If-Match carries the ETag of an earlier response; "*" only asks for the product to exist
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        tag = tag.replace("\"", "");
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("If-Match must be the product version, e.g. \"3\"");
+        }
     }
 }
@@ -0,0 +1,25 @@
+package com.yeshwanth.pcs.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBatchItemResult {
+
+    public enum Status { CREATED, UPDATED, REJECTED }
+
+    // Position of the item in the request list
+    private int index;
+    private Status status;
+
+    // Set unless the item was rejected
+    private ProductResponse product;
+
+    // Why the item was rejected
+    private String error;
+}
@@ -0,0 +1,21 @@
+package com.yeshwanth.pcs.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBatchResponse {
+
+    private int succeeded;
+    private int rejected;
+
+    // One result per request item, in request order
+    private List<ProductBatchItemResult> results;
+}
@@ -1,6 +1,5 @@
 package com.yeshwanth.pcs.dto;
 
-import com.yeshwanth.pcs.model.Product;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -13,5 +12,5 @@ import lombok.NoArgsConstructor;
 public class ProductEvent {
 
     private String eventType;
-    private Product product;
+    private ProductState product;
 }
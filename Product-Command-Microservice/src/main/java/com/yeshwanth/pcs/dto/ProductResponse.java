@@ -18,4 +18,7 @@ public class ProductResponse {
     private String description;
     private BigDecimal price;
     private Integer quantity;
-}
\ No newline at end of file
+
+    // Pass as ?minVersion= to the query service to read this write back
+    private Long version;
+}
@@ -0,0 +1,32 @@
+package com.yeshwanth.pcs.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Full state of a product as carried by a {@link ProductEvent}. Part of the event
+ * schema shared with the query service, so it does not change with the
+ * product_command entity.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductState {
+
+    private Long id;
+    private String name;
+    private String description;
+    private BigDecimal price;
+    private Integer quantity;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    // Increases with every change to the product; a delete carries the version after the last update
+    private Long version;
+}
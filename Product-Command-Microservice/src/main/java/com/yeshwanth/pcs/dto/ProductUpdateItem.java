@@ -0,0 +1,19 @@
+package com.yeshwanth.pcs.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// One entry of a bulk update: the product id plus the same fields as ProductRequest
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductUpdateItem {
+    private Long id;
+    private String name;
+    private String description;
+    private BigDecimal price;
+    private Integer quantity;
+}
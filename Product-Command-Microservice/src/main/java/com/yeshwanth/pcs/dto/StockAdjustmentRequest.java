@@ -0,0 +1,13 @@
+package com.yeshwanth.pcs.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAdjustmentRequest {
+    // Positive to add stock, negative to take it
+    private Integer delta;
+}
@@ -0,0 +1,21 @@
+package com.yeshwanth.pcs.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAdjustmentResponse {
+    private Long id;
+    private Integer delta;
+
+    // Stock right after this adjustment, as written to product_command
+    private Long available;
+
+    // Version of the product once the flush holding this adjustment committed
+    private Long version;
+}
@@ -0,0 +1,9 @@
+package com.yeshwanth.pcs.exception;
+
+// A stock decrement would take the product below zero
+public class InsufficientStockException extends RuntimeException {
+
+    public InsufficientStockException(String message) {
+        super(message);
+    }
+}
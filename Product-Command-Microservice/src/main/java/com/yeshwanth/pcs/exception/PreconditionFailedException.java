@@ -0,0 +1,9 @@
+package com.yeshwanth.pcs.exception;
+
+// The product is not at the version the request's If-Match expected, or does not exist
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
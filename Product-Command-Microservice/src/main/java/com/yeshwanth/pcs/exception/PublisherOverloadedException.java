@@ -0,0 +1,17 @@
+package com.yeshwanth.pcs.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+// Too many events are waiting for a broker acknowledgement to accept another write
+@Getter
+public class PublisherOverloadedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public PublisherOverloadedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,17 @@
+package com.yeshwanth.pcs.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+// No stock flush took the adjustment in time; it was withdrawn unwritten, so the client can retry it
+@Getter
+public class StockAdjustmentTimeoutException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public StockAdjustmentTimeoutException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,308 @@
+package com.yeshwanth.pcs.kafka;
+
+import com.yeshwanth.pcs.config.KafkaConfig;
+import com.yeshwanth.pcs.dto.ProductEvent;
+import com.yeshwanth.pcs.dto.ProductState;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Binary wire format of product-event-topic values, shared with the query
+ * service's copy of this class. Integers are zig-zag varints, so small ids,
+ * quantities and prices take one or two bytes.
+ *
+ * <pre>
+ * byte     schema version (1)
+ * byte     event type: 1 create, 2 update, 3 delete, 4 stock adjusted, 0 other (followed by string)
+ * byte     presence bits: id, name, description, price, quantity, createdAt, updatedAt, product
+ * varlong  id
+ * string   name, description: varint length + UTF-8 bytes
+ * price    varint (scale &lt;&lt; 1 | big), then varlong unscaled, or varint length + BigInteger bytes if big
+ * varint   quantity
+ * time     createdAt, updatedAt: varlong epoch second + varint nano, as UTC wall-clock time
+ * byte     presence bits of appended fields: version
+ * varlong  version
+ * </pre>
+ *
+ * Fields may be appended to version 1; readers ignore trailing bytes, and values
+ * that end before an appended field decode it as null. Any other change needs a
+ * new version, which older readers reject.
+ */
+public final class ProductEventCodec {
+
+    public static final byte VERSION = 1;
+
+    private static final byte TYPE_OTHER = 0;
+    private static final byte TYPE_CREATE = 1;
+    private static final byte TYPE_UPDATE = 2;
+    private static final byte TYPE_DELETE = 3;
+    private static final byte TYPE_STOCK_ADJUSTED = 4;
+
+    private static final int HAS_ID = 1;
+    private static final int HAS_NAME = 1 << 1;
+    private static final int HAS_DESCRIPTION = 1 << 2;
+    private static final int HAS_PRICE = 1 << 3;
+    private static final int HAS_QUANTITY = 1 << 4;
+    private static final int HAS_CREATED_AT = 1 << 5;
+    private static final int HAS_UPDATED_AT = 1 << 6;
+    private static final int HAS_PRODUCT = 1 << 7;
+
+    private static final int HAS_VERSION = 1;
+
+    private ProductEventCodec() {
+    }
+
+    public static byte[] encode(ProductEvent event) {
+        Writer out = new Writer();
+        out.writeByte(VERSION);
+        encodeType(out, event.getEventType());
+
+        ProductState product = event.getProduct();
+        if (product == null) {
+            out.writeByte(0);
+            return out.toByteArray();
+        }
+        int presence = HAS_PRODUCT
+                | (product.getId() != null ? HAS_ID : 0)
+                | (product.getName() != null ? HAS_NAME : 0)
+                | (product.getDescription() != null ? HAS_DESCRIPTION : 0)
+                | (product.getPrice() != null ? HAS_PRICE : 0)
+                | (product.getQuantity() != null ? HAS_QUANTITY : 0)
+                | (product.getCreatedAt() != null ? HAS_CREATED_AT : 0)
+                | (product.getUpdatedAt() != null ? HAS_UPDATED_AT : 0);
+        out.writeByte(presence);
+
+        if (product.getId() != null) {
+            out.writeVarLong(product.getId());
+        }
+        if (product.getName() != null) {
+            out.writeString(product.getName());
+        }
+        if (product.getDescription() != null) {
+            out.writeString(product.getDescription());
+        }
+        if (product.getPrice() != null) {
+            encodePrice(out, product.getPrice());
+        }
+        if (product.getQuantity() != null) {
+            out.writeVarLong(product.getQuantity());
+        }
+        if (product.getCreatedAt() != null) {
+            encodeTime(out, product.getCreatedAt());
+        }
+        if (product.getUpdatedAt() != null) {
+            encodeTime(out, product.getUpdatedAt());
+        }
+
+        out.writeByte(product.getVersion() != null ? HAS_VERSION : 0);
+        if (product.getVersion() != null) {
+            out.writeVarLong(product.getVersion());
+        }
+        return out.toByteArray();
+    }
+
+    public static ProductEvent decode(byte[] data) {
+        Reader in = new Reader(data);
+        try {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new SerializationException("Unsupported product event schema version " + version);
+            }
+            String eventType = decodeType(in);
+
+            int presence = in.readByte() & 0xFF;
+            if ((presence & HAS_PRODUCT) == 0) {
+                return new ProductEvent(eventType, null);
+            }
+            ProductState product = new ProductState();
+            if ((presence & HAS_ID) != 0) {
+                product.setId(in.readVarLong());
+            }
+            if ((presence & HAS_NAME) != 0) {
+                product.setName(in.readString());
+            }
+            if ((presence & HAS_DESCRIPTION) != 0) {
+                product.setDescription(in.readString());
+            }
+            if ((presence & HAS_PRICE) != 0) {
+                product.setPrice(decodePrice(in));
+            }
+            if ((presence & HAS_QUANTITY) != 0) {
+                product.setQuantity((int) in.readVarLong());
+            }
+            if ((presence & HAS_CREATED_AT) != 0) {
+                product.setCreatedAt(decodeTime(in));
+            }
+            if ((presence & HAS_UPDATED_AT) != 0) {
+                product.setUpdatedAt(decodeTime(in));
+            }
+
+            if (in.hasRemaining()) {
+                int appended = in.readByte() & 0xFF;
+                if ((appended & HAS_VERSION) != 0) {
+                    product.setVersion(in.readVarLong());
+                }
+            }
+            return new ProductEvent(eventType, product);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new SerializationException("Truncated product event", e);
+        }
+    }
+
+    private static void encodeType(Writer out, String eventType) {
+        byte code = eventType == null ? TYPE_OTHER : switch (eventType) {
+            case KafkaConfig.EVENT_CREATE_PRODUCT -> TYPE_CREATE;
+            case KafkaConfig.EVENT_UPDATE_PRODUCT -> TYPE_UPDATE;
+            case KafkaConfig.EVENT_DELETE_PRODUCT -> TYPE_DELETE;
+            case KafkaConfig.EVENT_STOCK_ADJUSTED -> TYPE_STOCK_ADJUSTED;
+            default -> TYPE_OTHER;
+        };
+        out.writeByte(code);
+        if (code == TYPE_OTHER) {
+            out.writeString(eventType != null ? eventType : "");
+        }
+    }
+
+    private static String decodeType(Reader in) {
+        return switch (in.readByte()) {
+            case TYPE_CREATE -> KafkaConfig.EVENT_CREATE_PRODUCT;
+            case TYPE_UPDATE -> KafkaConfig.EVENT_UPDATE_PRODUCT;
+            case TYPE_DELETE -> KafkaConfig.EVENT_DELETE_PRODUCT;
+            case TYPE_STOCK_ADJUSTED -> KafkaConfig.EVENT_STOCK_ADJUSTED;
+            case TYPE_OTHER -> in.readString();
+            default -> throw new SerializationException("Unknown product event type code");
+        };
+    }
+
+    private static void encodePrice(Writer out, BigDecimal price) {
+        BigInteger unscaled = price.unscaledValue();
+        boolean big = unscaled.bitLength() >= 64;
+        out.writeVarLong(((long) price.scale() << 1) | (big ? 1 : 0));
+        if (big) {
+            byte[] bytes = unscaled.toByteArray();
+            out.writeVarLong(bytes.length);
+            out.writeBytes(bytes);
+        } else {
+            out.writeVarLong(unscaled.longValue());
+        }
+    }
+
+    private static BigDecimal decodePrice(Reader in) {
+        long header = in.readVarLong();
+        int scale = (int) (header >> 1);
+        if ((header & 1) == 0) {
+            return BigDecimal.valueOf(in.readVarLong(), scale);
+        }
+        return new BigDecimal(new BigInteger(in.readBytes((int) in.readVarLong())), scale);
+    }
+
+    private static void encodeTime(Writer out, LocalDateTime time) {
+        out.writeVarLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.writeVarLong(time.getNano());
+    }
+
+    private static LocalDateTime decodeTime(Reader in) {
+        long epochSecond = in.readVarLong();
+        int nano = (int) in.readVarLong();
+        return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+    }
+
+    private static final class Writer {
+
+        private byte[] buffer = new byte[128];
+        private int position;
+
+        void writeByte(int value) {
+            ensure(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeBytes(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        // Zig-zag, then 7 bits per byte with the high bit marking continuation
+        void writeVarLong(long value) {
+            ensure(10);
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            buffer[position++] = (byte) zigzag;
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            writeBytes(bytes);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensure(int bytes) {
+            if (position + bytes > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes));
+            }
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] buffer;
+        private int position;
+
+        Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        boolean hasRemaining() {
+            return position < buffer.length;
+        }
+
+        byte readByte() {
+            return buffer[position++];
+        }
+
+        byte[] readBytes(int length) {
+            if (length < 0 || position + length > buffer.length) {
+                throw new SerializationException("Truncated product event");
+            }
+            byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        long readVarLong() {
+            long zigzag = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer[position++];
+                zigzag |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return (zigzag >>> 1) ^ -(zigzag & 1);
+                }
+            }
+            throw new SerializationException("Malformed varint in product event");
+        }
+
+        String readString() {
+            int length = (int) readVarLong();
+            if (length < 0 || position + length > buffer.length) {
+                throw new SerializationException("Truncated product event");
+            }
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.yeshwanth.pcs.kafka;
+
+import com.yeshwanth.pcs.dto.ProductEvent;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Writes product-event-topic values with {@link ProductEventCodec}.
+ */
+public class ProductEventSerializer implements Serializer<ProductEvent> {
+
+    @Override
+    public byte[] serialize(String topic, ProductEvent event) {
+        return event != null ? ProductEventCodec.encode(event) : null;
+    }
+}
@@ -0,0 +1,29 @@
+package com.yeshwanth.pcs.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Which relay instance may publish product_outbox until when. Only the holder
+ * sends, so rows go out in id order even with several instances running.
+ */
+@Entity
+@Table(name = "product_outbox_relay")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxRelayLease {
+
+    @Id
+    private String name;
+
+    @Column(nullable = false)
+    private String owner;
+
+    @Column(name = "lease_until", nullable = false)
+    private LocalDateTime leaseUntil;
+}
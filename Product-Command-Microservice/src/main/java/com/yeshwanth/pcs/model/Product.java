@@ -9,14 +9,23 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "product_command")
+@Table(name = "product_command",
+        indexes = @Index(name = Product.NAME_INDEX, columnList = "name", unique = true))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Product {
 
+    public static final String ID_GENERATOR = "product_id";
+    public static final int ID_ALLOCATION_SIZE = 50;
+    // Unique, and case-insensitive under the default MySQL collation; the create-time name check only filters in front of it
+    public static final String NAME_INDEX = "uk_product_command_name";
+
+    // Ids are reserved in blocks from product_command_id, so inserts can be batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = ID_GENERATOR)
+    @TableGenerator(name = ID_GENERATOR, table = "product_command_id", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "product", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false)
@@ -37,6 +46,11 @@ public class Product {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Incremented on every update and carried by each event, so the query side can drop stale ones
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
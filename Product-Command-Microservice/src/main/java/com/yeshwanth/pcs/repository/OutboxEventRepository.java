@@ -0,0 +1,34 @@
+package com.yeshwanth.pcs.repository;
+
+import com.yeshwanth.pcs.model.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // A plain read: no row or gap locks, so inserts from command transactions never wait on the relay
+    List<OutboxEvent> findByPublishedAtIsNullAndFailedAtIsNullOrderByIdAsc(Pageable pageable);
+
+    long countByPublishedAtIsNullAndFailedAtIsNull();
+
+    @Modifying
+    @Query("update OutboxEvent o set o.publishedAt = :publishedAt where o.id in :ids")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("publishedAt") LocalDateTime publishedAt);
+
+    @Modifying
+    @Query("update OutboxEvent o set o.failedAt = :failedAt where o.id in :ids")
+    int markFailed(@Param("ids") Collection<Long> ids, @Param("failedAt") LocalDateTime failedAt);
+
+    @Modifying
+    @Query("delete from OutboxEvent o where o.publishedAt < :cutoff")
+    int deletePublishedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,36 @@
+package com.yeshwanth.pcs.repository;
+
+import com.yeshwanth.pcs.model.OutboxRelayLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface OutboxRelayLeaseRepository extends JpaRepository<OutboxRelayLease, String> {
+
+    // Renews the lease for its holder, or takes it over once it has run out
+    @Modifying
+    @Query("""
+            update OutboxRelayLease l set l.owner = :owner, l.leaseUntil = :until
+            where l.name = :name and (l.owner = :owner or l.leaseUntil < :now)
+            """)
+    int acquire(@Param("name") String name, @Param("owner") String owner,
+                @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    // The first relay ever to run creates the lease; 0 when it already exists
+    @Modifying
+    @Query(value = """
+            insert into product_outbox_relay (name, owner, lease_until)
+            select :name, :owner, :until from dual
+            where not exists (select 1 from product_outbox_relay where name = :name)
+            """, nativeQuery = true)
+    int create(@Param("name") String name, @Param("owner") String owner, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("update OutboxRelayLease l set l.leaseUntil = :now where l.name = :name and l.owner = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,75 @@
+package com.yeshwanth.pcs.repository;
+
+import com.yeshwanth.pcs.model.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the product id generator past the ids already in product_command. Products
+ * used to get auto-increment ids, and a fresh product_command_id row would hand
+ * those out again. Runs once Hibernate has created the schema, and is safe to run
+ * on every start and on several instances at once, since it only ever raises the
+ * counter.
+ *
+ * <p>It runs when the context starts rather than when the bean is created, so a
+ * run that stops after the refresh, like the class-data-sharing training run of
+ * the fast-startup build, needs no database.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class ProductIdGeneratorInitializer implements SmartLifecycle {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile boolean running;
+
+    public ProductIdGeneratorInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void start() {
+        raiseToExistingIds();
+        running = true;
+    }
+
+    public void raiseToExistingIds() {
+        // Past a whole block, whichever end of the block the generator hands out first
+        long floor = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from product_command", Long.class)
+                + Product.ID_ALLOCATION_SIZE + 1;
+
+        int updated = jdbcTemplate.update(
+                "update product_command_id set next_val = greatest(next_val, ?) where name = 'product'", floor);
+        if (updated == 0) {
+            try {
+                jdbcTemplate.update("insert into product_command_id (name, next_val) values ('product', ?)", floor);
+            } catch (DuplicateKeyException e) {
+                // Another instance inserted it first
+                jdbcTemplate.update(
+                        "update product_command_id set next_val = greatest(next_val, ?) where name = 'product'", floor);
+            }
+        }
+        log.info("Product ids will be allocated above {}", floor - Product.ID_ALLOCATION_SIZE - 1);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Before the web server starts taking creates
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+}
@@ -2,10 +2,40 @@ package com.yeshwanth.pcs.repository;
 
 import com.yeshwanth.pcs.model.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Set;
+
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
     boolean existsByName(String name);
+
+    // Uniqueness check for a whole bulk create in one round trip
+    @Query("select p.name from Product p where p.name in :names")
+    Set<String> findExistingNames(Collection<String> names);
+
+    // Conditional update without a prior read: 0 when the product is gone or at another version
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Product p
+            set p.name = :name, p.description = :description, p.price = :price, p.quantity = :quantity,
+                p.updatedAt = :updatedAt, p.version = p.version + 1
+            where p.id = :id and p.version = :version
+            """)
+    int updateIfVersion(Long id, String name, String description, BigDecimal price, Integer quantity,
+                        LocalDateTime updatedAt, long version);
+
+    // The one column a conditional update does not know from the request
+    @Query("select p.createdAt from Product p where p.id = :id")
+    LocalDateTime findCreatedAtById(Long id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Product p where p.id = :id and p.version = :version")
+    int deleteIfVersion(Long id, long version);
 }
@@ -0,0 +1,83 @@
+package com.yeshwanth.pcs.repository;
+
+import com.yeshwanth.pcs.dto.ProductState;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stock writes on product_command. The rows of a flush are locked first, then
+ * each product's net delta is one guarded {@code quantity = quantity + ?}
+ * statement, sent together as a JDBC batch in the same transaction.
+ */
+@Repository
+public class ProductStockRepository {
+
+    private static final String APPLY_DELTA = """
+            update product_command
+            set quantity = quantity + ?, version = version + 1, updated_at = ?
+            where id = ? and quantity + ? >= 0
+            """;
+
+    public record StockDelta(long id, int delta) {
+    }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public ProductStockRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Locked in id order, so flushes on different instances cannot deadlock on each other
+    public Map<Long, Integer> lockQuantities(Collection<Long> ids) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        jdbcTemplate.query("select id, quantity from product_command where id in (:ids) order by id for update",
+                Map.of("ids", ids), rs -> {
+                    quantities.put(rs.getLong(1), rs.getInt(2));
+                });
+        return quantities;
+    }
+
+    // Update counts in delta order: 0 where the product is gone or the delta would make stock negative
+    public int[] applyDeltas(List<StockDelta> deltas, LocalDateTime updatedAt) {
+        Timestamp timestamp = Timestamp.valueOf(updatedAt);
+        int[][] counts = jdbcTemplate.getJdbcTemplate().batchUpdate(APPLY_DELTA, deltas, deltas.size(), (statement, delta) -> {
+            statement.setInt(1, delta.delta());
+            statement.setTimestamp(2, timestamp);
+            statement.setLong(3, delta.id());
+            statement.setInt(4, delta.delta());
+        });
+        return counts.length > 0 ? counts[0] : new int[0];
+    }
+
+    // The whole row, read back under the flush's locks so it is exactly what the flush wrote
+    public Map<Long, ProductState> findProducts(Collection<Long> ids) {
+        Map<Long, ProductState> products = new HashMap<>();
+        jdbcTemplate.query("""
+                        select id, name, description, price, quantity, created_at, updated_at, version
+                        from product_command where id in (:ids)
+                        """, Map.of("ids", ids), rs -> {
+                    products.put(rs.getLong("id"), ProductState.builder()
+                            .id(rs.getLong("id"))
+                            .name(rs.getString("name"))
+                            .description(rs.getString("description"))
+                            .price(rs.getBigDecimal("price"))
+                            .quantity(rs.getInt("quantity"))
+                            .createdAt(toLocalDateTime(rs.getTimestamp("created_at")))
+                            .updatedAt(toLocalDateTime(rs.getTimestamp("updated_at")))
+                            .version(rs.getLong("version"))
+                            .build());
+                });
+        return products;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
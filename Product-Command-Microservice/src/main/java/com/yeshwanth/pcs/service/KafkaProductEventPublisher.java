@@ -0,0 +1,135 @@
+package com.yeshwanth.pcs.service;
+
+import com.yeshwanth.pcs.config.KafkaConfig;
+import com.yeshwanth.pcs.config.ProducerProperties;
+import com.yeshwanth.pcs.dto.ProductEvent;
+import com.yeshwanth.pcs.exception.PublisherOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends events to Kafka from the request thread. At most
+ * {@code pcs.kafka.producer.max-in-flight} events may wait for their broker
+ * acknowledgement; a write that would go over is refused with
+ * {@link PublisherOverloadedException} before anything is sent, which rolls the
+ * caller's transaction back and answers 503, instead of blocking the thread on a
+ * full producer buffer.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "pcs.events.delivery", havingValue = "direct", matchIfMissing = true)
+public class KafkaProductEventPublisher implements ProductEventPublisher {
+
+    private final KafkaTemplate<String, ProductEvent> kafkaTemplate;
+    private final ProducerProperties properties;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Timer sendLatency;
+    private final Counter rejectedEvents;
+
+    public KafkaProductEventPublisher(KafkaTemplate<String, ProductEvent> kafkaTemplate,
+                                      ProducerProperties properties,
+                                      MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.properties = properties;
+
+        Gauge.builder("kafka.publish.in.flight", inFlight, AtomicInteger::get)
+                .description("Events sent and not yet acknowledged by the broker")
+                .register(meterRegistry);
+        this.sendLatency = Timer.builder("kafka.publish.latency")
+                .description("Time from send to broker acknowledgement, including linger")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.rejectedEvents = Counter.builder("kafka.publish.rejected")
+                .description("Events refused because too many were in flight")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void publish(ProductEvent productEvent) {
+        admit(1);
+        // Send to Kafka with error handling
+        try {
+            send(productEvent).whenComplete((result, ex) -> {
+                if (ex != null) {
+                    log.error("Unable to send {} event to Kafka: {}", productEvent.getEventType(), ex.getMessage());
+                } else {
+                    log.debug("{} event sent to Kafka: {}", productEvent.getEventType(), result.getRecordMetadata().offset());
+                }
+            });
+        } catch (Exception e) {
+            inFlight.decrementAndGet();
+            log.error("Exception occurred while sending {} event to Kafka: {}", productEvent.getEventType(), e.getMessage());
+        }
+    }
+
+    /**
+     * Queues every event with the producer and flushes once, so a bulk request
+     * goes out in as few produce requests as the batch size allows instead of
+     * waiting on linger per event. The whole list is admitted or refused at once.
+     */
+    @Override
+    public void publishAll(List<ProductEvent> productEvents) {
+        admit(productEvents.size());
+        AtomicInteger failed = new AtomicInteger();
+        int sent = 0;
+        try {
+            for (ProductEvent productEvent : productEvents) {
+                send(productEvent).whenComplete((result, ex) -> {
+                    if (ex != null && failed.getAndIncrement() == 0) {
+                        log.error("Unable to send {} event to Kafka: {}", productEvent.getEventType(), ex.getMessage());
+                    }
+                });
+                sent++;
+            }
+            kafkaTemplate.flush();
+        } catch (Exception e) {
+            inFlight.addAndGet(sent - productEvents.size());
+            log.error("Exception occurred while sending {} events to Kafka: {}", productEvents.size(), e.getMessage());
+            return;
+        }
+        if (failed.get() > 0) {
+            log.error("{} of {} events could not be sent to Kafka", failed.get(), productEvents.size());
+        } else {
+            log.debug("{} events sent to Kafka", productEvents.size());
+        }
+    }
+
+    // A list larger than the limit still goes through when nothing else is in flight
+    private void admit(int events) {
+        while (true) {
+            int current = inFlight.get();
+            if (current > 0 && current + events > properties.getMaxInFlight()) {
+                rejectedEvents.increment(events);
+                throw new PublisherOverloadedException(current + " events are waiting for Kafka, retry later",
+                        properties.getRetryAfter());
+            }
+            if (inFlight.compareAndSet(current, current + events)) {
+                return;
+            }
+        }
+    }
+
+    // The slot taken in admit is given back once the broker answers, whatever the answer.
+    // The producer stamps the record with the send time; the query side measures end-to-end lag from it.
+    private CompletableFuture<SendResult<String, ProductEvent>> send(ProductEvent productEvent) {
+        long started = System.nanoTime();
+        return kafkaTemplate.send(KafkaConfig.PRODUCT_EVENT_TOPIC, KafkaConfig.eventKey(productEvent), productEvent)
+                .whenComplete((result, ex) -> {
+                    inFlight.decrementAndGet();
+                    sendLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                });
+    }
+}
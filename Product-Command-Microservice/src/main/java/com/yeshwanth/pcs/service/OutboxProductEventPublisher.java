@@ -0,0 +1,46 @@
+package com.yeshwanth.pcs.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yeshwanth.pcs.dto.ProductEvent;
+import com.yeshwanth.pcs.model.OutboxEvent;
+import com.yeshwanth.pcs.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "pcs.events.delivery", havingValue = "outbox")
+public class OutboxProductEventPublisher implements ProductEventPublisher {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Writes the event into product_outbox as part of the surrounding command
+     * transaction, so the event exists if and only if the product change commits.
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(ProductEvent productEvent) {
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setAggregateId(productEvent.getProduct().getId());
+        outboxEvent.setEventType(productEvent.getEventType());
+        outboxEvent.setPayload(toJson(productEvent));
+        outboxEvent.setCreatedAt(LocalDateTime.now());
+        outboxEventRepository.save(outboxEvent);
+    }
+
+    private String toJson(ProductEvent productEvent) {
+        try {
+            return objectMapper.writeValueAsString(productEvent);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize " + productEvent.getEventType() + " event", e);
+        }
+    }
+}
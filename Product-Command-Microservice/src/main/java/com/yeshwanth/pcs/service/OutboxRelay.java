@@ -0,0 +1,242 @@
+package com.yeshwanth.pcs.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yeshwanth.pcs.config.KafkaConfig;
+import com.yeshwanth.pcs.config.OutboxProperties;
+import com.yeshwanth.pcs.dto.ProductEvent;
+import com.yeshwanth.pcs.model.OutboxEvent;
+import com.yeshwanth.pcs.repository.OutboxEventRepository;
+import com.yeshwanth.pcs.repository.OutboxRelayLeaseRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains product_outbox to Kafka in id order. Only the instance holding the relay
+ * lease publishes; it renews the lease before each batch for twice
+ * {@code pcs.outbox.send-timeout}, reads the batch without locking it, sends it and
+ * waits for the acknowledgements outside any transaction, then marks the
+ * acknowledged prefix as published. Anything after a failed send stays in the
+ * outbox for the next run. A row whose payload cannot be read is marked failed and
+ * skipped. Published rows are purged after {@code pcs.outbox.purge-after}.
+ * A run can wait on the broker for up to the send timeout per batch, so the relay
+ * has a scheduler thread of its own rather than sharing one with other tasks.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "pcs.events.delivery", havingValue = "outbox")
+public class OutboxRelay {
+
+    private static final String LEASE = "relay";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxRelayLeaseRepository leaseRepository;
+    private final KafkaTemplate<String, ProductEvent> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final OutboxProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final String owner = UUID.randomUUID().toString();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "outbox-relay"));
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final DistributionSummary batchSizes;
+    private final Counter publishedEvents;
+    private final Counter failedSends;
+    private final Counter unreadableEvents;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       OutboxRelayLeaseRepository leaseRepository,
+                       KafkaTemplate<String, ProductEvent> kafkaTemplate,
+                       ObjectMapper objectMapper,
+                       OutboxProperties properties,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.leaseRepository = leaseRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Gauge.builder("outbox.backlog", backlog, AtomicLong::get)
+                .description("Outbox rows waiting to be published")
+                .register(meterRegistry);
+        Gauge.builder("outbox.relay.batch.limit", properties, p -> p.getBatchSize())
+                .description("Configured maximum rows per relay batch")
+                .register(meterRegistry);
+        Gauge.builder("outbox.relay.poll.interval", properties, p -> p.getPollInterval().toMillis())
+                .description("Configured pause between relay runs")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("outbox.relay.batch.size")
+                .description("Rows published per relay batch")
+                .register(meterRegistry);
+        this.publishedEvents = Counter.builder("outbox.relay.published")
+                .description("Outbox rows published to Kafka")
+                .register(meterRegistry);
+        this.failedSends = Counter.builder("outbox.relay.failures")
+                .description("Relay batches cut short by a failed send")
+                .register(meterRegistry);
+        this.unreadableEvents = Counter.builder("outbox.relay.unreadable")
+                .description("Outbox rows marked failed because their payload could not be read")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void startRelay() {
+        long interval = properties.getPollInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::relay, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    void relay() {
+        try {
+            int handled;
+            do {
+                if (!acquireLease()) {
+                    log.debug("Outbox relay lease is held by another instance");
+                    break;
+                }
+                handled = publishBatch();
+            } while (handled == properties.getBatchSize());
+
+            transactionTemplate.executeWithoutResult(status ->
+                    outboxEventRepository.deletePublishedBefore(LocalDateTime.now().minus(properties.getPurgeAfter())));
+            backlog.set(outboxEventRepository.countByPublishedAtIsNullAndFailedAtIsNull());
+        } catch (Exception e) {
+            log.error("Outbox relay run failed: {}", e.getMessage());
+        }
+    }
+
+    // Each statement commits on its own, so no lock is held while the batch waits for the broker
+    private boolean acquireLease() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.plus(properties.getSendTimeout().multipliedBy(2));
+        Boolean acquired = transactionTemplate.execute(status ->
+                leaseRepository.acquire(LEASE, owner, now, until) == 1);
+        if (Boolean.TRUE.equals(acquired)) {
+            return true;
+        }
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status ->
+                    leaseRepository.create(LEASE, owner, until) == 1));
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created it first
+            return false;
+        }
+    }
+
+    // Returns the rows taken off the backlog, published or marked failed
+    private int publishBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.findByPublishedAtIsNullAndFailedAtIsNullOrderByIdAsc(
+                PageRequest.of(0, properties.getBatchSize()));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<OutboxEvent> sent = new ArrayList<>(batch.size());
+        List<Long> failedIds = new ArrayList<>();
+        List<CompletableFuture<SendResult<String, ProductEvent>>> futures = new ArrayList<>(batch.size());
+        for (OutboxEvent outboxEvent : batch) {
+            ProductEvent productEvent = fromJson(outboxEvent);
+            if (productEvent == null) {
+                failedIds.add(outboxEvent.getId());
+                continue;
+            }
+            // The record carries the time of the write, not of the relay, so the query side's lag covers the outbox wait
+            long writtenAt = outboxEvent.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            sent.add(outboxEvent);
+            futures.add(kafkaTemplate.send(KafkaConfig.PRODUCT_EVENT_TOPIC, null, writtenAt,
+                    KafkaConfig.eventKey(productEvent), productEvent));
+        }
+
+        // Only the acknowledged prefix is marked, so per-product order survives a failed send
+        long deadline = System.nanoTime() + properties.getSendTimeout().toNanos();
+        List<Long> publishedIds = new ArrayList<>(sent.size());
+        for (int i = 0; i < sent.size(); i++) {
+            try {
+                futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                publishedIds.add(sent.get(i).getId());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                failedSends.increment();
+                log.warn("Outbox event {} could not be published, retrying on next run: {}",
+                        sent.get(i).getId(), e.getMessage());
+                break;
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            if (!publishedIds.isEmpty()) {
+                outboxEventRepository.markPublished(publishedIds, now);
+            }
+            if (!failedIds.isEmpty()) {
+                outboxEventRepository.markFailed(failedIds, now);
+            }
+        });
+        unreadableEvents.increment(failedIds.size());
+        batchSizes.record(publishedIds.size());
+        publishedEvents.increment(publishedIds.size());
+        log.debug("Outbox relay published {} of {} events", publishedIds.size(), batch.size());
+        // A failed send ends the run; the rows after it are retried from the next one
+        return publishedIds.size() < sent.size() ? 0 : publishedIds.size() + failedIds.size();
+    }
+
+    // Null when the payload cannot be read, which retrying will not change
+    private ProductEvent fromJson(OutboxEvent outboxEvent) {
+        try {
+            return objectMapper.readValue(outboxEvent.getPayload(), ProductEvent.class);
+        } catch (JsonProcessingException e) {
+            log.error("Outbox event {} has an unreadable payload, marking it failed: {}",
+                    outboxEvent.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    // Lets another instance take over at once instead of after the lease runs out
+    @PreDestroy
+    void releaseLease() {
+        scheduler.shutdown();
+        try {
+            // A batch still waiting for acknowledgements is marked before the lease goes
+            if (!scheduler.awaitTermination(properties.getSendTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Outbox relay run did not finish within {}", properties.getSendTimeout());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    leaseRepository.release(LEASE, owner, LocalDateTime.now()));
+        } catch (Exception e) {
+            log.warn("Could not release the outbox relay lease: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.yeshwanth.pcs.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits the latency of product commands into the database phase and the publish
+ * phase, per operation. Publish is the hand-over of the events (the Kafka send, or
+ * the outbox insert); database is everything else in the transaction up to and
+ * including the commit, so the two add up to the command's transaction time.
+ */
+@Component
+public class ProductCommandMetrics {
+
+    public static final String CREATE = "create";
+    public static final String UPDATE = "update";
+    public static final String DELETE = "delete";
+    public static final String BULK_CREATE = "bulk-create";
+    public static final String BULK_UPDATE = "bulk-update";
+    public static final String STOCK_FLUSH = "stock-flush";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> databaseTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> publishTimers = new ConcurrentHashMap<>();
+
+    public ProductCommandMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Runs the publish step of a command whose transaction work started at
+     * {@code startedNanos}. The database phase is recorded once the transaction
+     * commits; a rolled back command only records its publish time.
+     */
+    public void publish(String operation, long startedNanos, Runnable publish) {
+        long publishStarted = System.nanoTime();
+        try {
+            publish.run();
+        } finally {
+            long publishEnded = System.nanoTime();
+            publishTimers.computeIfAbsent(operation, op -> timer("product.command.publish", op,
+                            "Time spent handing a command's events over for delivery"))
+                    .record(publishEnded - publishStarted, TimeUnit.NANOSECONDS);
+
+            long beforePublish = publishStarted - startedNanos;
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        databaseTimer(operation).record(beforePublish + System.nanoTime() - publishEnded, TimeUnit.NANOSECONDS);
+                    }
+                });
+            } else {
+                databaseTimer(operation).record(beforePublish, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private Timer databaseTimer(String operation) {
+        return databaseTimers.computeIfAbsent(operation, op -> timer("product.command.db", op,
+                "Time a command spends on statements and commit"));
+    }
+
+    private Timer timer(String name, String operation, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,20 @@
+package com.yeshwanth.pcs.service;
+
+import com.yeshwanth.pcs.dto.ProductEvent;
+
+import java.util.List;
+
+/**
+ * Hands product events over for delivery to the query side. Selected with
+ * {@code pcs.events.delivery}: {@code direct} sends straight to Kafka,
+ * {@code outbox} records the event in the caller's transaction for the relay.
+ */
+public interface ProductEventPublisher {
+
+    void publish(ProductEvent productEvent);
+
+    // Events of one bulk request; implementations may hand them over together
+    default void publishAll(List<ProductEvent> productEvents) {
+        productEvents.forEach(this::publish);
+    }
+}
@@ -0,0 +1,281 @@
+package com.yeshwanth.pcs.service;
+
+import com.yeshwanth.pcs.config.NameFilterProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Bloom filter over the lower-cased names in product_command, so a create whose
+ * name is certainly new skips the database lookup. A name the filter has not seen
+ * is new; a name it has seen may or may not be, and is looked up as before. The
+ * unique index on name stays the source of truth: a name missed by the filter
+ * (added by another instance, or during a reload) is refused by the insert.
+ *
+ * <p>Bits cannot be cleared, so deletes and renames only count the names left
+ * behind. Once the names added since the last load exceed what the filter was
+ * sized for, or half of them are stale, it is reloaded from the table in the
+ * background, sized for twice the catalog.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(NameFilterProperties.class)
+public class ProductNameFilter implements SmartLifecycle {
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NameFilterProperties properties;
+    private final ExecutorService reloader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-name-filter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Null until loaded; until then every name is looked up
+    private volatile Bits current;
+    // Set while a reload reads the table, so names added meanwhile land in both
+    private volatile Bits loading;
+    private final AtomicBoolean reloading = new AtomicBoolean();
+    private final AtomicLong added = new AtomicLong();
+    private final AtomicLong removed = new AtomicLong();
+
+    private final Counter skipped;
+    private final Counter falsePositives;
+    private final Counter duplicates;
+
+    private volatile boolean running;
+
+    public ProductNameFilter(DataSource dataSource, NameFilterProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.properties = properties;
+
+        this.skipped = checks(meterRegistry, "skipped", "Names the filter had not seen, created without a lookup");
+        this.falsePositives = checks(meterRegistry, "false-positive", "Names the filter had seen that were not taken");
+        this.duplicates = checks(meterRegistry, "duplicate", "Names the filter had seen that were taken");
+        Gauge.builder("product.name.filter.false.positive.rate", this, ProductNameFilter::expectedFalsePositiveRate)
+                .description("False positive rate expected from the bits set in the filter")
+                .register(meterRegistry);
+    }
+
+    private static Counter checks(MeterRegistry meterRegistry, String result, String description) {
+        return Counter.builder("product.name.filter.checks")
+                .description(description)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Fixed-size bit array probed at {@code hashes} positions per name, derived
+     * from one 64-bit hash by double hashing. Bits are set with compare-and-set,
+     * so adds and lookups need no lock.
+     */
+    static final class Bits {
+
+        private final AtomicLongArray words;
+        private final long size;
+        private final int hashes;
+        private final long capacity;
+
+        Bits(long capacity, double falsePositiveRate) {
+            long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.words = new AtomicLongArray((int) Math.max(1, (bits + 63) / 64));
+            this.size = words.length() * 64L;
+            this.hashes = Math.max(1, (int) Math.round((double) size / capacity * Math.log(2)));
+            this.capacity = capacity;
+        }
+
+        // True when the name set at least one new bit, i.e. it was not in the filter before
+        boolean add(long hash) {
+            boolean changed = false;
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashes; i++) {
+                long bit = Integer.toUnsignedLong(h1 + i * h2) % size;
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                if ((words.get(word) & mask) == 0) {
+                    words.getAndAccumulate(word, mask, (value, m) -> value | m);
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashes; i++) {
+                long bit = Integer.toUnsignedLong(h1 + i * h2) % size;
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        double fillRatio() {
+            long set = 0;
+            for (int i = 0; i < words.length(); i++) {
+                set += Long.bitCount(words.get(i));
+            }
+            return (double) set / size;
+        }
+    }
+
+    // Names are compared case-insensitively, like the default MySQL collation does
+    static long hash(String name) {
+        String key = name.toLowerCase(Locale.ROOT);
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        // FNV-1a spreads poorly over the high bits; finish with the murmur3 mixer
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Whether a product already has the name. Names the filter has not seen are
+     * answered without calling lookup.
+     */
+    public boolean exists(String name, Predicate<String> lookup) {
+        Bits bits = name != null ? current : null;
+        if (bits != null && !bits.mightContain(hash(name))) {
+            skipped.increment();
+            return false;
+        }
+        boolean exists = lookup.test(name);
+        if (bits != null) {
+            (exists ? duplicates : falsePositives).increment();
+        }
+        return exists;
+    }
+
+    // The names that may already exist; only these need a lookup
+    public Set<String> candidates(Collection<String> names) {
+        Bits bits = current;
+        if (bits == null) {
+            return Set.copyOf(names);
+        }
+        Set<String> candidates = names.stream()
+                .filter(name -> bits.mightContain(hash(name)))
+                .collect(Collectors.toSet());
+        skipped.increment(names.size() - candidates.size());
+        return candidates;
+    }
+
+    // Called once the name is written, by a create or a rename
+    public void added(String name) {
+        long hash = hash(name);
+        Bits bits = current;
+        boolean changed = bits != null && bits.add(hash);
+        Bits next = loading;
+        if (next != null) {
+            next.add(hash);
+        }
+        if (changed) {
+            added.incrementAndGet();
+            reloadIfDue(bits);
+        }
+    }
+
+    // Called when a name is released by a delete or a rename; its bits stay set until the next reload
+    public void removed() {
+        Bits bits = current;
+        if (bits != null) {
+            removed.incrementAndGet();
+            reloadIfDue(bits);
+        }
+    }
+
+    private void reloadIfDue(Bits bits) {
+        long names = added.get();
+        if ((names > bits.capacity || removed.get() > names / 2 && names > properties.getExpectedNames() / 10)
+                && reloading.compareAndSet(false, true)) {
+            reloader.execute(() -> {
+                try {
+                    load();
+                } catch (RuntimeException e) {
+                    log.warn("Could not reload the product name filter, keeping the current one", e);
+                } finally {
+                    reloading.set(false);
+                }
+            });
+        }
+    }
+
+    private double expectedFalsePositiveRate() {
+        Bits bits = current;
+        return bits == null ? 1.0 : Math.pow(bits.fillRatio(), bits.hashes);
+    }
+
+    private void load() {
+        long started = System.nanoTime();
+        long count = jdbcTemplate.queryForObject("select count(*) from product_command", Long.class);
+        Bits next = new Bits(Math.max(properties.getExpectedNames(), 2 * count), properties.getFalsePositiveRate());
+        loading = next;
+        AtomicLong names = new AtomicLong();
+        try {
+            jdbcTemplate.query("select name from product_command", resultSet -> {
+                next.add(hash(resultSet.getString(1)));
+                names.incrementAndGet();
+            });
+        } finally {
+            loading = null;
+        }
+        current = next;
+        added.set(names.get());
+        removed.set(0);
+        log.info("Loaded {} product names into a {} KB filter in {} ms", names.get(), next.size / 8 / 1024,
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @Override
+    public void start() {
+        if (properties.isEnabled()) {
+            load();
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        reloader.shutdownNow();
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Load before the web server starts taking requests
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+}
@@ -1,34 +1,57 @@
 package com.yeshwanth.pcs.service;
 
 import com.yeshwanth.pcs.config.KafkaConfig;
+import com.yeshwanth.pcs.config.ProductBatchProperties;
+import com.yeshwanth.pcs.dto.ProductBatchItemResult;
+import com.yeshwanth.pcs.dto.ProductBatchResponse;
 import com.yeshwanth.pcs.dto.ProductEvent;
 import com.yeshwanth.pcs.dto.ProductRequest;
 import com.yeshwanth.pcs.dto.ProductResponse;
+import com.yeshwanth.pcs.dto.ProductState;
+import com.yeshwanth.pcs.dto.ProductUpdateItem;
+import com.yeshwanth.pcs.exception.PreconditionFailedException;
 import com.yeshwanth.pcs.model.Product;
 import com.yeshwanth.pcs.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.SendResult;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@EnableConfigurationProperties(ProductBatchProperties.class)
 public class ProductService {
 
     private final ProductRepository productRepository;
-    private final KafkaTemplate<String,ProductEvent> kafkaTemplate;
+    private final ProductEventPublisher productEventPublisher;
+    private final ProductBatchProperties batchProperties;
+    private final ProductCommandMetrics commandMetrics;
+    private final ProductNameFilter nameFilter;
 
     @Transactional
     public ProductResponse createProduct(ProductRequest productRequest) {
-        // Check if product with same name already exists
-        if (productRepository.existsByName(productRequest.getName())) {
-            throw new IllegalArgumentException("Product with name " + productRequest.getName() + " already exists");
+        long started = System.nanoTime();
+        // Check if product with same name already exists; names the filter has never seen skip the lookup
+        if (nameFilter.exists(productRequest.getName(), productRepository::existsByName)) {
+            throw duplicateName(productRequest.getName());
         }
 
         // Create new product
@@ -38,108 +61,343 @@ public class ProductService {
         product.setPrice(productRequest.getPrice());
         product.setQuantity(productRequest.getQuantity());
 
-        // Save product
-        Product savedProduct = productRepository.save(product);
+        // Save product; flush so a name taken since the check is refused here by the unique index
+        Product savedProduct;
+        try {
+            savedProduct = productRepository.saveAndFlush(product);
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateName(e)) {
+                throw duplicateName(productRequest.getName());
+            }
+            throw e;
+        }
+        nameFilter.added(savedProduct.getName());
 
         // Create event
         ProductEvent productEvent = ProductEvent.builder()
                 .eventType(KafkaConfig.EVENT_CREATE_PRODUCT)
-                .product(savedProduct)
+                .product(mapToProductState(savedProduct))
                 .build();
 
-        // Send to Kafka with error handling
-        try {
-            CompletableFuture<SendResult<String, ProductEvent>> future = 
-                    kafkaTemplate.send(KafkaConfig.PRODUCT_EVENT_TOPIC, productEvent);
-
-            future.whenComplete((result, ex) -> {
-                if (ex != null) {
-                    log.error("Unable to send product created event to Kafka: {}", ex.getMessage());
-                } else {
-                    log.info("Product created event sent to Kafka: {}", result.getRecordMetadata().offset());
-                }
-            });
-        } catch (Exception e) {
-            log.error("Exception occurred while sending product created event to Kafka: {}", e.getMessage());
-        }
+        commandMetrics.publish(ProductCommandMetrics.CREATE, started, () -> productEventPublisher.publish(productEvent));
 
         // Return response
         return mapToProductResponse(savedProduct);
     }
 
+    /**
+     * Updates the product in one conditional statement when the caller names the
+     * version it read (If-Match), without loading the row; the event and response
+     * are built from the request, the statement's new version and the creation time,
+     * read by primary key once the row is updated. Without an expected version the
+     * product is read first and written optimistically.
+     *
+     * @throws PreconditionFailedException when the product is not at the expected version
+     */
+    @Transactional
+    public ProductResponse updateProduct(Long id, ProductRequest productRequest, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return updateProduct(id, productRequest);
+        }
+
+        long started = System.nanoTime();
+        LocalDateTime updatedAt = LocalDateTime.now();
+        int updated = productRepository.updateIfVersion(id, productRequest.getName(), productRequest.getDescription(),
+                productRequest.getPrice(), productRequest.getQuantity(), updatedAt, expectedVersion);
+        if (updated == 0) {
+            throw new PreconditionFailedException("Product " + id + " does not exist at version " + expectedVersion);
+        }
+        // The previous name is not read, so a rename leaves it in the filter uncounted until the next reload
+        nameFilter.added(productRequest.getName());
+
+        // The updated row is locked until commit, so this is the creation time of the version written above
+        LocalDateTime createdAt = productRepository.findCreatedAtById(id);
+        Product updatedProduct = new Product(id, productRequest.getName(), productRequest.getDescription(),
+                productRequest.getPrice(), productRequest.getQuantity(), createdAt, updatedAt, expectedVersion + 1);
+        ProductEvent productEvent = ProductEvent.builder()
+                .eventType(KafkaConfig.EVENT_UPDATE_PRODUCT)
+                .product(mapToProductState(updatedProduct))
+                .build();
+        commandMetrics.publish(ProductCommandMetrics.UPDATE, started, () -> productEventPublisher.publish(productEvent));
+        return mapToProductResponse(updatedProduct);
+    }
+
     @Transactional
     public ProductResponse updateProduct(Long id, ProductRequest productRequest) {
+        long started = System.nanoTime();
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Product not found with id: " + id));
 
         // Update product fields
+        String previousName = product.getName();
         product.setName(productRequest.getName());
         product.setDescription(productRequest.getDescription());
         product.setPrice(productRequest.getPrice());
         product.setQuantity(productRequest.getQuantity());
 
-        // Save updated product
-        Product updatedProduct = productRepository.save(product);
+        // Save updated product; flush so the event carries the new version and updated time
+        Product updatedProduct = productRepository.saveAndFlush(product);
+        renamed(previousName, updatedProduct.getName());
 
         // Create event
         ProductEvent productEvent = ProductEvent.builder()
                 .eventType(KafkaConfig.EVENT_UPDATE_PRODUCT)
-                .product(updatedProduct)
+                .product(mapToProductState(updatedProduct))
                 .build();
 
-        // Send to Kafka with error handling
-        try {
-            CompletableFuture<SendResult<String, ProductEvent>> future = 
-                    kafkaTemplate.send(KafkaConfig.PRODUCT_EVENT_TOPIC, productEvent);
-
-            future.whenComplete((result, ex) -> {
-                if (ex != null) {
-                    log.error("Unable to send product updated event to Kafka: {}", ex.getMessage());
-                } else {
-                    log.info("Product updated event sent to Kafka: {}", result.getRecordMetadata().offset());
-                }
-            });
-        } catch (Exception e) {
-            log.error("Exception occurred while sending product updated event to Kafka: {}", e.getMessage());
-        }
+        commandMetrics.publish(ProductCommandMetrics.UPDATE, started, () -> productEventPublisher.publish(productEvent));
 
         // Return response
         return mapToProductResponse(updatedProduct);
     }
 
+    /**
+     * Deletes the product with one conditional statement and returns the version its
+     * delete event carries. With an expected version (If-Match) nothing is read
+     * first; otherwise only the current version is, so the delete cannot overtake a
+     * concurrent update.
+     *
+     * @throws PreconditionFailedException when the product is not at the expected version
+     */
     @Transactional
-    public void deleteProduct(Long id) {
-        if (!productRepository.existsById(id)) {
-            throw new IllegalArgumentException("Product not found with id: " + id);
-        }
-
-        // Get product before deletion
-        Product product = productRepository.findById(id).get();
+    public long deleteProduct(Long id, Long expectedVersion) {
+        long started = System.nanoTime();
+        long version = expectedVersion != null ? expectedVersion : productRepository.findById(id)
+                .map(Product::getVersion)
+                .orElseThrow(() -> new IllegalArgumentException("Product not found with id: " + id));
 
-        // Delete product
-        productRepository.deleteById(id);
+        if (productRepository.deleteIfVersion(id, version) == 0) {
+            if (expectedVersion != null) {
+                throw new PreconditionFailedException("Product " + id + " does not exist at version " + expectedVersion);
+            }
+            throw new ObjectOptimisticLockingFailureException(Product.class, id);
+        }
+        nameFilter.removed();
 
-        // Create event
+        // Create event; the deletion is the product's next version, so it supersedes every earlier event.
+        // The query side only needs the id and version of a delete.
+        ProductState deletedState = ProductState.builder()
+                .id(id)
+                .version(version + 1)
+                .build();
         ProductEvent productEvent = ProductEvent.builder()
                 .eventType(KafkaConfig.EVENT_DELETE_PRODUCT)
-                .product(product)
+                .product(deletedState)
                 .build();
 
-        // Send to Kafka with error handling
-        try {
-            CompletableFuture<SendResult<String, ProductEvent>> future = 
-                    kafkaTemplate.send(KafkaConfig.PRODUCT_EVENT_TOPIC, productEvent);
-
-            future.whenComplete((result, ex) -> {
-                if (ex != null) {
-                    log.error("Unable to send product deleted event to Kafka: {}", ex.getMessage());
-                } else {
-                    log.info("Product deleted event sent to Kafka: {}", result.getRecordMetadata().offset());
-                }
-            });
-        } catch (Exception e) {
-            log.error("Exception occurred while sending product deleted event to Kafka: {}", e.getMessage());
+        commandMetrics.publish(ProductCommandMetrics.DELETE, started, () -> productEventPublisher.publish(productEvent));
+        return deletedState.getVersion();
+    }
+
+    /**
+     * Creates every valid product of the list in one transaction: one query checks
+     * all names, the inserts go out as JDBC batches (ids come from the pooled
+     * generator, so Hibernate can batch them) and all events are published
+     * together. Invalid items and duplicate names are rejected individually.
+     */
+    @Transactional
+    public ProductBatchResponse createProducts(List<ProductRequest> productRequests) {
+        checkBatchSize(productRequests.size());
+        long started = System.nanoTime();
+
+        // Names are compared case-insensitively, like the default MySQL collation does
+        Set<String> names = productRequests.stream()
+                .map(ProductRequest::getName)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<String> candidates = nameFilter.candidates(names);
+        Set<String> existingNames = candidates.isEmpty() ? Set.of() : productRepository.findExistingNames(candidates).stream()
+                .map(ProductService::nameKey)
+                .collect(Collectors.toSet());
+
+        ProductBatchItemResult[] results = new ProductBatchItemResult[productRequests.size()];
+        List<Product> products = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        Set<String> batchNames = new HashSet<>();
+        for (int i = 0; i < productRequests.size(); i++) {
+            ProductRequest request = productRequests.get(i);
+            String error = validate(request.getName(), request.getPrice(), request.getQuantity());
+            if (error == null && existingNames.contains(nameKey(request.getName()))) {
+                error = "Product with name " + request.getName() + " already exists";
+            } else if (error == null && !batchNames.add(nameKey(request.getName()))) {
+                error = "Product with name " + request.getName() + " appears more than once in the batch";
+            }
+            if (error != null) {
+                results[i] = rejected(i, error);
+                continue;
+            }
+
+            Product product = new Product();
+            product.setName(request.getName());
+            product.setDescription(request.getDescription());
+            product.setPrice(request.getPrice());
+            product.setQuantity(request.getQuantity());
+            products.add(product);
+            indexes.add(i);
         }
+
+        productRepository.saveAllAndFlush(products);
+
+        List<ProductEvent> events = new ArrayList<>(products.size());
+        for (int j = 0; j < products.size(); j++) {
+            Product product = products.get(j);
+            nameFilter.added(product.getName());
+            results[indexes.get(j)] = succeeded(indexes.get(j), ProductBatchItemResult.Status.CREATED, product);
+            events.add(ProductEvent.builder()
+                    .eventType(KafkaConfig.EVENT_CREATE_PRODUCT)
+                    .product(mapToProductState(product))
+                    .build());
+        }
+        commandMetrics.publish(ProductCommandMetrics.BULK_CREATE, started, () -> productEventPublisher.publishAll(events));
+
+        log.debug("Bulk create: {} created, {} rejected", products.size(), productRequests.size() - products.size());
+        return mapToBatchResponse(results);
+    }
+
+    /**
+     * Updates every valid item of the list in one transaction: one query loads all
+     * products, the updates go out as JDBC batches and all events are published
+     * together. Unknown ids, repeated ids and invalid items are rejected individually.
+     */
+    @Transactional
+    public ProductBatchResponse updateProducts(List<ProductUpdateItem> productUpdates) {
+        checkBatchSize(productUpdates.size());
+        long started = System.nanoTime();
+
+        Set<Long> ids = productUpdates.stream()
+                .map(ProductUpdateItem::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Product> existing = productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        ProductBatchItemResult[] results = new ProductBatchItemResult[productUpdates.size()];
+        List<Product> products = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        List<String> previousNames = new ArrayList<>();
+        Set<Long> batchIds = new HashSet<>();
+        for (int i = 0; i < productUpdates.size(); i++) {
+            ProductUpdateItem update = productUpdates.get(i);
+            String error = update.getId() == null
+                    ? "id is required"
+                    : validate(update.getName(), update.getPrice(), update.getQuantity());
+            if (error == null && !existing.containsKey(update.getId())) {
+                error = "Product not found with id: " + update.getId();
+            } else if (error == null && !batchIds.add(update.getId())) {
+                error = "Product " + update.getId() + " appears more than once in the batch";
+            }
+            if (error != null) {
+                results[i] = rejected(i, error);
+                continue;
+            }
+
+            Product product = existing.get(update.getId());
+            previousNames.add(product.getName());
+            product.setName(update.getName());
+            product.setDescription(update.getDescription());
+            product.setPrice(update.getPrice());
+            product.setQuantity(update.getQuantity());
+            products.add(product);
+            indexes.add(i);
+        }
+
+        // Flush so the events carry the new versions and updated times
+        productRepository.saveAllAndFlush(products);
+
+        List<ProductEvent> events = new ArrayList<>(products.size());
+        for (int j = 0; j < products.size(); j++) {
+            Product product = products.get(j);
+            renamed(previousNames.get(j), product.getName());
+            results[indexes.get(j)] = succeeded(indexes.get(j), ProductBatchItemResult.Status.UPDATED, product);
+            events.add(ProductEvent.builder()
+                    .eventType(KafkaConfig.EVENT_UPDATE_PRODUCT)
+                    .product(mapToProductState(product))
+                    .build());
+        }
+        commandMetrics.publish(ProductCommandMetrics.BULK_UPDATE, started, () -> productEventPublisher.publishAll(events));
+
+        log.debug("Bulk update: {} updated, {} rejected", products.size(), productUpdates.size() - products.size());
+        return mapToBatchResponse(results);
+    }
+
+    private void checkBatchSize(int size) {
+        if (size > batchProperties.getMaxSize()) {
+            throw new IllegalArgumentException("Batch of " + size + " products exceeds the limit of " + batchProperties.getMaxSize());
+        }
+    }
+
+    private static String validate(String name, BigDecimal price, Integer quantity) {
+        if (name == null || name.isBlank()) {
+            return "name is required";
+        }
+        if (price == null) {
+            return "price is required";
+        }
+        if (quantity == null) {
+            return "quantity is required";
+        }
+        return null;
+    }
+
+    private static String nameKey(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private void renamed(String previousName, String name) {
+        if (!nameKey(previousName).equals(nameKey(name))) {
+            nameFilter.added(name);
+            nameFilter.removed();
+        }
+    }
+
+    private static IllegalArgumentException duplicateName(String name) {
+        return new IllegalArgumentException("Product with name " + name + " already exists");
+    }
+
+    // The insert or rename ran into the unique index on name
+    public static boolean isDuplicateName(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains(Product.NAME_INDEX);
+    }
+
+    private ProductBatchItemResult succeeded(int index, ProductBatchItemResult.Status status, Product product) {
+        return ProductBatchItemResult.builder()
+                .index(index)
+                .status(status)
+                .product(mapToProductResponse(product))
+                .build();
+    }
+
+    private static ProductBatchItemResult rejected(int index, String error) {
+        return ProductBatchItemResult.builder()
+                .index(index)
+                .status(ProductBatchItemResult.Status.REJECTED)
+                .error(error)
+                .build();
+    }
+
+    private static ProductBatchResponse mapToBatchResponse(ProductBatchItemResult[] results) {
+        int rejected = (int) Arrays.stream(results)
+                .filter(result -> result.getStatus() == ProductBatchItemResult.Status.REJECTED)
+                .count();
+        return ProductBatchResponse.builder()
+                .succeeded(results.length - rejected)
+                .rejected(rejected)
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    private ProductState mapToProductState(Product product) {
+        return ProductState.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .description(product.getDescription())
+                .price(product.getPrice())
+                .quantity(product.getQuantity())
+                .createdAt(product.getCreatedAt())
+                .updatedAt(product.getUpdatedAt())
+                .version(product.getVersion())
+                .build();
     }
 
     private ProductResponse mapToProductResponse(Product product) {
@@ -149,6 +407,7 @@ public class ProductService {
                 .description(product.getDescription())
                 .price(product.getPrice())
                 .quantity(product.getQuantity())
+                .version(product.getVersion())
                 .build();
     }
 }
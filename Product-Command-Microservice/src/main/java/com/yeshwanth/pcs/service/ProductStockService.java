@@ -0,0 +1,281 @@
+package com.yeshwanth.pcs.service;
+
+import com.yeshwanth.pcs.config.KafkaConfig;
+import com.yeshwanth.pcs.config.StockProperties;
+import com.yeshwanth.pcs.dto.ProductEvent;
+import com.yeshwanth.pcs.dto.ProductState;
+import com.yeshwanth.pcs.dto.StockAdjustmentResponse;
+import com.yeshwanth.pcs.exception.InsufficientStockException;
+import com.yeshwanth.pcs.exception.StockAdjustmentTimeoutException;
+import com.yeshwanth.pcs.repository.ProductStockRepository;
+import com.yeshwanth.pcs.repository.ProductStockRepository.StockDelta;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Stock increments and decrements for hot products. Callers queue their
+ * adjustment and wait for it; every {@code pcs.stock.flush-interval} a flusher
+ * takes everything queued, locks the affected product_command rows, admits each
+ * adjustment in arrival order against the locked quantity and writes one update
+ * per product in the same transaction, publishing one STOCK_ADJUSTED event with
+ * the product's full row. Callers are only answered once that transaction has committed, so an
+ * adjustment reported as done is durable and a refused one fails its request.
+ *
+ * <p>The flusher runs on a thread of its own, so it never waits behind other
+ * scheduled work such as the outbox relay.
+ */
+@Slf4j
+@Service
+public class ProductStockService {
+
+    private record PendingAdjustment(long id, int delta, CompletableFuture<StockAdjustmentResponse> result) {
+    }
+
+    private record Admitted(PendingAdjustment adjustment, int available) {
+    }
+
+    private final ProductStockRepository stockRepository;
+    private final ProductEventPublisher productEventPublisher;
+    private final StockProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductCommandMetrics commandMetrics;
+
+    private final Queue<PendingAdjustment> pending = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "stock-flush"));
+    private final DistributionSummary flushSizes;
+    private final Counter insufficientStock;
+    private final Counter timeouts;
+    private volatile boolean stopped;
+
+    public ProductStockService(ProductStockRepository stockRepository,
+                               ProductEventPublisher productEventPublisher,
+                               StockProperties properties,
+                               PlatformTransactionManager transactionManager,
+                               ProductCommandMetrics commandMetrics,
+                               MeterRegistry meterRegistry) {
+        this.stockRepository = stockRepository;
+        this.productEventPublisher = productEventPublisher;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.commandMetrics = commandMetrics;
+
+        Gauge.builder("stock.adjustments.pending", pending, Queue::size)
+                .description("Stock adjustments waiting for the next flush")
+                .register(meterRegistry);
+        this.flushSizes = DistributionSummary.builder("stock.flush.size")
+                .description("Products written per stock flush")
+                .register(meterRegistry);
+        this.insufficientStock = Counter.builder("stock.adjustments.insufficient")
+                .description("Decrements refused because stock would go below zero")
+                .register(meterRegistry);
+        this.timeouts = Counter.builder("stock.adjustments.timeouts")
+                .description("Adjustments withdrawn because no flush took them within pcs.stock.queue-timeout")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void startFlusher() {
+        long interval = properties.getFlushInterval().toMillis();
+        flusher.scheduleWithFixedDelay(this::scheduledFlush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues an adjustment and waits for the flush that writes it. An adjustment
+     * still queued after {@code pcs.stock.queue-timeout} is withdrawn and the
+     * request fails with a 503. One that a flush has already taken waits for that
+     * flush: giving up then could report a failure for an adjustment it still commits.
+     *
+     * @throws InsufficientStockException      when a decrement would take stock below zero
+     * @throws StockAdjustmentTimeoutException when no flush took the adjustment in time
+     */
+    public StockAdjustmentResponse adjustStock(Long id, Integer delta) {
+        if (delta == null || delta == 0) {
+            throw new IllegalArgumentException("delta must be a non-zero number");
+        }
+        PendingAdjustment adjustment = new PendingAdjustment(id, delta, new CompletableFuture<>());
+        pending.add(adjustment);
+        if (stopped) {
+            // The last scheduled flush may already have run
+            flush();
+        }
+        try {
+            return adjustment.result().get(properties.getQueueTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (pending.remove(adjustment)) {
+                timeouts.increment();
+                throw new StockAdjustmentTimeoutException("Stock adjustment of product " + id + " was not written within "
+                        + properties.getQueueTimeout() + "; it was withdrawn", properties.getQueueTimeout());
+            }
+            // A flush has taken it; its outcome is the answer
+            return await(adjustment);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the stock flush", e);
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+
+    private static StockAdjustmentResponse await(PendingAdjustment adjustment) {
+        try {
+            return adjustment.result().join();
+        } catch (CompletionException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    // An exception escaping a scheduled run would cancel every later one
+    private void scheduledFlush() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Stock flush failed", e);
+        }
+    }
+
+    /**
+     * Writes every queued adjustment in one transaction and answers their callers
+     * after it commits. If the transaction fails, every caller of the flush gets
+     * the failure; nothing of it was written.
+     */
+    synchronized void flush() {
+        List<PendingAdjustment> batch = new ArrayList<>();
+        for (PendingAdjustment adjustment; (adjustment = pending.poll()) != null; ) {
+            batch.add(adjustment);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Runnable> answers;
+        try {
+            answers = transactionTemplate.execute(status -> write(batch));
+        } catch (RuntimeException e) {
+            log.error("Stock flush of {} adjustments failed: {}", batch.size(), e.getMessage());
+            batch.forEach(adjustment -> adjustment.result().completeExceptionally(e));
+            return;
+        }
+        answers.forEach(Runnable::run);
+    }
+
+    // Returns how to answer each adjustment, to be run once the transaction has committed
+    private List<Runnable> write(List<PendingAdjustment> batch) {
+        long started = System.nanoTime();
+        Set<Long> ids = new LinkedHashSet<>();
+        batch.forEach(adjustment -> ids.add(adjustment.id()));
+        Map<Long, Integer> stored = stockRepository.lockQuantities(ids);
+        Map<Long, Integer> quantities = new HashMap<>(stored);
+
+        List<Runnable> answers = new ArrayList<>(batch.size());
+        List<Admitted> admitted = new ArrayList<>();
+        for (PendingAdjustment adjustment : batch) {
+            RuntimeException refusal = admit(adjustment, quantities);
+            if (refusal != null) {
+                answers.add(() -> adjustment.result().completeExceptionally(refusal));
+            } else {
+                admitted.add(new Admitted(adjustment, quantities.get(adjustment.id())));
+            }
+        }
+
+        List<StockDelta> deltas = new ArrayList<>();
+        stored.forEach((id, quantity) -> {
+            int delta = quantities.get(id) - quantity;
+            if (delta != 0) {
+                deltas.add(new StockDelta(id, delta));
+            }
+        });
+        if (!deltas.isEmpty()) {
+            int[] counts = stockRepository.applyDeltas(deltas, LocalDateTime.now());
+            for (int i = 0; i < deltas.size(); i++) {
+                if (counts[i] == 0) {
+                    // Cannot happen while the rows are locked; rolls the whole flush back rather than answer wrongly
+                    throw new IllegalStateException("Stock of product " + deltas.get(i).id() + " changed under its row lock");
+                }
+            }
+        }
+        Map<Long, ProductState> products = stored.isEmpty() ? Map.of() : stockRepository.findProducts(stored.keySet());
+
+        List<ProductEvent> events = new ArrayList<>();
+        for (StockDelta delta : deltas) {
+            events.add(ProductEvent.builder()
+                    .eventType(KafkaConfig.EVENT_STOCK_ADJUSTED)
+                    .product(products.get(delta.id()))
+                    .build());
+        }
+        if (!events.isEmpty()) {
+            commandMetrics.publish(ProductCommandMetrics.STOCK_FLUSH, started, () -> productEventPublisher.publishAll(events));
+        }
+        flushSizes.record(events.size());
+
+        for (Admitted entry : admitted) {
+            PendingAdjustment adjustment = entry.adjustment();
+            StockAdjustmentResponse response = StockAdjustmentResponse.builder()
+                    .id(adjustment.id())
+                    .delta(adjustment.delta())
+                    .available((long) entry.available())
+                    .version(products.get(adjustment.id()).getVersion())
+                    .build();
+            answers.add(() -> adjustment.result().complete(response));
+        }
+        return answers;
+    }
+
+    // Applies the adjustment to the running quantities, or returns why it is refused
+    private RuntimeException admit(PendingAdjustment adjustment, Map<Long, Integer> quantities) {
+        Integer current = quantities.get(adjustment.id());
+        if (current == null) {
+            return new IllegalArgumentException("Product not found with id: " + adjustment.id());
+        }
+        long next = (long) current + adjustment.delta();
+        if (next < 0) {
+            insufficientStock.increment();
+            return new InsufficientStockException("Product " + adjustment.id() + " has " + current
+                    + " in stock, cannot remove " + -adjustment.delta());
+        }
+        if (next > Integer.MAX_VALUE) {
+            return new IllegalArgumentException("Stock of product " + adjustment.id() + " would exceed " + Integer.MAX_VALUE);
+        }
+        quantities.put(adjustment.id(), (int) next);
+        return null;
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        stopped = true;
+        flusher.shutdown();
+        flush();
+    }
+}
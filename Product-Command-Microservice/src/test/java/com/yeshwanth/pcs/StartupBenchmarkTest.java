@@ -0,0 +1,168 @@
+package com.yeshwanth.pcs;
+
+import com.yeshwanth.pcs.config.KafkaConfig;
+import org.h2.Driver;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Starts the service {@value #RUNS} times per mode, each in a new process, and
+ * prints the time from launch to the first answered {@code POST /api/products}
+ * and the resident set size right after it. Modes: the packaged jar as the
+ * Dockerfile runs it, the extracted jar, extracted with Spring AOT, extracted with
+ * AOT and the class-data-sharing archive, and the native image when one has been
+ * built. Runs on H2 and embedded Kafka, and reads RSS from /proc, so Linux only.
+ *
+ * <p>Needs the fast-startup build: {@code mvn package -Pfast-startup -DskipTests},
+ * then {@code mvn test -Pbenchmark -Dtest=StartupBenchmarkTest}. Each run's output
+ * goes to target/startup-benchmark.
+ */
+@Tag("benchmark")
+class StartupBenchmarkTest {
+
+    private static final int RUNS = 5;
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+    private static final String JAR = "product-command-service.jar";
+    private static final Path TARGET = Path.of("target").toAbsolutePath();
+    private static final Path EXTRACTED = TARGET.resolve("fast-startup");
+    private static final Path NATIVE_IMAGE = TARGET.resolve("Product-Command-Microservice");
+
+    private static EmbeddedKafkaBroker broker;
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    @BeforeAll
+    static void startBroker() {
+        assumeTrue(Files.exists(EXTRACTED.resolve("application.jsa")), "Build with mvn package -Pfast-startup first");
+        broker = new EmbeddedKafkaKraftBroker(1, 1, KafkaConfig.PRODUCT_EVENT_TOPIC);
+        broker.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopBroker() {
+        if (broker != null) {
+            broker.destroy();
+        }
+    }
+
+    @Test
+    void startupPerMode() throws Exception {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        String h2 = Path.of(Driver.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        // The archive holds the class path of the training run, relative to the extracted directory
+        String classpath = JAR + File.pathSeparator + h2;
+        String main = ProductCommandMicroserviceApplication.class.getName();
+
+        Map<String, List<String>> modes = new LinkedHashMap<>();
+        modes.put("jar", List.of(java, "-Dloader.path=" + h2, "-cp", TARGET.resolve(JAR).toString(),
+                "org.springframework.boot.loader.launch.PropertiesLauncher"));
+        modes.put("extracted", List.of(java, "-cp", classpath, main));
+        modes.put("aot", List.of(java, "-Dspring.aot.enabled=true", "-cp", classpath, main));
+        // -Xshare:on fails the run rather than starting without an archive that does not match
+        modes.put("aot+cds", List.of(java, "-XX:SharedArchiveFile=application.jsa", "-Xshare:on",
+                "-Dspring.aot.enabled=true", "-cp", classpath, main));
+        if (Files.isExecutable(NATIVE_IMAGE)) {
+            modes.put("native", List.of(NATIVE_IMAGE.toString()));
+        }
+
+        for (Map.Entry<String, List<String>> mode : modes.entrySet()) {
+            List<Run> runs = new ArrayList<>();
+            for (int i = 0; i < RUNS; i++) {
+                runs.add(run(mode.getKey() + "-" + i, mode.getValue()));
+            }
+            runs.sort(Comparator.comparingLong(Run::firstRequestMillis));
+            Run median = runs.get(RUNS / 2);
+            System.out.printf("%-9s first request %,6d ms (%,d-%,d), RSS %,4d MB%n", mode.getKey(),
+                    median.firstRequestMillis(), runs.get(0).firstRequestMillis(),
+                    runs.get(RUNS - 1).firstRequestMillis(), median.rssKb() / 1024);
+        }
+    }
+
+    private Run run(String name, List<String> command) throws Exception {
+        int port = freePort();
+        List<String> args = new ArrayList<>(command);
+        args.addAll(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:startup;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                "--spring.kafka.producer.bootstrap-servers=" + broker.getBrokersAsString(),
+                "--pcs.kafka.topic.partitions=1",
+                "--server.port=" + port));
+        Path log = TARGET.resolve("startup-benchmark").resolve(name + ".log");
+        Files.createDirectories(log.getParent());
+
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(args).directory(EXTRACTED.toFile()).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/products"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"" + name + "\",\"price\":1,\"quantity\":1}"))
+                    .build();
+            long deadline = started + TIMEOUT.toNanos();
+            while (true) {
+                if (!process.isAlive() || System.nanoTime() > deadline) {
+                    throw new IllegalStateException(name + " did not answer, see " + log);
+                }
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 201) {
+                        break;
+                    }
+                } catch (ConnectException e) {
+                    // Not listening yet
+                }
+                Thread.sleep(10);
+            }
+            return new Run((System.nanoTime() - started) / 1_000_000, rssKb(process.pid()));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static long rssKb(long pid) throws IOException {
+        return Files.readAllLines(Path.of("/proc", String.valueOf(pid), "status")).stream()
+                .filter(line -> line.startsWith("VmRSS:"))
+                .map(line -> Long.parseLong(line.replaceAll("\\D", "")))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private record Run(long firstRequestMillis, long rssKb) {
+    }
+}
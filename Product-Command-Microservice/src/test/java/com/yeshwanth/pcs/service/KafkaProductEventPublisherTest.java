@@ -0,0 +1,123 @@
+package com.yeshwanth.pcs.service;
+
+import com.yeshwanth.pcs.ProductCommandMicroserviceApplication;
+import com.yeshwanth.pcs.config.KafkaConfig;
+import com.yeshwanth.pcs.dto.ProductRequest;
+import com.yeshwanth.pcs.exception.PublisherOverloadedException;
+import com.yeshwanth.pcs.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the throughput producer profile against embedded Kafka with a linger long
+ * enough that sent events stay unacknowledged until the test flushes them.
+ */
+class KafkaProductEventPublisherTest {
+
+    private static EmbeddedKafkaBroker broker;
+    private static ConfigurableApplicationContext context;
+    private static ProductService productService;
+    private static ProductRepository productRepository;
+    private static KafkaTemplate<?, ?> kafkaTemplate;
+    private static MeterRegistry meterRegistry;
+
+    @BeforeAll
+    static void start() {
+        broker = new EmbeddedKafkaKraftBroker(1, 1, KafkaConfig.PRODUCT_EVENT_TOPIC);
+        broker.afterPropertiesSet();
+        String[] args = {
+                "--spring.profiles.active=throughput",
+                "--spring.datasource.url=jdbc:h2:mem:product-publisher;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--spring.kafka.producer.bootstrap-servers=" + broker.getBrokersAsString(),
+                "--spring.kafka.producer.properties.linger.ms=60000",
+                "--spring.kafka.producer.properties.delivery.timeout.ms=120000",
+                "--pcs.kafka.topic.partitions=1",
+                "--pcs.kafka.producer.max-in-flight=3",
+                "--pcs.kafka.producer.retry-after=2s",
+                "--server.port=0"
+        };
+        context = new SpringApplicationBuilder(ProductCommandMicroserviceApplication.class).run(args);
+        productService = context.getBean(ProductService.class);
+        productRepository = context.getBean(ProductRepository.class);
+        kafkaTemplate = context.getBean(KafkaTemplate.class);
+        meterRegistry = context.getBean(MeterRegistry.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+        broker.destroy();
+    }
+
+    @Test
+    void writesAreShedOnceTooManyEventsAwaitAcknowledgement() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            productService.createProduct(new ProductRequest("lingering-" + i, null, BigDecimal.ONE, 1));
+        }
+        assertThat(meterRegistry.get("kafka.publish.in.flight").gauge().value()).isEqualTo(3);
+
+        // Refused before the event is sent, and the insert is rolled back with it
+        assertThatThrownBy(() -> productService.createProduct(new ProductRequest("refused", null, BigDecimal.ONE, 1)))
+                .isInstanceOf(PublisherOverloadedException.class);
+        assertThat(productRepository.existsByName("refused")).isFalse();
+
+        HttpResponse<String> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:" + port() + "/api/products"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"refused-http\",\"price\":1,\"quantity\":1}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(503);
+        assertThat(response.headers().firstValue("Retry-After")).hasValue("2");
+        assertThat(meterRegistry.get("kafka.publish.rejected").counter().count()).isEqualTo(2);
+
+        kafkaTemplate.flush();
+        assertThat(meterRegistry.get("kafka.publish.in.flight").gauge().value()).isZero();
+        assertThat(meterRegistry.get("kafka.publish.latency").timer().count()).isEqualTo(3);
+        // The three events went out as one compressed batch
+        assertThat(meterRegistry.get("kafka.producer.batch.size.avg").gauge().value()).isPositive();
+
+        productService.createProduct(new ProductRequest("accepted", null, BigDecimal.ONE, 1));
+        assertThat(productRepository.existsByName("accepted")).isTrue();
+
+        // Refused creates spent time in the publish phase but never committed
+        assertThat(meterRegistry.get("product.command.publish").tag("operation", ProductCommandMetrics.CREATE).timer().count())
+                .isEqualTo(6);
+        assertThat(meterRegistry.get("product.command.db").tag("operation", ProductCommandMetrics.CREATE).timer().count())
+                .isEqualTo(4);
+
+        HttpResponse<String> scrape = HttpClient.newHttpClient().send(HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:" + port() + "/actuator/prometheus"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(scrape.statusCode()).isEqualTo(200);
+        assertThat(scrape.body()).contains("product_command_db_seconds_bucket", "kafka_publish_rejected_total");
+    }
+
+    private static int port() {
+        return ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+}
@@ -0,0 +1,116 @@
+package com.yeshwanth.pcs.service;
+
+import com.yeshwanth.pcs.ProductCommandMicroserviceApplication;
+import com.yeshwanth.pcs.config.KafkaConfig;
+import com.yeshwanth.pcs.dto.ProductRequest;
+import com.yeshwanth.pcs.model.OutboxEvent;
+import com.yeshwanth.pcs.model.OutboxRelayLease;
+import com.yeshwanth.pcs.repository.OutboxEventRepository;
+import com.yeshwanth.pcs.repository.OutboxRelayLeaseRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the outbox relay against embedded Kafka: a row with an unreadable payload
+ * is set aside without holding up the rows behind it, and nothing is published
+ * while another instance holds the relay lease.
+ */
+class OutboxRelayTest {
+
+    private static EmbeddedKafkaBroker broker;
+    private static ConfigurableApplicationContext context;
+    private static ProductService productService;
+    private static OutboxEventRepository outboxEventRepository;
+    private static OutboxRelayLeaseRepository leaseRepository;
+    private static MeterRegistry meterRegistry;
+
+    @BeforeAll
+    static void start() {
+        broker = new EmbeddedKafkaKraftBroker(1, 1, KafkaConfig.PRODUCT_EVENT_TOPIC);
+        broker.afterPropertiesSet();
+        String[] args = {
+                "--spring.datasource.url=jdbc:h2:mem:outbox-relay;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--spring.kafka.producer.bootstrap-servers=" + broker.getBrokersAsString(),
+                "--pcs.kafka.topic.partitions=1",
+                "--pcs.events.delivery=outbox",
+                "--pcs.outbox.poll-interval=50ms",
+                "--server.port=0"
+        };
+        context = new SpringApplicationBuilder(ProductCommandMicroserviceApplication.class).run(args);
+        productService = context.getBean(ProductService.class);
+        outboxEventRepository = context.getBean(OutboxEventRepository.class);
+        leaseRepository = context.getBean(OutboxRelayLeaseRepository.class);
+        meterRegistry = context.getBean(MeterRegistry.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+        broker.destroy();
+    }
+
+    @Test
+    void unreadablePayloadsAreSetAsideAndTheRestIsPublished() throws Exception {
+        double published = publishedCount();
+        productService.createProduct(new ProductRequest("before-poison", null, BigDecimal.ONE, 1));
+        OutboxEvent poison = outboxEventRepository.save(
+                new OutboxEvent(null, 0L, KafkaConfig.EVENT_CREATE_PRODUCT, "{not json", LocalDateTime.now(), null, null));
+        productService.createProduct(new ProductRequest("after-poison", null, BigDecimal.ONE, 1));
+
+        await(() -> publishedCount() == published + 2);
+        assertThat(outboxEventRepository.findById(poison.getId())).get()
+                .satisfies(row -> {
+                    assertThat(row.getFailedAt()).isNotNull();
+                    assertThat(row.getPublishedAt()).isNull();
+                });
+        assertThat(meterRegistry.get("outbox.relay.unreadable").counter().count()).isEqualTo(1);
+        await(() -> meterRegistry.get("outbox.backlog").gauge().value() == 0);
+    }
+
+    @Test
+    void onlyTheLeaseHolderPublishes() throws Exception {
+        await(() -> leaseRepository.existsById("relay"));
+        leaseRepository.save(new OutboxRelayLease("relay", "other-instance", LocalDateTime.now().plusMinutes(5)));
+        double published = publishedCount();
+        productService.createProduct(new ProductRequest("while-leased", null, BigDecimal.ONE, 1));
+
+        Thread.sleep(500);
+        assertThat(publishedCount()).isEqualTo(published);
+
+        // The other instance stopped renewing
+        leaseRepository.save(new OutboxRelayLease("relay", "other-instance", LocalDateTime.now().minusSeconds(1)));
+        await(() -> publishedCount() == published + 1);
+    }
+
+    private static double publishedCount() {
+        return meterRegistry.get("outbox.relay.published").counter().count();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within a minute");
+            }
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.yeshwanth.pcs.service;
+
+import com.yeshwanth.pcs.ProductCommandMicroserviceApplication;
+import com.yeshwanth.pcs.config.KafkaConfig;
+import com.yeshwanth.pcs.dto.ProductRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Creates products one at a time from several threads against a product_command
+ * of {@value #ROWS} rows, and prints creates per second and name lookups for:
+ * no index on name (every check scans the table), the unique index alone, and
+ * the unique index with the name filter in front of it. Runs on H2; run with
+ * {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class ProductCreateBenchmarkTest {
+
+    private static final int ROWS = 1_000_000;
+    private static final int THREADS = 8;
+    private static final String DATABASE = "jdbc:h2:mem:product-create-benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static EmbeddedKafkaBroker broker;
+
+    @BeforeAll
+    static void startBroker() {
+        broker = new EmbeddedKafkaKraftBroker(1, 1, KafkaConfig.PRODUCT_EVENT_TOPIC);
+        broker.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopBroker() {
+        broker.destroy();
+    }
+
+    @Test
+    void nameFilterSkipsTheLookupForNewNames() throws Exception {
+        try (ConfigurableApplicationContext context = start("create", true)) {
+            seed(context.getBean(JdbcTemplate.class));
+        }
+
+        Run filtered = run("filter", true, 20_000);
+        Run indexed = run("index", false, 20_000);
+        try (ConfigurableApplicationContext context = start("none", false)) {
+            context.getBean(JdbcTemplate.class).execute("alter table product_command drop constraint uk_product_command_name");
+        }
+        Run scanned = run("scan", false, 200);
+
+        System.out.printf("Creates at %,d rows: no index %.0f/s (%d lookups), unique index %.0f/s (%d lookups), "
+                        + "index + filter %.0f/s (%d lookups, started in %d ms)%n",
+                ROWS, scanned.createsPerSecond(), scanned.lookups(), indexed.createsPerSecond(), indexed.lookups(),
+                filtered.createsPerSecond(), filtered.lookups(), filtered.startupMillis());
+    }
+
+    private static Run run(String label, boolean filter, int creates) throws Exception {
+        long started = System.nanoTime();
+        try (ConfigurableApplicationContext context = start("none", filter)) {
+            long startupMillis = (System.nanoTime() - started) / 1_000_000;
+            ProductService productService = context.getBean(ProductService.class);
+            create(productService, label + "-warmup-", Math.min(creates, 1_000));
+
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            double skippedBefore = skipped(meterRegistry);
+            long start = System.nanoTime();
+            create(productService, label + "-", creates);
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            long lookups = creates - (long) (skipped(meterRegistry) - skippedBefore);
+            return new Run(creates / seconds, lookups, startupMillis);
+        }
+    }
+
+    private static void create(ProductService productService, String prefix, int creates) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(clients.submit(() -> {
+                    for (int i = thread; i < creates; i += THREADS) {
+                        productService.createProduct(new ProductRequest(prefix + i, null, BigDecimal.TEN, 1));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    private static double skipped(MeterRegistry meterRegistry) {
+        return meterRegistry.get("product.name.filter.checks").tag("result", "skipped").counter().count();
+    }
+
+    // Negative ids stay clear of the generator's blocks
+    private static void seed(JdbcTemplate jdbcTemplate) {
+        List<Object[]> rows = new ArrayList<>(10_000);
+        for (int id = 1; id <= ROWS; id++) {
+            rows.add(new Object[]{-id, "seeded-" + id});
+            if (rows.size() == 10_000) {
+                jdbcTemplate.batchUpdate("insert into product_command (id, name, price, quantity, version) "
+                        + "values (?, ?, 1, 1, 0)", rows);
+                rows.clear();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String ddlAuto, boolean filter) {
+        String[] args = {
+                "--spring.datasource.url=" + DATABASE,
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.hikari.maximum-pool-size=" + (THREADS + 2),
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+                "--spring.jpa.show-sql=false",
+                "--spring.kafka.producer.bootstrap-servers=" + broker.getBrokersAsString(),
+                "--pcs.kafka.topic.partitions=1",
+                "--pcs.name-filter.enabled=" + filter,
+                "--server.port=0",
+                "--logging.level.com.yeshwanth.pcs=WARN"
+        };
+        return new SpringApplicationBuilder(ProductCommandMicroserviceApplication.class).run(args);
+    }
+
+    private record Run(double createsPerSecond, long lookups, long startupMillis) {
+    }
+}
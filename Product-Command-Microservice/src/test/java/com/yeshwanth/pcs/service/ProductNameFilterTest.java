@@ -0,0 +1,36 @@
+package com.yeshwanth.pcs.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductNameFilterTest {
+
+    @Test
+    void addedNamesAreAlwaysFoundAndFewOthersAre() {
+        ProductNameFilter.Bits bits = new ProductNameFilter.Bits(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            bits.add(ProductNameFilter.hash("product-" + i));
+        }
+
+        for (int i = 0; i < 100_000; i++) {
+            assertThat(bits.mightContain(ProductNameFilter.hash("product-" + i))).isTrue();
+        }
+        int falsePositives = 0;
+        for (int i = 100_000; i < 200_000; i++) {
+            if (bits.mightContain(ProductNameFilter.hash("product-" + i))) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(1_500);
+    }
+
+    @Test
+    void namesDifferingOnlyInCaseAreTheSameName() {
+        ProductNameFilter.Bits bits = new ProductNameFilter.Bits(1_000, 0.01);
+        bits.add(ProductNameFilter.hash("Laptop Stand"));
+
+        assertThat(bits.mightContain(ProductNameFilter.hash("LAPTOP stand"))).isTrue();
+        assertThat(bits.add(ProductNameFilter.hash("laptop stand"))).isFalse();
+    }
+}
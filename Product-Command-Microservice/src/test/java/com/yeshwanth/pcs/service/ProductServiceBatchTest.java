@@ -0,0 +1,136 @@
+package com.yeshwanth.pcs.service;
+
+import com.yeshwanth.pcs.ProductCommandMicroserviceApplication;
+import com.yeshwanth.pcs.config.KafkaConfig;
+import com.yeshwanth.pcs.dto.ProductBatchItemResult;
+import com.yeshwanth.pcs.dto.ProductBatchResponse;
+import com.yeshwanth.pcs.dto.ProductEvent;
+import com.yeshwanth.pcs.dto.ProductRequest;
+import com.yeshwanth.pcs.dto.ProductUpdateItem;
+import com.yeshwanth.pcs.kafka.ProductEventCodec;
+import jakarta.persistence.EntityManagerFactory;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the bulk create and update paths against H2 and embedded Kafka.
+ */
+class ProductServiceBatchTest {
+
+    private static EmbeddedKafkaBroker broker;
+    private static ConfigurableApplicationContext context;
+    private static ProductService productService;
+    private static Statistics statistics;
+
+    @BeforeAll
+    static void start() {
+        broker = new EmbeddedKafkaKraftBroker(1, 1, KafkaConfig.PRODUCT_EVENT_TOPIC);
+        broker.afterPropertiesSet();
+        String[] args = {
+                "--spring.datasource.url=jdbc:h2:mem:product-batch;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.generate_statistics=true",
+                "--logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+                "--spring.kafka.producer.bootstrap-servers=" + broker.getBrokersAsString(),
+                "--pcs.kafka.topic.partitions=1",
+                "--server.port=0"
+        };
+        context = new SpringApplicationBuilder(ProductCommandMicroserviceApplication.class).run(args);
+        productService = context.getBean(ProductService.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+        broker.destroy();
+    }
+
+    @Test
+    void bulkCreateBatchesInsertsAndReportsEachItem() {
+        List<ProductRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            requests.add(new ProductRequest("bulk-" + i, "imported", new BigDecimal("1.50"), i));
+        }
+        requests.add(new ProductRequest("BULK-7", "same name, other case", BigDecimal.ONE, 1));
+        requests.add(new ProductRequest("no-price", null, null, 1));
+
+        statistics.clear();
+        ProductBatchResponse response = productService.createProducts(requests);
+
+        assertThat(response.getSucceeded()).isEqualTo(200);
+        assertThat(response.getRejected()).isEqualTo(2);
+        assertThat(response.getResults().get(200).getError()).contains("more than once");
+        assertThat(response.getResults().get(201).getError()).isEqualTo("price is required");
+        assertThat(response.getResults().subList(0, 200))
+                .allMatch(result -> result.getStatus() == ProductBatchItemResult.Status.CREATED)
+                .extracting(result -> result.getProduct().getId())
+                .doesNotHaveDuplicates();
+        // Name check, a few id block reservations and the batched inserts, not 400 statements
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(30);
+
+        ProductBatchResponse again = productService.createProducts(List.of(new ProductRequest("bulk-3", null, BigDecimal.ONE, 1)));
+        assertThat(again.getResults().get(0).getError()).isEqualTo("Product with name bulk-3 already exists");
+
+        List<Long> ids = response.getResults().subList(0, 3).stream().map(result -> result.getProduct().getId()).toList();
+        ProductBatchResponse updated = productService.updateProducts(List.of(
+                new ProductUpdateItem(ids.get(0), "renamed-0", null, BigDecimal.TEN, 5),
+                new ProductUpdateItem(ids.get(1), "renamed-1", null, BigDecimal.TEN, 5),
+                new ProductUpdateItem(ids.get(1), "renamed-1-again", null, BigDecimal.TEN, 5),
+                new ProductUpdateItem(-1L, "missing", null, BigDecimal.TEN, 5)));
+
+        assertThat(updated.getResults()).extracting(ProductBatchItemResult::getStatus).containsExactly(
+                ProductBatchItemResult.Status.UPDATED, ProductBatchItemResult.Status.UPDATED,
+                ProductBatchItemResult.Status.REJECTED, ProductBatchItemResult.Status.REJECTED);
+
+        List<ProductEvent> events = consumeEvents(202);
+        assertThat(events.subList(0, 200))
+                .allMatch(event -> KafkaConfig.EVENT_CREATE_PRODUCT.equals(event.getEventType())
+                        && event.getProduct().getVersion() == 0L);
+        assertThat(events.subList(200, 202))
+                .allMatch(event -> KafkaConfig.EVENT_UPDATE_PRODUCT.equals(event.getEventType())
+                        && event.getProduct().getVersion() == 1L);
+    }
+
+    private static List<ProductEvent> consumeEvents(int count) {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("product-batch-test", "false", broker);
+        List<ProductEvent> events = new ArrayList<>();
+        try (KafkaConsumer<String, byte[]> consumer =
+                     new KafkaConsumer<>(props, new StringDeserializer(), new ByteArrayDeserializer())) {
+            consumer.subscribe(List.of(KafkaConfig.PRODUCT_EVENT_TOPIC));
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (events.size() < count && System.currentTimeMillis() < deadline) {
+                for (ConsumerRecord<String, byte[]> record : consumer.poll(Duration.ofMillis(200))) {
+                    events.add(ProductEventCodec.decode(record.value()));
+                }
+            }
+        }
+        assertThat(events).hasSize(count);
+        return events;
+    }
+}
@@ -0,0 +1,148 @@
+package com.yeshwanth.pcs.service;
+
+import com.yeshwanth.pcs.ProductCommandMicroserviceApplication;
+import com.yeshwanth.pcs.config.KafkaConfig;
+import com.yeshwanth.pcs.dto.ProductRequest;
+import com.yeshwanth.pcs.dto.ProductResponse;
+import com.yeshwanth.pcs.exception.PreconditionFailedException;
+import com.yeshwanth.pcs.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the If-Match update and delete paths and the name checks against H2 and
+ * embedded Kafka.
+ */
+class ProductServiceConditionalWriteTest {
+
+    private static EmbeddedKafkaBroker broker;
+    private static ConfigurableApplicationContext context;
+    private static ProductService productService;
+    private static ProductRepository productRepository;
+    private static Statistics statistics;
+    private static MeterRegistry meterRegistry;
+
+    @BeforeAll
+    static void start() {
+        broker = new EmbeddedKafkaKraftBroker(1, 1, KafkaConfig.PRODUCT_EVENT_TOPIC);
+        broker.afterPropertiesSet();
+        String[] args = {
+                "--spring.datasource.url=jdbc:h2:mem:product-conditional;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.generate_statistics=true",
+                "--logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+                "--spring.kafka.producer.bootstrap-servers=" + broker.getBrokersAsString(),
+                "--pcs.kafka.topic.partitions=1",
+                "--server.port=0"
+        };
+        context = new SpringApplicationBuilder(ProductCommandMicroserviceApplication.class).run(args);
+        productService = context.getBean(ProductService.class);
+        productRepository = context.getBean(ProductRepository.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        meterRegistry = context.getBean(MeterRegistry.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+        broker.destroy();
+    }
+
+    @Test
+    void ifMatchUpdateSkipsTheEntityReadAndRejectsOtherVersions() {
+        ProductResponse created = productService.createProduct(new ProductRequest("lamp", "desk lamp", BigDecimal.TEN, 3));
+
+        statistics.clear();
+        ProductResponse updated = productService.updateProduct(created.getId(),
+                new ProductRequest("lamp", "brighter", new BigDecimal("12.00"), 2), created.getVersion());
+
+        // The conditional update and the creation time by primary key
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(updated.getVersion()).isEqualTo(created.getVersion() + 1);
+        assertThat(updated.getCreatedAt()).isEqualTo(created.getCreatedAt());
+        assertThat(productRepository.findById(created.getId())).get()
+                .satisfies(product -> {
+                    assertThat(product.getDescription()).isEqualTo("brighter");
+                    assertThat(product.getVersion()).isEqualTo(updated.getVersion());
+                    assertThat(product.getCreatedAt()).isNotNull();
+                });
+
+        assertThatThrownBy(() -> productService.updateProduct(created.getId(),
+                new ProductRequest("lamp", "stale", BigDecimal.ONE, 1), created.getVersion()))
+                .isInstanceOf(PreconditionFailedException.class);
+        assertThatThrownBy(() -> productService.updateProduct(-1L,
+                new ProductRequest("lamp", "missing", BigDecimal.ONE, 1), 0L))
+                .isInstanceOf(PreconditionFailedException.class);
+    }
+
+    @Test
+    void deleteNeedsOneStatementWithIfMatchAndTwoWithout() {
+        ProductResponse first = productService.createProduct(new ProductRequest("chair", null, BigDecimal.TEN, 1));
+        ProductResponse second = productService.createProduct(new ProductRequest("table", null, BigDecimal.TEN, 1));
+
+        assertThatThrownBy(() -> productService.deleteProduct(first.getId(), first.getVersion() + 1))
+                .isInstanceOf(PreconditionFailedException.class);
+
+        statistics.clear();
+        assertThat(productService.deleteProduct(first.getId(), first.getVersion())).isEqualTo(first.getVersion() + 1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        statistics.clear();
+        assertThat(productService.deleteProduct(second.getId(), null)).isEqualTo(second.getVersion() + 1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+
+        assertThat(productRepository.existsById(first.getId())).isFalse();
+        assertThat(productRepository.existsById(second.getId())).isFalse();
+    }
+
+    @Test
+    void newNamesSkipTheLookupAndTheUniqueIndexCatchesWhatTheFilterMisses() {
+        double skipped = nameChecks("skipped");
+        productService.createProduct(new ProductRequest("sofa", null, BigDecimal.TEN, 1));
+        assertThat(nameChecks("skipped")).isEqualTo(skipped + 1);
+
+        double duplicates = nameChecks("duplicate");
+        assertThatThrownBy(() -> productService.createProduct(new ProductRequest("sofa", null, BigDecimal.ONE, 1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Product with name sofa already exists");
+        assertThat(nameChecks("duplicate")).isEqualTo(duplicates + 1);
+
+        // Written by another instance, so this instance's filter has never seen it
+        context.getBean(JdbcTemplate.class).update("insert into product_command (id, name, price, quantity, version) "
+                + "values (-100, 'bench', 1, 1, 0)");
+        assertThatThrownBy(() -> productService.createProduct(new ProductRequest("bench", null, BigDecimal.ONE, 1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Product with name bench already exists");
+
+        ProductResponse stool = productService.createProduct(new ProductRequest("stool", null, BigDecimal.TEN, 1));
+        assertThatThrownBy(() -> productService.updateProduct(stool.getId(),
+                new ProductRequest("sofa", null, BigDecimal.TEN, 1), stool.getVersion()))
+                .isInstanceOfSatisfying(DataIntegrityViolationException.class,
+                        e -> assertThat(ProductService.isDuplicateName(e)).isTrue());
+    }
+
+    private static double nameChecks(String result) {
+        return meterRegistry.get("product.name.filter.checks").tag("result", result).counter().count();
+    }
+}
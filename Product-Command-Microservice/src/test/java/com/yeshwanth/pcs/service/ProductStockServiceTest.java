@@ -0,0 +1,189 @@
+package com.yeshwanth.pcs.service;
+
+import com.yeshwanth.pcs.ProductCommandMicroserviceApplication;
+import com.yeshwanth.pcs.config.KafkaConfig;
+import com.yeshwanth.pcs.dto.ProductEvent;
+import com.yeshwanth.pcs.dto.ProductRequest;
+import com.yeshwanth.pcs.dto.ProductResponse;
+import com.yeshwanth.pcs.dto.StockAdjustmentResponse;
+import com.yeshwanth.pcs.exception.InsufficientStockException;
+import com.yeshwanth.pcs.exception.StockAdjustmentTimeoutException;
+import com.yeshwanth.pcs.kafka.ProductEventCodec;
+import com.yeshwanth.pcs.repository.ProductRepository;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs stock adjustments and their flush against H2 and embedded Kafka, with a
+ * short flush interval since every adjustment waits for its flush, and a short
+ * queue timeout for the adjustments no flush takes.
+ */
+class ProductStockServiceTest {
+
+    private static EmbeddedKafkaBroker broker;
+    private static ConfigurableApplicationContext context;
+    private static ProductService productService;
+    private static ProductStockService stockService;
+    private static ProductRepository productRepository;
+
+    @BeforeAll
+    static void start() {
+        broker = new EmbeddedKafkaKraftBroker(1, 1, KafkaConfig.PRODUCT_EVENT_TOPIC);
+        broker.afterPropertiesSet();
+        String[] args = {
+                "--spring.datasource.url=jdbc:h2:mem:product-stock;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--spring.kafka.producer.bootstrap-servers=" + broker.getBrokersAsString(),
+                "--pcs.kafka.topic.partitions=1",
+                "--pcs.stock.flush-interval=10ms",
+                "--pcs.stock.queue-timeout=500ms",
+                "--server.port=0"
+        };
+        context = new SpringApplicationBuilder(ProductCommandMicroserviceApplication.class).run(args);
+        productService = context.getBean(ProductService.class);
+        stockService = context.getBean(ProductStockService.class);
+        productRepository = context.getBean(ProductRepository.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+        broker.destroy();
+    }
+
+    @Test
+    void concurrentDecrementsNeverOversellAndAreWrittenWhenAnswered() throws Exception {
+        ProductResponse product = productService.createProduct(new ProductRequest("umbrella", null, BigDecimal.TEN, 100));
+
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 16; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 20; i++) {
+                        try {
+                            stockService.adjustStock(product.getId(), -1);
+                            sold.incrementAndGet();
+                        } catch (InsufficientStockException e) {
+                            refused.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(sold.get()).isEqualTo(100);
+        assertThat(refused.get()).isEqualTo(220);
+
+        // No flush left to wait for: every answered decrement is already stored
+        long flushes = productRepository.findById(product.getId()).orElseThrow().getVersion() - product.getVersion();
+        assertThat(productRepository.findById(product.getId())).get()
+                .satisfies(stored -> assertThat(stored.getQuantity()).isZero());
+        List<ProductEvent> events = stockEvents(product.getId(), (int) flushes);
+        assertThat(events).hasSize((int) flushes);
+        assertThat(events).last()
+                .satisfies(event -> {
+                    assertThat(event.getProduct().getQuantity()).isZero();
+                    assertThat(event.getProduct().getVersion()).isEqualTo(product.getVersion() + flushes);
+                    assertThat(event.getProduct().getName()).isEqualTo("umbrella");
+                    assertThat(event.getProduct().getPrice()).isEqualByComparingTo(BigDecimal.TEN);
+                });
+    }
+
+    @Test
+    void adjustmentsAreAdmittedAgainstTheStoredQuantity() {
+        ProductResponse product = productService.createProduct(new ProductRequest("kettle", null, BigDecimal.TEN, 3));
+        StockAdjustmentResponse emptied = stockService.adjustStock(product.getId(), -3);
+        assertThat(emptied.getAvailable()).isZero();
+        assertThat(emptied.getVersion()).isEqualTo(product.getVersion() + 1);
+
+        // An absolute update between adjustments is what the next one is checked against
+        productService.updateProduct(product.getId(), new ProductRequest("kettle", null, BigDecimal.TEN, 1));
+        assertThat(stockService.adjustStock(product.getId(), 4).getAvailable()).isEqualTo(5);
+        assertThatThrownBy(() -> stockService.adjustStock(product.getId(), -6))
+                .isInstanceOf(InsufficientStockException.class);
+
+        assertThat(productRepository.findById(product.getId())).get()
+                .satisfies(stored -> {
+                    assertThat(stored.getQuantity()).isEqualTo(5);
+                    assertThat(stored.getVersion()).isEqualTo(product.getVersion() + 3);
+                });
+    }
+
+    @Test
+    void adjustmentsNoFlushTakesInTimeAreWithdrawn() {
+        ProductResponse product = productService.createProduct(new ProductRequest("teapot", null, BigDecimal.TEN, 3));
+
+        // Holding the flush lock keeps the flusher from taking the queue
+        synchronized (stockService) {
+            assertThatThrownBy(() -> stockService.adjustStock(product.getId(), -1))
+                    .isInstanceOf(StockAdjustmentTimeoutException.class);
+        }
+
+        assertThat(stockService.adjustStock(product.getId(), -1).getAvailable()).isEqualTo(2);
+        assertThat(productRepository.findById(product.getId())).get()
+                .satisfies(stored -> {
+                    assertThat(stored.getQuantity()).isEqualTo(2);
+                    assertThat(stored.getVersion()).isEqualTo(product.getVersion() + 1);
+                });
+    }
+
+    @Test
+    void unknownProductsAreRejected() {
+        assertThatThrownBy(() -> stockService.adjustStock(-1L, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<ProductEvent> stockEvents(Long id, int count) {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("product-stock-test-" + id, "false", broker);
+        List<ProductEvent> events = new ArrayList<>();
+        try (KafkaConsumer<String, byte[]> consumer =
+                     new KafkaConsumer<>(props, new StringDeserializer(), new ByteArrayDeserializer())) {
+            consumer.subscribe(List.of(KafkaConfig.PRODUCT_EVENT_TOPIC));
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (events.size() < count && System.currentTimeMillis() < deadline) {
+                for (ConsumerRecord<String, byte[]> record : consumer.poll(Duration.ofMillis(200))) {
+                    ProductEvent event = ProductEventCodec.decode(record.value());
+                    if (KafkaConfig.EVENT_STOCK_ADJUSTED.equals(event.getEventType()) && id.equals(event.getProduct().getId())) {
+                        events.add(event);
+                    }
+                }
+            }
+        }
+        return events;
+    }
+}
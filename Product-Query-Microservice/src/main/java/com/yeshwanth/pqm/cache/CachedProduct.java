@@ -0,0 +1,20 @@
+package com.yeshwanth.pqm.cache;
+
+import com.yeshwanth.pqm.model.Product;
+import org.springframework.util.DigestUtils;
+
+/**
+ * A projected product together with its JSON response body, serialized once when
+ * the entry is loaded or refreshed, and the ETag for that body. The ETag is the
+ * product version; rows from unversioned events fall back to a hash of the body.
+ * The instances are shared between request threads, so neither part may be changed.
+ */
+public record CachedProduct(Product product, byte[] json, String etag) {
+
+    public static CachedProduct of(Product product, byte[] json) {
+        String tag = product.getVersion() != null
+                ? String.valueOf(product.getVersion())
+                : "h" + DigestUtils.md5DigestAsHex(json);
+        return new CachedProduct(product, json, "\"" + tag + "\"");
+    }
+}
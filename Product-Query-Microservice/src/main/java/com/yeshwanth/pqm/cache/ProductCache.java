@@ -0,0 +1,159 @@
+package com.yeshwanth.pqm.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yeshwanth.pqm.config.ProductCacheProperties;
+import com.yeshwanth.pqm.model.Product;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process cache of projected products for point lookups. Entries stay
+ * coherent because every applied event refreshes or invalidates them: events this
+ * instance applies after they commit, and, when replicas share
+ * product-query-group, every event on the topic through
+ * {@link com.yeshwanth.pqm.kafka.ProjectionViewConsumer}. Reads load missing
+ * entries from the store, while events only refresh entries that are already
+ * cached, so a bulk import does not push the hot set out. Hit, miss, eviction and
+ * size statistics are exported as cache.* metrics tagged cache=products.
+ *
+ * <p>An event from the topic can arrive before the replica that owns its
+ * partition has written it, so a load in between would read the row it replaces.
+ * The cache remembers the version such events announced for products it does not
+ * hold, and does not keep a loaded row older than that. Entries are reloaded
+ * after {@code pqm.cache.expire-after-write} regardless, which bounds staleness if
+ * that memory was evicted.
+ *
+ * <p>Each entry also holds the product's JSON response body, so a read writes
+ * bytes that were serialized when the entry was loaded or last refreshed by an
+ * event, rather than running Jackson per request.
+ */
+@Component
+@EnableConfigurationProperties(ProductCacheProperties.class)
+public class ProductCache {
+
+    private final Cache<Long, CachedProduct> cache;
+    private final Cache<Long, Long> pendingVersions;
+    private final ObjectMapper objectMapper;
+
+    public ProductCache(ProductCacheProperties properties, MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxWeight().toBytes())
+                .weigher((Long id, CachedProduct cached) -> weigh(cached))
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .build();
+        this.pendingVersions = Caffeine.newBuilder()
+                .maximumSize(properties.getPendingVersions())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "products");
+    }
+
+    public Optional<Product> get(Long id, Function<Long, Optional<Product>> loader) {
+        return getSerialized(id, loader).map(CachedProduct::product);
+    }
+
+    public Optional<CachedProduct> getSerialized(Long id, Function<Long, Optional<Product>> loader) {
+        CachedProduct cached = cache.get(id, key -> loader.apply(key).map(this::serialize).orElse(null));
+        Long pending = pendingVersions.getIfPresent(id);
+        if (cached != null && pending != null) {
+            Long version = cached.product().getVersion();
+            if (version != null && version < pending) {
+                // The store has not caught up with the topic yet: answer with the row, but do not keep it
+                cache.asMap().remove(id, cached);
+            } else {
+                pendingVersions.asMap().remove(id, pending);
+            }
+        }
+        return Optional.ofNullable(cached);
+    }
+
+    /**
+     * Replaces a cached entry with the state just written by the projection. Must be
+     * called after the write has committed, so a concurrent read-through load can
+     * never overwrite it with an older row.
+     */
+    public void refreshIfPresent(Product product) {
+        cache.asMap().computeIfPresent(product.getId(),
+                (id, cached) -> isNewer(product, cached.product()) ? serialize(withCreatedAt(product, cached.product())) : cached);
+    }
+
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+    }
+
+    /**
+     * Takes a change read from the topic that the store may not hold yet: refreshes
+     * the entry if there is one, and otherwise remembers the version so that a load
+     * of an older row is not cached.
+     */
+    public void changed(Product product) {
+        refreshIfPresent(product);
+        if (product.getVersion() != null && !cache.asMap().containsKey(product.getId())) {
+            pendingVersions.asMap().merge(product.getId(), product.getVersion(), Math::max);
+        }
+    }
+
+    // Like changed, for a delete: no row older than the delete is cached afterwards
+    public void deleted(Long id, Long version) {
+        if (version != null) {
+            pendingVersions.asMap().merge(id, version, Math::max);
+        }
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+        pendingVersions.invalidateAll();
+    }
+
+    private CachedProduct serialize(Product product) {
+        Product snapshot = copyOf(product);
+        try {
+            return CachedProduct.of(snapshot, objectMapper.writeValueAsBytes(snapshot));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize product " + product.getId(), e);
+        }
+    }
+
+    // Events from conditional updates carry no creation time; the store keeps the old one, and so does the cache
+    private static Product withCreatedAt(Product product, Product cached) {
+        if (product.getCreatedAt() != null) {
+            return product;
+        }
+        Product merged = copyOf(product);
+        merged.setCreatedAt(cached.getCreatedAt());
+        return merged;
+    }
+
+    // Cached instances are shared between request threads, so keep them apart from JPA-managed entities
+    private static Product copyOf(Product product) {
+        return new Product(product.getId(), product.getName(), product.getDescription(), product.getPrice(),
+                product.getQuantity(), product.getCreatedAt(), product.getUpdatedAt(), product.getVersion());
+    }
+
+    // A stale event that the store dropped must not replace a newer cached state either
+    private static boolean isNewer(Product product, Product cached) {
+        return product.getVersion() == null || cached.getVersion() == null || product.getVersion() > cached.getVersion();
+    }
+
+    // Rough heap footprint: object headers and boxed fields, two bytes per character and the JSON body
+    private static int weigh(CachedProduct cached) {
+        Product product = cached.product();
+        int chars = length(product.getName()) + length(product.getDescription());
+        return 220 + 2 * chars + cached.json().length;
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+}
@@ -0,0 +1,20 @@
+package com.yeshwanth.pqm.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "pqm.consistency")
+public class ConsistencyProperties {
+
+    // How long GET /api/products/{id}?minVersion= waits when the request names no wait
+    private Duration defaultWait = Duration.ofSeconds(2);
+
+    // Upper bound for a requested wait
+    private Duration maxWait = Duration.ofSeconds(10);
+
+    // Deletes remembered for answering minVersion reads of products that are gone
+    private int deletedVersions = 10_000;
+}
@@ -0,0 +1,33 @@
+package com.yeshwanth.pqm.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "pqm.consumer")
+public class ConsumerProperties {
+
+    // record: one event per listener call, batch: a whole poll coalesced per product,
+    // parallel: a whole poll fanned out to key-hashed worker lanes
+    private String mode = "record";
+
+    // Worker lanes of the parallel mode; keep at or below the connection pool size
+    private int lanes = 8;
+
+    private Batch batch = new Batch();
+
+    @Data
+    public static class Batch {
+
+        // Upper bound on records handed to the listener per poll (max.poll.records)
+        private int size = 500;
+
+        // How long the broker may hold a fetch to fill it up (fetch.max.wait.ms)
+        private Duration maxWait = Duration.ofMillis(500);
+
+        // Bytes the broker waits for before answering a fetch early (fetch.min.bytes)
+        private int minBytes = 64 * 1024;
+    }
+}
@@ -0,0 +1,15 @@
+package com.yeshwanth.pqm.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "pqm.inventory")
+public class InventoryProperties {
+
+    // Products with at most this many units are listed as low on stock
+    private int lowStockThreshold = 10;
+
+    // Low-stock products returned by GET /api/products/stats, fewest units first
+    private int lowStockListSize = 20;
+}
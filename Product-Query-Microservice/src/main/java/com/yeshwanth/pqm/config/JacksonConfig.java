@@ -0,0 +1,43 @@
+package com.yeshwanth.pqm.config;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.yeshwanth.pqm.model.Product;
+import com.yeshwanth.pqm.model.ProductField;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Set;
+
+/**
+ * Lets responses leave out product fields the client did not ask for. Products
+ * are serialized through the {@value ProductField#FILTER} filter, which writes
+ * every field unless a narrower one is given for the write, e.g. through
+ * {@link org.springframework.http.converter.json.MappingJacksonValue}.
+ */
+@Configuration
+public class JacksonConfig {
+
+    @JsonFilter(ProductField.FILTER)
+    private interface ProductFieldsFilter {
+    }
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer productFieldsFilter() {
+        return builder -> builder.postConfigurer(JacksonConfig::addProductFieldsFilter);
+    }
+
+    public static ObjectMapper addProductFieldsFilter(ObjectMapper objectMapper) {
+        return objectMapper.addMixIn(Product.class, ProductFieldsFilter.class)
+                .setFilterProvider(new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
+    }
+
+    public static FilterProvider productFields(Set<ProductField> fields) {
+        return new SimpleFilterProvider().addFilter(ProductField.FILTER,
+                SimpleBeanPropertyFilter.filterOutAllExcept(ProductField.properties(fields)));
+    }
+}
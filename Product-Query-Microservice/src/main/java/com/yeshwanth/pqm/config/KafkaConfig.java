@@ -0,0 +1,88 @@
+package com.yeshwanth.pqm.config;
+
+import com.yeshwanth.pqm.kafka.ProjectionConsumerGroup;
+import com.yeshwanth.pqm.kafka.ProjectionViewConsumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+
+import java.util.Map;
+
+@Configuration
+@EnableConfigurationProperties(ConsumerProperties.class)
+public class KafkaConfig {
+
+    // Kafka topic and consumer group
+    public static final String PRODUCT_EVENT_TOPIC = "product-event-topic";
+    public static final String PRODUCT_QUERY_GROUP = "product-query-group";
+
+    // Non-blocking retries of the record listener, see RetryTopicConfig
+    public static final String PRODUCT_EVENT_RETRY_TOPIC = PRODUCT_EVENT_TOPIC + "-retry-0";
+    public static final String PRODUCT_EVENT_DLT = PRODUCT_EVENT_TOPIC + "-dlt";
+
+    // Listener group id, resolved per store by ProjectionConsumerGroup
+    public static final String PROJECTION_GROUP_ID = "#{@projectionConsumerGroup.groupId}";
+    // Listener client ids, unique per instance so its members of the group can be told apart
+    public static final String PROJECTION_CLIENT_ID_PREFIX = "#{@projectionConsumerGroup.clientIdPrefix}";
+
+    // Event types
+    public static final String EVENT_CREATE_PRODUCT = "CREATE_PRODUCT";
+    public static final String EVENT_UPDATE_PRODUCT = "UPDATE_PRODUCT";
+    public static final String EVENT_DELETE_PRODUCT = "DELETE_PRODUCT";
+    // Written by a stock flush; carries the whole row like an update
+    public static final String EVENT_STOCK_ADJUSTED = "STOCK_ADJUSTED";
+
+    public static final String BATCH_CONTAINER_FACTORY = "batchKafkaListenerContainerFactory";
+    public static final String VIEW_CONTAINER = "projectionViewContainer";
+
+    /**
+     * Listener container factory for the batch and parallel projection modes. It starts from the
+     * regular spring.kafka settings and only overrides how much a single poll may
+     * collect, so the listener receives a whole poll as one list.
+     */
+    @Bean(BATCH_CONTAINER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            KafkaProperties kafkaProperties,
+            ObjectProvider<SslBundles> sslBundles,
+            ConsumerProperties consumerProperties) {
+
+        ConsumerProperties.Batch batch = consumerProperties.getBatch();
+        Map<String, Object> config = kafkaProperties.buildConsumerProperties(sslBundles.getIfAvailable());
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batch.getSize());
+        config.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, (int) batch.getMaxWait().toMillis());
+        config.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, batch.getMinBytes());
+
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, new DefaultKafkaConsumerFactory<>(config));
+        factory.setBatchListener(true);
+        return factory;
+    }
+
+    /**
+     * Container for {@link ProjectionViewConsumer}. It is built from the factory rather
+     * than declared with @KafkaListener, so the retry topics of the projection
+     * listener do not apply to it, and it starts with the listeners only when
+     * replicas share product-query-group.
+     */
+    @Bean(VIEW_CONTAINER)
+    public ConcurrentMessageListenerContainer<Object, Object> projectionViewContainer(
+            ConcurrentKafkaListenerContainerFactory<Object, Object> kafkaListenerContainerFactory,
+            ProjectionViewConsumer viewConsumer,
+            ProjectionConsumerGroup projectionConsumerGroup) {
+        ConcurrentMessageListenerContainer<Object, Object> container =
+                kafkaListenerContainerFactory.createContainer(PRODUCT_EVENT_TOPIC);
+        container.getContainerProperties().setGroupId(viewConsumer.getGroupId());
+        container.setupMessageListener(viewConsumer);
+        container.setAutoStartup(projectionConsumerGroup.isShared());
+        return container;
+    }
+}
@@ -0,0 +1,14 @@
+package com.yeshwanth.pqm.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "pqm.memory")
+public class MemoryStoreProperties {
+
+    // How long the memory store remembers a delete; events for the product older than that are no longer dropped
+    private Duration tombstoneRetention = Duration.ofHours(24);
+}
@@ -0,0 +1,21 @@
+package com.yeshwanth.pqm.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "pqm.cache")
+public class ProductCacheProperties {
+
+    // Approximate heap the cached products may occupy; 0 turns the cache off
+    private DataSize maxWeight = DataSize.ofMegabytes(64);
+
+    // Upper bound on how long an entry is served without being reloaded, should an event for it have been missed
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+
+    // Versions seen on the topic for products not cached here, kept until the store catches up or expireAfterWrite
+    private long pendingVersions = 100_000;
+}
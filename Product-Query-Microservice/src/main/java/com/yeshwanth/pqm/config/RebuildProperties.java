@@ -0,0 +1,20 @@
+package com.yeshwanth.pqm.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "pqm.rebuild")
+public class RebuildProperties {
+
+    // Rebuild consumers; partitions are spread over them, each applies its own in parallel
+    private int threads = 4;
+
+    // Records per poll for the rebuild consumers (max.poll.records); each poll is one JDBC batch
+    private int batchSize = 2000;
+
+    // How long to wait for the live listeners to pause before the final catch-up and swap
+    private Duration pauseTimeout = Duration.ofSeconds(30);
+}
@@ -0,0 +1,26 @@
+package com.yeshwanth.pqm.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "pqm.retry")
+public class RetryProperties {
+
+    // Deliveries of an event before it is dead-lettered, the first one included; each retry has its own topic
+    private int attempts = 4;
+
+    // Wait before the first retry, multiplied per further retry up to max-delay
+    private Duration initialDelay = Duration.ofSeconds(1);
+
+    private double multiplier = 5.0;
+
+    private Duration maxDelay = Duration.ofMinutes(1);
+
+    // Retry and dead-letter topics are created with these; records keep their product-id key, so any count works
+    private int partitions = 6;
+
+    private short replicas = 1;
+}
@@ -0,0 +1,92 @@
+package com.yeshwanth.pqm.config;
+
+import com.yeshwanth.pqm.dto.ProductEvent;
+import com.yeshwanth.pqm.kafka.ProductEventSerializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.retrytopic.DeadLetterPublishingRecovererFactory;
+import org.springframework.kafka.retrytopic.DltStrategy;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationBuilder;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationSupport;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking retries for the record listener. An event that fails is forwarded
+ * to product-event-topic-retry-0, -retry-1, ... with growing back-off, and after
+ * {@code pqm.retry.attempts} deliveries to product-event-topic-dlt, so the main
+ * listener moves on to the next record at once. A retried event can therefore
+ * be applied after later events of its product. Every event but a delete carries
+ * the whole row, so the version check drops one that has been overtaken, and
+ * deletes leave a tombstone that drops events older than the delete.
+ *
+ * <p>The batch and parallel listeners receive whole polls, which Spring Kafka
+ * cannot route through retry topics, so this only applies to {@code pqm.consumer.mode=record}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "pqm.consumer.mode", havingValue = "record", matchIfMissing = true)
+@EnableConfigurationProperties(RetryProperties.class)
+public class RetryTopicConfig extends RetryTopicConfigurationSupport {
+
+    public static final String RETRY_KAFKA_TEMPLATE = "retryKafkaTemplate";
+
+    /**
+     * Producer for retry and dead-letter records. Events are written with the
+     * shared codec; records that could not be read at all are forwarded as the
+     * original bytes, and so are dead letters being replayed.
+     */
+    @Bean(RETRY_KAFKA_TEMPLATE)
+    public KafkaTemplate<Object, Object> retryKafkaTemplate(KafkaProperties kafkaProperties,
+                                                            ObjectProvider<SslBundles> sslBundles) {
+        Map<Class<?>, Serializer<?>> keySerializers = new LinkedHashMap<>();
+        keySerializers.put(String.class, new StringSerializer());
+        keySerializers.put(byte[].class, new ByteArraySerializer());
+        Map<Class<?>, Serializer<?>> valueSerializers = new LinkedHashMap<>();
+        valueSerializers.put(ProductEvent.class, new ProductEventSerializer());
+        valueSerializers.put(byte[].class, new ByteArraySerializer());
+
+        DefaultKafkaProducerFactory<Object, Object> producerFactory = new DefaultKafkaProducerFactory<>(
+                kafkaProperties.buildProducerProperties(sslBundles.getIfAvailable()),
+                new DelegatingByTypeSerializer(keySerializers), new DelegatingByTypeSerializer(valueSerializers));
+        return new KafkaTemplate<>(producerFactory);
+    }
+
+    @Bean
+    public RetryTopicConfiguration productEventRetryTopics(KafkaTemplate<Object, Object> retryKafkaTemplate,
+                                                           RetryProperties properties) {
+        return RetryTopicConfigurationBuilder.newInstance()
+                .includeTopic(KafkaConfig.PRODUCT_EVENT_TOPIC)
+                .maxAttempts(properties.getAttempts())
+                .exponentialBackoff(properties.getInitialDelay().toMillis(), properties.getMultiplier(),
+                        properties.getMaxDelay().toMillis())
+                .suffixTopicsWithIndexValues()
+                // A row the database rejects will be rejected again; unreadable records are never retried either
+                .notRetryOn(DataIntegrityViolationException.class)
+                .autoCreateTopicsWith(properties.getPartitions(), properties.getReplicas())
+                .dltHandlerMethod("projectionDeadLetters", "deadLettered")
+                // A dead letter that cannot be read or logged is skipped, not sent back to the dead-letter topic
+                .dltProcessingFailureStrategy(DltStrategy.FAIL_ON_ERROR)
+                .create(retryKafkaTemplate);
+    }
+
+    // Let the producer pick the partition from the product-id key instead of copying the source partition
+    @Override
+    protected Consumer<DeadLetterPublishingRecovererFactory> configureDeadLetterPublishingContainerFactory() {
+        return factory -> factory.setPartitionResolver((record, topic) -> null);
+    }
+}
@@ -0,0 +1,11 @@
+package com.yeshwanth.pqm.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(SnapshotProperties.class)
+public class SnapshotConfig {
+}
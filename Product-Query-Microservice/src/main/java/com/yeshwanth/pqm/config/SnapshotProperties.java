@@ -0,0 +1,20 @@
+package com.yeshwanth.pqm.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "pqm.snapshot")
+public class SnapshotProperties {
+
+    // Only used with the memory store
+    private boolean enabled = false;
+
+    private Path path = Path.of("data", "product-projection.snapshot");
+
+    // How often the projection is written out; a final snapshot is taken on shutdown
+    private Duration interval = Duration.ofMinutes(1);
+}
@@ -0,0 +1,49 @@
+package com.yeshwanth.pqm.controller;
+
+import com.yeshwanth.pqm.dto.DeadLetter;
+import com.yeshwanth.pqm.dto.DeadLetterCount;
+import com.yeshwanth.pqm.kafka.ProjectionDeadLetters;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+// Administration of product-event-topic-dlt; only the record listener dead-letters events
+@RestController
+@RequestMapping("/api/projection/dead-letters")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "pqm.consumer.mode", havingValue = "record", matchIfMissing = true)
+public class DeadLetterController {
+
+    private final ProjectionDeadLetters deadLetters;
+
+    @GetMapping
+    public ResponseEntity<List<DeadLetter>> listDeadLetters(@RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(deadLetters.list(limit));
+    }
+
+    // Sends one dead letter back through the retry topics; it stays listed until purged
+    @PostMapping("/{partition}/{offset}/replay")
+    public ResponseEntity<DeadLetterCount> replayDeadLetter(@PathVariable int partition, @PathVariable long offset) {
+        return ResponseEntity.ok(deadLetters.replay(partition, offset));
+    }
+
+    // Sends every dead letter back through the retry topics and removes them from the dead-letter topic
+    @PostMapping("/replay")
+    public ResponseEntity<DeadLetterCount> replayDeadLetters() {
+        return ResponseEntity.ok(deadLetters.replayAll());
+    }
+
+    @DeleteMapping
+    public ResponseEntity<DeadLetterCount> purgeDeadLetters() {
+        return ResponseEntity.ok(deadLetters.purge());
+    }
+}
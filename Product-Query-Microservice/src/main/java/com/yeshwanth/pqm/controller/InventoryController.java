@@ -0,0 +1,30 @@
+package com.yeshwanth.pqm.controller;
+
+import com.yeshwanth.pqm.dto.InventoryStats;
+import com.yeshwanth.pqm.index.InventoryAggregates;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/products/stats")
+@RequiredArgsConstructor
+public class InventoryController {
+
+    private final InventoryAggregates inventory;
+
+    // Served from running totals, without reading the table
+    @GetMapping
+    public ResponseEntity<InventoryStats> getStats() {
+        return ResponseEntity.ok(inventory.stats());
+    }
+
+    // Recounts the totals from the table and returns them
+    @PostMapping("/reconcile")
+    public ResponseEntity<InventoryStats> reconcile() {
+        return ResponseEntity.ok(inventory.reconcile());
+    }
+}
@@ -1,29 +1,194 @@
 package com.yeshwanth.pqm.controller;
 
-import com.yeshwanth.pqm.model.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.yeshwanth.pqm.cache.CachedProduct;
+import com.yeshwanth.pqm.config.JacksonConfig;
+import com.yeshwanth.pqm.model.ProductField;
 import com.yeshwanth.pqm.service.ProductService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/products")
 @RequiredArgsConstructor
 public class ProductController {
 
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    public static final String MIN_VERSION_MET_HEADER = "X-Min-Version-Met";
+
     private final ProductService productService;
+    private final ObjectMapper objectMapper;
+
+    /*
+     * Every read takes ?fields=name,price,... (the id is always included). Only
+     * those columns are selected, and only those properties are written; without
+     * it products are returned whole.
+     */
 
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        return ResponseEntity.ok(productService.getAllProducts());
+    public ResponseEntity<MappingJacksonValue> getAllProducts(@RequestParam(required = false) String fields) {
+        Set<ProductField> selected = ProductField.parse(fields);
+        return ResponseEntity.ok(withFields(productService.getAllProducts(selected), selected));
+    }
+
+    @GetMapping(params = "limit")
+    public ResponseEntity<MappingJacksonValue> getProductPage(@RequestParam(required = false) Long after,
+                                                              @RequestParam(defaultValue = "" + ProductService.DEFAULT_PAGE_SIZE) int limit,
+                                                              @RequestParam(required = false) String fields) {
+        Set<ProductField> selected = ProductField.parse(fields);
+        return ResponseEntity.ok(withFields(productService.getProductPage(after, limit, selected), selected));
+    }
+
+    @GetMapping("/by-price")
+    public ResponseEntity<MappingJacksonValue> searchByPrice(@RequestParam(required = false) BigDecimal minPrice,
+                                                             @RequestParam(required = false) BigDecimal maxPrice,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(defaultValue = "" + ProductService.DEFAULT_PAGE_SIZE) int limit,
+                                                             @RequestParam(required = false) String fields) {
+        Set<ProductField> selected = ProductField.parse(fields);
+        return ResponseEntity.ok(withFields(productService.searchByPrice(minPrice, maxPrice, cursor, limit, selected), selected));
     }
 
+    @GetMapping("/by-name")
+    public ResponseEntity<MappingJacksonValue> searchByNamePrefix(@RequestParam String prefix,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  @RequestParam(defaultValue = "" + ProductService.DEFAULT_PAGE_SIZE) int limit,
+                                                                  @RequestParam(required = false) String fields) {
+        Set<ProductField> selected = ProductField.parse(fields);
+        return ResponseEntity.ok(withFields(productService.searchByNamePrefix(prefix, cursor, limit, selected), selected));
+    }
+
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllProducts(@RequestParam(required = false) String fields) {
+        Set<ProductField> selected = ProductField.parse(fields);
+        ObjectWriter writer = writerFor(selected);
+        StreamingResponseBody body = outputStream -> productService.streamAllProducts(selected, product -> {
+            try {
+                outputStream.write(writer.writeValueAsBytes(product));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(body);
+    }
+
+    /**
+     * Writes the cached JSON bytes as they are and answers a matching
+     * {@code If-None-Match} with 304, without serializing anything. A narrowed
+     * body is written from the cached product, under an ETag that also names
+     * the fields.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable Long id) {
-        return productService.getProductById(id)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<byte[]> getProductById(@PathVariable Long id,
+                                                 @RequestParam(required = false) String fields,
+                                                 WebRequest request) {
+        Set<ProductField> selected = ProductField.parse(fields);
+        Optional<CachedProduct> cached = productService.getSerializedProductById(id);
+        if (cached.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = etag(cached.get(), selected);
+        if (request.checkNotModified(etag)) {
+            return null; // 304 with the ETag already set
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .body(body(cached.get(), selected));
+    }
+
+    /**
+     * Same body, fields and ETag as {@link #getProductById}, once the projection
+     * has applied {@code minVersion} or the wait has run out. The read completes
+     * off the request thread, so {@code If-None-Match} is compared here instead of
+     * through the {@link WebRequest}.
+     */
+    @GetMapping(value = "/{id}", params = "minVersion")
+    public CompletableFuture<ResponseEntity<byte[]>> getProductAtVersion(@PathVariable Long id,
+                                                                         @RequestParam long minVersion,
+                                                                         @RequestParam(required = false) Duration wait,
+                                                                         @RequestParam(required = false) String fields,
+                                                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Set<ProductField> selected = ProductField.parse(fields);
+        return productService.getProductAtVersion(id, minVersion, wait)
+                .thenApply(read -> {
+                    String met = Boolean.toString(read.caughtUp());
+                    if (read.product().isEmpty()) {
+                        return ResponseEntity.notFound().header(MIN_VERSION_MET_HEADER, met).build();
+                    }
+                    CachedProduct cached = read.product().get();
+                    String etag = etag(cached, selected);
+                    if (matches(ifNoneMatch, etag)) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).header(MIN_VERSION_MET_HEADER, met).build();
+                    }
+                    return ResponseEntity.ok()
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .eTag(etag)
+                            .header(MIN_VERSION_MET_HEADER, met)
+                            .body(body(cached, selected));
+                });
+    }
+
+    // The cached bytes for the whole product; a narrowed body is written from the cached product
+    private byte[] body(CachedProduct cached, Set<ProductField> fields) {
+        if (fields.equals(ProductField.ALL)) {
+            return cached.json();
+        }
+        try {
+            return writerFor(fields).writeValueAsBytes(cached.product());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String etag(CachedProduct cached, Set<ProductField> fields) {
+        return fields.equals(ProductField.ALL) ? cached.etag() : fieldsETag(cached.etag(), fields);
+    }
+
+    // Weak comparison, as checkNotModified uses for If-None-Match
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        ETag current = ETag.create(etag);
+        return ETag.parse(ifNoneMatch).stream().anyMatch(tag -> tag.isWildcard() || tag.compare(current, false));
+    }
+
+    private static MappingJacksonValue withFields(Object body, Set<ProductField> fields) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        if (!fields.equals(ProductField.ALL)) {
+            value.setFilters(JacksonConfig.productFields(fields));
+        }
+        return value;
+    }
+
+    private ObjectWriter writerFor(Set<ProductField> fields) {
+        return fields.equals(ProductField.ALL) ? objectMapper.writer() : objectMapper.writer(JacksonConfig.productFields(fields));
+    }
+
+    // "3" becomes "3;id+name+price": a narrowed body is another representation of the same version
+    private static String fieldsETag(String etag, Set<ProductField> fields) {
+        return etag.substring(0, etag.length() - 1) + ";" + ProductField.key(fields).replace(',', '+') + "\"";
     }
 }
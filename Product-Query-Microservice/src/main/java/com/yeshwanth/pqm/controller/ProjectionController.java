@@ -0,0 +1,38 @@
+package com.yeshwanth.pqm.controller;
+
+import com.yeshwanth.pqm.dto.ProjectionLag;
+import com.yeshwanth.pqm.dto.RebuildStatus;
+import com.yeshwanth.pqm.kafka.ProjectionLagMonitor;
+import com.yeshwanth.pqm.kafka.ProjectionRebuilder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/projection")
+@RequiredArgsConstructor
+public class ProjectionController {
+
+    private final ProjectionLagMonitor lagMonitor;
+    private final ProjectionRebuilder rebuilder;
+
+    @GetMapping("/lag")
+    public ResponseEntity<ProjectionLag> getLag() {
+        return ResponseEntity.ok(lagMonitor.currentLag());
+    }
+
+    // Starts a rebuild into a shadow table; poll GET /rebuild for progress
+    @PostMapping("/rebuild")
+    public ResponseEntity<RebuildStatus> startRebuild() {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(rebuilder.start());
+    }
+
+    @GetMapping("/rebuild")
+    public ResponseEntity<RebuildStatus> getRebuildStatus() {
+        return ResponseEntity.ok(rebuilder.status());
+    }
+}
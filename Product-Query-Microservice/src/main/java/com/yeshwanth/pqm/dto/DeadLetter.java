@@ -0,0 +1,37 @@
+package com.yeshwanth.pqm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetter {
+
+    // Position in product-event-topic-dlt; replay addresses a dead letter by these
+    private int partition;
+    private long offset;
+
+    private String key;
+
+    // Null when the value could not be read at all
+    private String eventType;
+    private Long productId;
+    private Long version;
+
+    // Last failure, from the kafka_exception-* headers
+    private String exception;
+    private String message;
+
+    // Where the event was first consumed from
+    private String originalTopic;
+    private Integer originalPartition;
+    private Long originalOffset;
+
+    private Instant deadLetteredAt;
+}
@@ -0,0 +1,14 @@
+package com.yeshwanth.pqm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetterCount {
+
+    // Dead letters replayed or purged by the request
+    private long records;
+}
@@ -0,0 +1,31 @@
+package com.yeshwanth.pqm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryStats {
+
+    private long productCount;
+    private long totalQuantity;
+
+    // Sum of price times quantity over products with a price
+    private BigDecimal totalStockValue;
+
+    // Over products with a price; null while there are none
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private BigDecimal averagePrice;
+
+    private int lowStockThreshold;
+    private long lowStockCount;
+
+    // The first lowStockListSize low-stock products, fewest units first
+    private List<LowStockProduct> lowStock;
+}
@@ -0,0 +1,14 @@
+package com.yeshwanth.pqm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LowStockProduct {
+
+    private Long id;
+    private int quantity;
+}
@@ -1,6 +1,5 @@
 package com.yeshwanth.pqm.dto;
 
-import com.yeshwanth.pqm.model.Product;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -11,5 +10,5 @@ import lombok.NoArgsConstructor;
 public class ProductEvent {
 
     private String eventType;
-    private Product product;
+    private ProductState product;
 }
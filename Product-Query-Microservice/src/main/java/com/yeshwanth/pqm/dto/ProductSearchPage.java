@@ -0,0 +1,19 @@
+package com.yeshwanth.pqm.dto;
+
+import com.yeshwanth.pqm.model.Product;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchPage {
+
+    private List<Product> items;
+
+    // Pass as ?cursor= with the same filter to fetch the next page; null on the last page
+    private String nextCursor;
+}
@@ -0,0 +1,30 @@
+package com.yeshwanth.pqm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Full state of a product as carried by a {@link ProductEvent}. Part of the event
+ * schema shared with the command service, so it does not change with the
+ * product_query entity.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductState {
+
+    private Long id;
+    private String name;
+    private String description;
+    private BigDecimal price;
+    private Integer quantity;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    // Null in events produced before versioning; those are applied unconditionally
+    private Long version;
+}
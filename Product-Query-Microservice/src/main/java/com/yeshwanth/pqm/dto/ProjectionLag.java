@@ -0,0 +1,18 @@
+package com.yeshwanth.pqm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProjectionLag {
+
+    // Records in product-event-topic not yet applied, per partition
+    private Map<Integer, Long> partitions;
+
+    private long total;
+}
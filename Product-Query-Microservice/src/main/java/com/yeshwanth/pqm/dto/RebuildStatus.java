@@ -0,0 +1,51 @@
+package com.yeshwanth.pqm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RebuildStatus {
+
+    public enum State {
+        IDLE,
+        // Replaying the topic into product_query_rebuild; reads and the live listeners continue
+        REPLAYING,
+        // Live listeners paused, applying the last records before the swap
+        CATCHING_UP,
+        SWAPPING,
+        COMPLETED,
+        FAILED
+    }
+
+    private State state;
+
+    private Instant startedAt;
+
+    private Instant finishedAt;
+
+    // Records read from the topic so far, including ones coalesced away within a poll
+    private long recordsRead;
+
+    private double recordsPerSecond;
+
+    // Per partition: next offset to read and the offset the current phase replays up to
+    private Map<Integer, PartitionProgress> partitions;
+
+    private String error;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PartitionProgress {
+        private long position;
+        private long target;
+    }
+}
@@ -0,0 +1,215 @@
+package com.yeshwanth.pqm.index;
+
+import com.yeshwanth.pqm.config.InventoryProperties;
+import com.yeshwanth.pqm.dto.InventoryStats;
+import com.yeshwanth.pqm.dto.LowStockProduct;
+import com.yeshwanth.pqm.model.Product;
+import com.yeshwanth.pqm.store.ProductProjectionStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Running inventory totals over the projection: product count, units in stock,
+ * stock value, price statistics and the products at or below
+ * {@code pqm.inventory.low-stock-threshold}, ordered by quantity. Each change is
+ * applied as a delta against the price and quantity last seen for the product,
+ * so reading the totals never touches the table.
+ *
+ * <p>Like {@link ProductSearchIndex} the totals are loaded from the store before
+ * the listeners start, maintained by
+ * {@link com.yeshwanth.pqm.service.ProductProjectionService} after each commit
+ * and, for changes applied by other replicas, by
+ * {@link com.yeshwanth.pqm.kafka.ProjectionViewConsumer}, with the same version
+ * rule, and reloaded after a projection rebuild.
+ * {@link #reconcile()} recounts them from the store on demand.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(InventoryProperties.class)
+public class InventoryAggregates implements SmartLifecycle {
+
+    private final ProductProjectionStore productStore;
+    private final InventoryProperties properties;
+
+    // All guarded by this
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final TreeMap<BigDecimal, Integer> prices = new TreeMap<>();
+    private final TreeSet<StockKey> lowStock = new TreeSet<>();
+    private long totalQuantity;
+    private BigDecimal totalStockValue = BigDecimal.ZERO;
+    private BigDecimal priceSum = BigDecimal.ZERO;
+    private long pricedCount;
+
+    private volatile boolean running;
+
+    public InventoryAggregates(ProductProjectionStore productStore, InventoryProperties properties) {
+        this.productStore = productStore;
+        this.properties = properties;
+    }
+
+    private record StockKey(int quantity, long id) implements Comparable<StockKey> {
+        @Override
+        public int compareTo(StockKey other) {
+            int byValue = Integer.compare(quantity, other.quantity);
+            return byValue != 0 ? byValue : Long.compare(id, other.id);
+        }
+    }
+
+    private record Entry(BigDecimal price, int quantity, Long version) {
+    }
+
+    /**
+     * Replaces the product's contribution unless it was counted at the same or a
+     * newer version. Entries without a version are always replaced.
+     */
+    public synchronized void put(Product product) {
+        Entry current = entries.get(product.getId());
+        if (current != null && !isNewer(product.getVersion(), current)) {
+            return;
+        }
+        if (current != null) {
+            subtract(product.getId(), current);
+        }
+        Entry entry = new Entry(product.getPrice(),
+                product.getQuantity() != null ? product.getQuantity() : 0, product.getVersion());
+        add(product.getId(), entry);
+        entries.put(product.getId(), entry);
+    }
+
+    // Removes the product unless it was counted at or after the delete's version
+    public synchronized void remove(Long id, Long version) {
+        Entry current = entries.get(id);
+        if (current == null || !isNewer(version, current)) {
+            return;
+        }
+        subtract(id, current);
+        entries.remove(id);
+    }
+
+    private static boolean isNewer(Long version, Entry current) {
+        return version == null || current.version() == null || current.version() < version;
+    }
+
+    private void add(long id, Entry entry) {
+        totalQuantity += entry.quantity();
+        if (entry.price() != null) {
+            totalStockValue = totalStockValue.add(entry.price().multiply(BigDecimal.valueOf(entry.quantity())));
+            priceSum = priceSum.add(entry.price());
+            pricedCount++;
+            prices.merge(entry.price(), 1, Integer::sum);
+        }
+        if (entry.quantity() <= properties.getLowStockThreshold()) {
+            lowStock.add(new StockKey(entry.quantity(), id));
+        }
+    }
+
+    private void subtract(long id, Entry entry) {
+        totalQuantity -= entry.quantity();
+        if (entry.price() != null) {
+            totalStockValue = totalStockValue.subtract(entry.price().multiply(BigDecimal.valueOf(entry.quantity())));
+            priceSum = priceSum.subtract(entry.price());
+            pricedCount--;
+            prices.computeIfPresent(entry.price(), (price, count) -> count > 1 ? count - 1 : null);
+        }
+        if (entry.quantity() <= properties.getLowStockThreshold()) {
+            lowStock.remove(new StockKey(entry.quantity(), id));
+        }
+    }
+
+    /**
+     * The current totals. Prices are kept as a sorted multiset, so min and max are
+     * its ends; only the first {@code low-stock-list-size} low-stock products are
+     * copied out.
+     */
+    public synchronized InventoryStats stats() {
+        List<LowStockProduct> lowest = new ArrayList<>(Math.min(lowStock.size(), properties.getLowStockListSize()));
+        for (StockKey key : lowStock) {
+            if (lowest.size() == properties.getLowStockListSize()) {
+                break;
+            }
+            lowest.add(new LowStockProduct(key.id(), key.quantity()));
+        }
+        return new InventoryStats(
+                entries.size(),
+                totalQuantity,
+                totalStockValue,
+                prices.isEmpty() ? null : prices.firstKey(),
+                prices.isEmpty() ? null : prices.lastKey(),
+                pricedCount == 0 ? null : priceSum.divide(BigDecimal.valueOf(pricedCount), 2, RoundingMode.HALF_UP),
+                properties.getLowStockThreshold(),
+                lowStock.size(),
+                lowest);
+    }
+
+    /**
+     * Recounts the totals from the store and logs whether the running ones had
+     * drifted. Changes applied meanwhile wait for the recount.
+     */
+    public synchronized InventoryStats reconcile() {
+        InventoryStats before = stats();
+        reload();
+        InventoryStats after = stats();
+        if (before.getProductCount() != after.getProductCount()
+                || before.getTotalQuantity() != after.getTotalQuantity()
+                || before.getTotalStockValue().compareTo(after.getTotalStockValue()) != 0
+                || before.getLowStockCount() != after.getLowStockCount()) {
+            log.warn("Inventory totals had drifted from the store: {} products, {} units, value {} were {}, {}, {}",
+                    after.getProductCount(), after.getTotalQuantity(), after.getTotalStockValue(),
+                    before.getProductCount(), before.getTotalQuantity(), before.getTotalStockValue());
+        }
+        return after;
+    }
+
+    // Recounts everything from the store, e.g. after the table has been replaced
+    public synchronized void reload() {
+        entries.clear();
+        prices.clear();
+        lowStock.clear();
+        totalQuantity = 0;
+        totalStockValue = BigDecimal.ZERO;
+        priceSum = BigDecimal.ZERO;
+        pricedCount = 0;
+        load();
+    }
+
+    @Override
+    public void start() {
+        load();
+        running = true;
+    }
+
+    private synchronized void load() {
+        long started = System.nanoTime();
+        productStore.streamAll(this::put);
+        log.info("Counted {} products into the inventory totals in {} ms", entries.size(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Load before the listener containers start, so no event races the initial load
+    @Override
+    public int getPhase() {
+        return AbstractMessageListenerContainer.DEFAULT_PHASE - 1;
+    }
+}
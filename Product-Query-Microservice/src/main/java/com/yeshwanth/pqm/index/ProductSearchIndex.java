@@ -0,0 +1,207 @@
+package com.yeshwanth.pqm.index;
+
+import com.yeshwanth.pqm.model.Product;
+import com.yeshwanth.pqm.store.ProductProjectionStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory secondary indexes over the projection: products sorted by price for
+ * range scans, and by lower-cased name for prefix scans. Both are skip lists, so
+ * request threads read without locking while the projection writes.
+ *
+ * <p>The indexes are loaded from the store before the listeners start and then
+ * maintained by {@link com.yeshwanth.pqm.service.ProductProjectionService} after
+ * each commit, and, when replicas share product-query-group, by
+ * {@link com.yeshwanth.pqm.kafka.ProjectionViewConsumer} from every partition, so
+ * every replica indexes every product. Both use the same version rule as the
+ * store: a change only replaces an entry that is older, so a stale event cannot
+ * move a product back. They hold keys only; products are read from the store, so
+ * a hit may briefly lag the store by one commit.
+ */
+@Slf4j
+@Component
+public class ProductSearchIndex implements SmartLifecycle {
+
+    private final ProductProjectionStore productStore;
+
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<PriceKey> byPrice = new ConcurrentSkipListSet<>();
+    private final ConcurrentSkipListSet<NameKey> byName = new ConcurrentSkipListSet<>();
+
+    private volatile boolean running;
+
+    public ProductSearchIndex(ProductProjectionStore productStore) {
+        this.productStore = productStore;
+    }
+
+    public record PriceKey(BigDecimal price, long id) implements Comparable<PriceKey> {
+        @Override
+        public int compareTo(PriceKey other) {
+            int byValue = price.compareTo(other.price);
+            return byValue != 0 ? byValue : Long.compare(id, other.id);
+        }
+    }
+
+    public record NameKey(String name, long id) implements Comparable<NameKey> {
+        @Override
+        public int compareTo(NameKey other) {
+            int byValue = name.compareTo(other.name);
+            return byValue != 0 ? byValue : Long.compare(id, other.id);
+        }
+    }
+
+    private record Entry(PriceKey price, NameKey name, Long version) {
+    }
+
+    public static String nameKey(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Indexes the product's current price and name unless the indexed entry is at
+     * the same or a newer version. Entries without a version are always replaced.
+     */
+    public synchronized void put(Product product) {
+        Entry current = entries.get(product.getId());
+        if (current != null && current.version() != null && product.getVersion() != null
+                && current.version() >= product.getVersion()) {
+            return;
+        }
+        if (current != null) {
+            unlink(current);
+        }
+        Entry entry = new Entry(
+                product.getPrice() != null ? new PriceKey(product.getPrice(), product.getId()) : null,
+                product.getName() != null ? new NameKey(nameKey(product.getName()), product.getId()) : null,
+                product.getVersion());
+        if (entry.price() != null) {
+            byPrice.add(entry.price());
+        }
+        if (entry.name() != null) {
+            byName.add(entry.name());
+        }
+        entries.put(product.getId(), entry);
+    }
+
+    // Removes the product unless it was indexed at or after the delete's version
+    public synchronized void remove(Long id, Long version) {
+        Entry current = entries.get(id);
+        if (current == null) {
+            return;
+        }
+        if (current.version() != null && version != null && current.version() >= version) {
+            return;
+        }
+        unlink(current);
+        entries.remove(id);
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.price() != null) {
+            byPrice.remove(entry.price());
+        }
+        if (entry.name() != null) {
+            byName.remove(entry.name());
+        }
+    }
+
+    /**
+     * Up to limit products priced between min and max (both inclusive, either may be
+     * null), in price then id order, starting after the given key.
+     */
+    public List<PriceKey> findByPrice(BigDecimal min, BigDecimal max, PriceKey after, int limit) {
+        NavigableSet<PriceKey> range = byPrice;
+        if (after != null) {
+            range = range.tailSet(after, false);
+        } else if (min != null) {
+            range = range.tailSet(new PriceKey(min, Long.MIN_VALUE), true);
+        }
+        List<PriceKey> found = new ArrayList<>(limit);
+        for (PriceKey key : range) {
+            if (max != null && key.price().compareTo(max) > 0) {
+                break;
+            }
+            if (min != null && key.price().compareTo(min) < 0) {
+                continue; // cursor from an earlier, wider range
+            }
+            found.add(key);
+            if (found.size() == limit) {
+                break;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Up to limit products whose lower-cased name starts with the lower-cased prefix,
+     * in name then id order, starting after the given key.
+     */
+    public List<NameKey> findByNamePrefix(String prefix, NameKey after, int limit) {
+        String key = nameKey(prefix);
+        NavigableSet<NameKey> range = after != null && after.name().startsWith(key)
+                ? byName.tailSet(after, false)
+                : byName.tailSet(new NameKey(key, Long.MIN_VALUE), true);
+        List<NameKey> found = new ArrayList<>(limit);
+        for (NameKey candidate : range) {
+            if (!candidate.name().startsWith(key)) {
+                break;
+            }
+            found.add(candidate);
+            if (found.size() == limit) {
+                break;
+            }
+        }
+        return found;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Rebuilds both indexes from the store, e.g. after the table has been replaced
+    public synchronized void reload() {
+        entries.clear();
+        byPrice.clear();
+        byName.clear();
+        load();
+    }
+
+    @Override
+    public void start() {
+        load();
+        running = true;
+    }
+
+    private void load() {
+        long started = System.nanoTime();
+        productStore.streamAll(this::put);
+        log.info("Indexed {} products in {} ms", entries.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Load before the listener containers start, so no event races the initial load
+    @Override
+    public int getPhase() {
+        return AbstractMessageListenerContainer.DEFAULT_PHASE - 1;
+    }
+}
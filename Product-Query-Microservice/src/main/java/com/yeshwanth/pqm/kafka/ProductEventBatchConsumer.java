@@ -0,0 +1,79 @@
+package com.yeshwanth.pqm.kafka;
+
+import com.yeshwanth.pqm.config.KafkaConfig;
+import com.yeshwanth.pqm.dto.ProductEvent;
+import com.yeshwanth.pqm.service.ProductProjectionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Batch counterpart of {@link ProductEventConsumer}, enabled with
+ * {@code pqm.consumer.mode=batch}. Each poll is coalesced per product and applied
+ * in one transaction, so bulk imports cost a few statements per batch instead of a
+ * select and a write per event.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "pqm.consumer.mode", havingValue = "batch")
+public class ProductEventBatchConsumer implements ConsumerSeekAware {
+
+    private static final Set<String> KNOWN_EVENT_TYPES = Set.of(
+            KafkaConfig.EVENT_CREATE_PRODUCT, KafkaConfig.EVENT_UPDATE_PRODUCT, KafkaConfig.EVENT_DELETE_PRODUCT,
+            KafkaConfig.EVENT_STOCK_ADJUSTED);
+
+    private final ProductProjectionService projectionService;
+    private final ProjectionConsumerGroup projectionConsumerGroup;
+    private final ProjectionProgress projectionProgress;
+    private final ProjectionMetrics projectionMetrics;
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        projectionConsumerGroup.onPartitionsAssigned(assignments, callback);
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        projectionConsumerGroup.onPartitionsRevoked(partitions);
+    }
+
+    @KafkaListener(topics = KafkaConfig.PRODUCT_EVENT_TOPIC, groupId = KafkaConfig.PROJECTION_GROUP_ID,
+            clientIdPrefix = KafkaConfig.PROJECTION_CLIENT_ID_PREFIX,
+            containerFactory = KafkaConfig.BATCH_CONTAINER_FACTORY)
+    public void consumeProductEvents(List<ConsumerRecord<String, ProductEvent>> records) {
+        long started = System.nanoTime();
+        List<ProductEvent> valid = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, ProductEvent> record : records) {
+            ProductEvent event = record.value();
+            // ErrorHandlingDeserializer hands us null for records it could not read
+            if (event == null || event.getProduct() == null || event.getProduct().getId() == null) {
+                log.warn("Skipping unreadable product event in batch: {}", event);
+                continue;
+            }
+            if (!KNOWN_EVENT_TYPES.contains(event.getEventType())) {
+                log.warn("Unknown event type: {}", event.getEventType());
+                continue;
+            }
+            valid.add(event);
+        }
+
+        List<ProductEvent> coalesced = ProductEventCoalescer.coalesce(valid);
+        log.debug("Received {} product events, {} after coalescing", records.size(), coalesced.size());
+        projectionService.applyBatch(coalesced);
+        projectionProgress.markApplied(records);
+        projectionMetrics.batchApplied(records.size(), coalesced.size(), started);
+        projectionMetrics.applied(records);
+    }
+}
@@ -0,0 +1,78 @@
+package com.yeshwanth.pqm.kafka;
+
+import com.yeshwanth.pqm.config.KafkaConfig;
+import com.yeshwanth.pqm.dto.ProductEvent;
+import com.yeshwanth.pqm.dto.ProductState;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collapses the events of one poll into the final change per product. Every event
+ * carries the full product state, so only the last one per id matters, except that
+ * a product created and deleted inside the same batch never has to touch the table,
+ * and that the merged event keeps the earliest creation time seen: conditional
+ * (If-Match) updates are published without one, and a create merged into such an
+ * update would otherwise insert the row with no created_at.
+ */
+public final class ProductEventCoalescer {
+
+    private ProductEventCoalescer() {
+    }
+
+    public static List<ProductEvent> coalesce(List<ProductEvent> events) {
+        Map<Long, Pending> pendingById = new LinkedHashMap<>();
+        for (ProductEvent event : events) {
+            Long id = event.getProduct().getId();
+            Pending pending = pendingById.get(id);
+            if (pending == null) {
+                pending = new Pending(event, KafkaConfig.EVENT_CREATE_PRODUCT.equals(event.getEventType()));
+                pendingById.put(id, pending);
+            } else {
+                pending.last = event;
+            }
+            pending.keepEarliest(event.getProduct().getCreatedAt());
+        }
+
+        List<ProductEvent> result = new ArrayList<>(pendingById.size());
+        for (Pending pending : pendingById.values()) {
+            boolean deleted = KafkaConfig.EVENT_DELETE_PRODUCT.equals(pending.last.getEventType());
+            if (deleted && pending.createdInBatch) {
+                continue;
+            }
+            result.add(pending.merged());
+        }
+        return result;
+    }
+
+    private static final class Pending {
+        private ProductEvent last;
+        private final boolean createdInBatch;
+        private LocalDateTime createdAt;
+
+        private Pending(ProductEvent first, boolean createdInBatch) {
+            this.last = first;
+            this.createdInBatch = createdInBatch;
+        }
+
+        private void keepEarliest(LocalDateTime seen) {
+            if (seen != null && (createdAt == null || seen.isBefore(createdAt))) {
+                createdAt = seen;
+            }
+        }
+
+        // The polled events are left as they are; a copy carries the creation time
+        private ProductEvent merged() {
+            ProductState state = last.getProduct();
+            if (createdAt == null || createdAt.equals(state.getCreatedAt())) {
+                return last;
+            }
+            return new ProductEvent(last.getEventType(), new ProductState(state.getId(), state.getName(),
+                    state.getDescription(), state.getPrice(), state.getQuantity(), createdAt, state.getUpdatedAt(),
+                    state.getVersion()));
+        }
+    }
+}
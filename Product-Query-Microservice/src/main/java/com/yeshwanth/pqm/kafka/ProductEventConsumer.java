@@ -1,99 +1,70 @@
 package com.yeshwanth.pqm.kafka;
 
+import com.yeshwanth.pqm.config.KafkaConfig;
 import com.yeshwanth.pqm.dto.ProductEvent;
-import com.yeshwanth.pqm.model.Product;
-import com.yeshwanth.pqm.repository.ProductRepository;
+import com.yeshwanth.pqm.service.ProductProjectionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
-public class ProductEventConsumer {
+@ConditionalOnProperty(name = "pqm.consumer.mode", havingValue = "record", matchIfMissing = true)
+public class ProductEventConsumer implements ConsumerSeekAware {
 
-    private final ProductRepository productRepository;
+    private final ProductProjectionService projectionService;
+    private final ProjectionConsumerGroup projectionConsumerGroup;
+    private final ProjectionProgress projectionProgress;
+    private final ProjectionMetrics projectionMetrics;
 
-    @KafkaListener(topics = "product-event-topic",groupId = "product-query-group")
-    public void consumeProductEvent(ProductEvent event) {
-        log.info("Received product event: {}", event);
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        projectionConsumerGroup.onPartitionsAssigned(assignments, callback);
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        projectionConsumerGroup.onPartitionsRevoked(partitions);
+    }
+
+    /**
+     * Also receives the retry topics of {@link com.yeshwanth.pqm.config.RetryTopicConfig}.
+     * An exception forwards the event to the next retry topic, so a failing event
+     * no longer holds up its partition; it still counts as handled for the
+     * projection's progress.
+     */
+    @KafkaListener(topics = KafkaConfig.PRODUCT_EVENT_TOPIC, groupId = KafkaConfig.PROJECTION_GROUP_ID,
+            clientIdPrefix = KafkaConfig.PROJECTION_CLIENT_ID_PREFIX)
+    public void consumeProductEvent(ProductEvent event,
+                                    @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
+                                    @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+                                    @Header(KafkaHeaders.OFFSET) long offset,
+                                    @Header(KafkaHeaders.RECEIVED_TIMESTAMP) long timestamp) {
+        log.debug("Received product event from {}: {}", topic, event);
 
         try {
-            switch (event.getEventType()) {
-                case "CREATE_PRODUCT":
-                    handleProductCreated(event.getProduct());
-                    break;
-                case "UPDATE_PRODUCT":
-                    handleProductUpdated(event.getProduct());
-                    break;
-                case "DELETE_PRODUCT":
-                    handleProductDeleted(event.getProduct());
-                    break;
-                default:
-                    log.warn("Unknown event type: {}", event.getEventType());
-            }
+            projectionMetrics.timeApply(event, () -> projectionService.apply(event));
+            projectionMetrics.applied(topic, timestamp);
         } catch (OptimisticLockingFailureException e) {
             // Log the optimistic locking exception but don't rethrow
             // This will prevent Kafka from retrying the message
             log.warn("Optimistic locking exception occurred while processing event: {}", event, e);
-            log.info("This is expected in a concurrent environment and the event will be processed by another consumer");
+            log.debug("This is expected in a concurrent environment and the event will be processed by another consumer");
+        } finally {
+            if (KafkaConfig.PRODUCT_EVENT_TOPIC.equals(topic)) {
+                projectionProgress.markApplied(partition, offset);
+            }
         }
     }
-
-    private void handleProductCreated(Product product) {
-        log.info("Handling product created event for product: {}", product);
-        Product newProduct = new Product();
-        // Copy all fields except ID (which will be generated)
-        newProduct.setName(product.getName());
-        newProduct.setDescription(product.getDescription());
-        newProduct.setPrice(product.getPrice());
-        newProduct.setQuantity(product.getQuantity());
-        newProduct.setCreatedAt(product.getCreatedAt());
-        newProduct.setUpdatedAt(product.getUpdatedAt());
-        productRepository.save(newProduct);
-        log.info("New product saved successfully: {}", newProduct);
-    }
-
-
-    private void handleProductUpdated(Product product) {
-        log.info("Handling product updated event for product: {}", product);
-        productRepository.findById(product.getId())
-                .ifPresentOrElse(existingProduct -> {
-                    // Update the existing product
-                    existingProduct.setName(product.getName());
-                    existingProduct.setDescription(product.getDescription());
-                    existingProduct.setPrice(product.getPrice());
-                    existingProduct.setQuantity(product.getQuantity());
-                    // Preserve created time, update updated time
-                    if (product.getUpdatedAt() != null) {
-                        existingProduct.setUpdatedAt(product.getUpdatedAt());
-                    } else {
-                        log.info("Product from producer has null updatedAt, setting to current time");
-                        existingProduct.setUpdatedAt(LocalDateTime.now());
-                    }
-
-                    // Note: We don't need to set the version field as it's managed by JPA
-                    productRepository.save(existingProduct);
-                    log.info("Product updated successfully: {}", existingProduct);
-                }, () -> {
-                    // If product doesn't exist, create it
-                    log.warn("Product with ID {} not found for update, creating new", product.getId());
-                    handleProductCreated(product);
-                });
-    }
-
-    private void handleProductDeleted(Product product) {
-        log.info("Handling product deleted event for product ID: {}", product.getId());
-        productRepository.findById(product.getId())
-                .ifPresentOrElse(existingProduct -> {
-                    productRepository.delete(existingProduct);
-                    log.info("Product deleted successfully: {}", existingProduct);
-                }, () -> {
-                    log.warn("Product with ID {} not found for deletion", product.getId());
-                });
-    }
 }
@@ -0,0 +1,34 @@
+package com.yeshwanth.pqm.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yeshwanth.pqm.dto.ProductEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.JacksonUtils;
+
+import java.io.IOException;
+
+/**
+ * Reads product-event-topic values written with {@link ProductEventCodec}. Values
+ * starting with '{' are JSON from before the binary codec (or typed into a console
+ * producer) and are still read, by field name, into the same event classes.
+ */
+public class ProductEventDeserializer implements Deserializer<ProductEvent> {
+
+    private static final ObjectMapper LEGACY_JSON = JacksonUtils.enhancedObjectMapper();
+
+    @Override
+    public ProductEvent deserialize(String topic, byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        if (data[0] == '{') {
+            try {
+                return LEGACY_JSON.readValue(data, ProductEvent.class);
+            } catch (IOException e) {
+                throw new SerializationException("Can't read JSON product event", e);
+            }
+        }
+        return ProductEventCodec.decode(data);
+    }
+}
@@ -0,0 +1,137 @@
+package com.yeshwanth.pqm.kafka;
+
+import com.yeshwanth.pqm.config.ConsumerProperties;
+import com.yeshwanth.pqm.config.KafkaConfig;
+import com.yeshwanth.pqm.dto.ProductEvent;
+import com.yeshwanth.pqm.service.ProductProjectionService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Parallel counterpart of {@link ProductEventConsumer}, enabled with
+ * {@code pqm.consumer.mode=parallel}. Each poll is split into worker lanes by
+ * record key (the product id), so different products are projected concurrently
+ * while events of one product are still applied one after another in offset order.
+ * The listener returns, and the offsets are committed, only after every lane has
+ * finished its share of the poll.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "pqm.consumer.mode", havingValue = "parallel")
+public class ProductEventLaneConsumer implements ConsumerSeekAware {
+
+    private final ProductProjectionService projectionService;
+    private final ProjectionConsumerGroup projectionConsumerGroup;
+    private final ProjectionProgress projectionProgress;
+    private final ProjectionMetrics projectionMetrics;
+    private final ExecutorService[] lanes;
+
+    public ProductEventLaneConsumer(ProductProjectionService projectionService,
+                                    ProjectionConsumerGroup projectionConsumerGroup,
+                                    ProjectionProgress projectionProgress,
+                                    ProjectionMetrics projectionMetrics,
+                                    ConsumerProperties consumerProperties,
+                                    Environment environment) {
+        this.projectionService = projectionService;
+        this.projectionConsumerGroup = projectionConsumerGroup;
+        this.projectionProgress = projectionProgress;
+        this.projectionMetrics = projectionMetrics;
+        this.lanes = new ExecutorService[consumerProperties.getLanes()];
+        for (int i = 0; i < lanes.length; i++) {
+            int lane = i;
+            // Still one thread per lane, so events of a product keep their order either way
+            lanes[i] = Threading.VIRTUAL.isActive(environment)
+                    ? Executors.newSingleThreadExecutor(new VirtualThreadTaskExecutor("product-lane-" + lane + "-").getVirtualThreadFactory())
+                    : Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "product-lane-" + lane));
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        projectionConsumerGroup.onPartitionsAssigned(assignments, callback);
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        projectionConsumerGroup.onPartitionsRevoked(partitions);
+    }
+
+    @KafkaListener(topics = KafkaConfig.PRODUCT_EVENT_TOPIC, groupId = KafkaConfig.PROJECTION_GROUP_ID,
+            clientIdPrefix = KafkaConfig.PROJECTION_CLIENT_ID_PREFIX,
+            containerFactory = KafkaConfig.BATCH_CONTAINER_FACTORY)
+    public void consumeProductEvents(List<ConsumerRecord<String, ProductEvent>> records) {
+        long started = System.nanoTime();
+        List<List<ProductEvent>> laneEvents = new ArrayList<>(lanes.length);
+        for (int i = 0; i < lanes.length; i++) {
+            laneEvents.add(new ArrayList<>());
+        }
+        for (ConsumerRecord<String, ProductEvent> record : records) {
+            ProductEvent event = record.value();
+            // ErrorHandlingDeserializer hands us null for records it could not read
+            if (event == null || event.getProduct() == null) {
+                log.warn("Skipping unreadable product event at offset {}", record.offset());
+                continue;
+            }
+            laneEvents.get(laneOf(record.key(), event)).add(event);
+        }
+
+        List<CompletableFuture<Void>> running = new ArrayList<>(lanes.length);
+        for (int i = 0; i < lanes.length; i++) {
+            List<ProductEvent> events = laneEvents.get(i);
+            if (!events.isEmpty()) {
+                running.add(CompletableFuture.runAsync(() -> events.forEach(this::applyEvent), lanes[i]));
+            }
+        }
+
+        try {
+            CompletableFuture.allOf(running.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            // Let the container's error handler redeliver the poll
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+        }
+        projectionProgress.markApplied(records);
+        projectionMetrics.batchApplied(records.size(), records.size(), started);
+        projectionMetrics.applied(records);
+        log.debug("Applied {} product events across {} lanes", records.size(), running.size());
+    }
+
+    private void applyEvent(ProductEvent event) {
+        try {
+            projectionMetrics.timeApply(event, () -> projectionService.apply(event));
+        } catch (OptimisticLockingFailureException e) {
+            log.warn("Optimistic locking exception occurred while processing event: {}", event, e);
+        }
+    }
+
+    private int laneOf(String key, ProductEvent event) {
+        // Events produced before keying was introduced carry no key
+        String laneKey = key != null ? key : String.valueOf(event.getProduct().getId());
+        return Math.floorMod(laneKey.hashCode(), lanes.length);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.yeshwanth.pqm.kafka;
+
+import com.yeshwanth.pqm.dto.ProductEvent;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Writes retry and dead-letter values with {@link ProductEventCodec}, the same
+ * format the command service produces to product-event-topic.
+ */
+public class ProductEventSerializer implements Serializer<ProductEvent> {
+
+    @Override
+    public byte[] serialize(String topic, ProductEvent event) {
+        return event != null ? ProductEventCodec.encode(event) : null;
+    }
+}
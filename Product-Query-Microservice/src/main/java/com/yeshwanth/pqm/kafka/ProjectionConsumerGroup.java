@@ -0,0 +1,205 @@
+package com.yeshwanth.pqm.kafka;
+
+import com.yeshwanth.pqm.config.KafkaConfig;
+import com.yeshwanth.pqm.store.ProductProjectionStore;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ConsumerGroupDescription;
+import org.apache.kafka.clients.admin.MemberDescription;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Decides which consumer group the projection listeners join and where they start.
+ * A durable store shares product-query-group and resumes from its committed
+ * offsets. A heap store starts empty and must see every partition, so each
+ * instance gets a group of its own; the first time a partition is assigned it is
+ * replayed from the offset recorded in a restored snapshot, or from the beginning.
+ * It also tracks which partitions of product-event-topic this instance owns, so
+ * the lag it reports only counts what this instance is responsible for applying.
+ *
+ * <p>With the shared group it records the group's committed offsets when the
+ * context starts, before the in-memory views load from the store, which is where
+ * {@link ProjectionViewConsumer} starts following every partition. The listeners'
+ * client ids carry a prefix unique to this instance, so {@link #otherMembers()}
+ * can tell which members of the group belong to other replicas.
+ */
+@Slf4j
+@Component("projectionConsumerGroup")
+public class ProjectionConsumerGroup implements SmartLifecycle {
+
+    private static final Duration METADATA_TIMEOUT = Duration.ofSeconds(10);
+
+    private final ProductProjectionStore productStore;
+    private final ProjectionProgress projectionProgress;
+    private final ConsumerFactory<?, ?> consumerFactory;
+    private final KafkaAdmin kafkaAdmin;
+    private final String groupId;
+    private final String clientIdPrefix = "pqm-" + UUID.randomUUID();
+    private final Set<TopicPartition> replayed = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> assigned = ConcurrentHashMap.newKeySet();
+
+    private volatile Map<TopicPartition, Long> startupOffsets = Map.of();
+    private volatile boolean running;
+
+    public ProjectionConsumerGroup(ProductProjectionStore productStore, ProjectionProgress projectionProgress,
+                                   ConsumerFactory<?, ?> consumerFactory, KafkaAdmin kafkaAdmin) {
+        this.productStore = productStore;
+        this.projectionProgress = projectionProgress;
+        this.consumerFactory = consumerFactory;
+        this.kafkaAdmin = kafkaAdmin;
+        this.groupId = productStore.isDurable()
+                ? KafkaConfig.PRODUCT_QUERY_GROUP
+                : KafkaConfig.PRODUCT_QUERY_GROUP + "-" + UUID.randomUUID();
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public String getClientIdPrefix() {
+        return clientIdPrefix;
+    }
+
+    /**
+     * Client ids of the members of the listeners' group that are not this
+     * instance's listeners, i.e. other replicas sharing product-query-group.
+     */
+    public List<String> otherMembers() {
+        try (AdminClient admin = AdminClient.create(kafkaAdmin.getConfigurationProperties())) {
+            ConsumerGroupDescription group = admin.describeConsumerGroups(List.of(groupId)).all()
+                    .get(METADATA_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS).get(groupId);
+            return group.members().stream()
+                    .map(MemberDescription::clientId)
+                    .filter(clientId -> !clientId.startsWith(clientIdPrefix))
+                    .sorted()
+                    .toList();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while describing " + groupId, e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Could not describe " + groupId + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Whether this instance applies the partition: always with a heap store, whose
+     * group is its own, otherwise only while the partition is assigned here; other
+     * members of product-query-group apply the rest.
+     */
+    public boolean owns(int partition) {
+        return !isShared() || assigned.contains(partition);
+    }
+
+    // Whether the listeners share product-query-group with other instances, which a durable store does
+    public boolean isShared() {
+        return productStore.isDurable();
+    }
+
+    // The shared group's committed offset when this instance started, null if it had none
+    public Long startupOffset(TopicPartition partition) {
+        return startupOffsets.get(partition);
+    }
+
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        partitions.stream()
+                .filter(partition -> KafkaConfig.PRODUCT_EVENT_TOPIC.equals(partition.topic()))
+                .forEach(partition -> assigned.remove(partition.partition()));
+    }
+
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekAware.ConsumerSeekCallback callback) {
+        // Retry and dead-letter topics are consumed by the same listener bean; they hold no projection position
+        assignments = assignments.entrySet().stream()
+                .filter(entry -> KafkaConfig.PRODUCT_EVENT_TOPIC.equals(entry.getKey().topic()))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        assignments.keySet().forEach(partition -> assigned.add(partition.partition()));
+        if (productStore.isDurable()) {
+            // The store already holds everything before the committed position
+            assignments.forEach((partition, position) -> projectionProgress.markPosition(partition.partition(), position));
+            return;
+        }
+
+        List<TopicPartition> fromBeginning = new ArrayList<>();
+        for (TopicPartition partition : assignments.keySet()) {
+            if (!replayed.add(partition)) {
+                continue;
+            }
+            Long restored = projectionProgress.nextOffset(partition.partition());
+            if (restored != null) {
+                log.info("Resuming {} from snapshot offset {}", partition, restored);
+                callback.seek(partition.topic(), partition.partition(), restored);
+            } else {
+                fromBeginning.add(partition);
+            }
+        }
+        if (!fromBeginning.isEmpty()) {
+            log.info("Replaying {} from the beginning into the in-memory projection", fromBeginning);
+            callback.seekToBeginning(fromBeginning);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (isShared()) {
+            startupOffsets = committedOffsets();
+        }
+        running = true;
+    }
+
+    // Only reads the group's offsets; the consumer is never subscribed, so it does not join the group
+    private Map<TopicPartition, Long> committedOffsets() {
+        try (Consumer<?, ?> consumer = consumerFactory.createConsumer(groupId, "projection-startup", null)) {
+            List<PartitionInfo> infos = consumer.partitionsFor(KafkaConfig.PRODUCT_EVENT_TOPIC, METADATA_TIMEOUT);
+            if (infos == null || infos.isEmpty()) {
+                return Map.of();
+            }
+            Set<TopicPartition> partitions = infos.stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .collect(Collectors.toSet());
+            Map<TopicPartition, Long> offsets = new HashMap<>();
+            consumer.committed(partitions, METADATA_TIMEOUT).forEach((partition, committed) -> {
+                if (committed != null) {
+                    offsets.put(partition, committed.offset());
+                }
+            });
+            return offsets;
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Before the in-memory views load from the store, so the offsets are no later than what they load
+    @Override
+    public int getPhase() {
+        return AbstractMessageListenerContainer.DEFAULT_PHASE - 2;
+    }
+}
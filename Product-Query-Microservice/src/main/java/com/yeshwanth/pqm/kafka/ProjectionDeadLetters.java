@@ -0,0 +1,270 @@
+package com.yeshwanth.pqm.kafka;
+
+import com.yeshwanth.pqm.config.KafkaConfig;
+import com.yeshwanth.pqm.config.RetryTopicConfig;
+import com.yeshwanth.pqm.dto.DeadLetter;
+import com.yeshwanth.pqm.dto.DeadLetterCount;
+import com.yeshwanth.pqm.dto.ProductEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.RecordsToDelete;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+/**
+ * Events that failed every retry, kept in product-event-topic-dlt with the failure
+ * in the kafka_exception-* headers. Listing reads the topic with a short-lived consumer
+ * of no group. Replaying sends a dead letter back to the first retry topic, so it
+ * goes through the retries again if it still fails. Kafka can only delete a
+ * partition's records up to an offset, so purging and replaying everything work on
+ * all dead letters present when the request starts.
+ */
+@Slf4j
+@Component("projectionDeadLetters")
+@ConditionalOnProperty(name = "pqm.consumer.mode", havingValue = "record", matchIfMissing = true)
+public class ProjectionDeadLetters {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(200);
+
+    private final ConsumerFactory<?, ?> consumerFactory;
+    private final KafkaTemplate<Object, Object> retryKafkaTemplate;
+    private final KafkaAdmin kafkaAdmin;
+    private final Counter deadLettered;
+
+    public ProjectionDeadLetters(ConsumerFactory<?, ?> consumerFactory,
+                                 @Qualifier(RetryTopicConfig.RETRY_KAFKA_TEMPLATE) KafkaTemplate<Object, Object> retryKafkaTemplate,
+                                 KafkaAdmin kafkaAdmin,
+                                 MeterRegistry meterRegistry) {
+        this.consumerFactory = consumerFactory;
+        this.retryKafkaTemplate = retryKafkaTemplate;
+        this.kafkaAdmin = kafkaAdmin;
+        this.deadLettered = Counter.builder("projection.dead.letters")
+                .description("Product events that failed every retry")
+                .register(meterRegistry);
+    }
+
+    // Handler of the dead-letter topic's listener; the record itself stays in the topic
+    public void deadLettered(ConsumerRecord<String, ProductEvent> record) {
+        deadLettered.increment();
+        log.error("Product event dead-lettered after {}: {} ({}) at {}-{}@{}",
+                header(record.headers(), KafkaHeaders.EXCEPTION_FQCN),
+                record.value(),
+                header(record.headers(), KafkaHeaders.EXCEPTION_MESSAGE),
+                record.topic(), record.partition(), record.offset());
+    }
+
+    public List<DeadLetter> list(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        List<DeadLetter> deadLetters = new ArrayList<>();
+        readAll(record -> {
+            deadLetters.add(toDeadLetter(record));
+            return deadLetters.size() < limit;
+        });
+        return deadLetters;
+    }
+
+    public DeadLetterCount replay(int partition, long offset) {
+        TopicPartition topicPartition = new TopicPartition(KafkaConfig.PRODUCT_EVENT_DLT, partition);
+        try (Consumer<byte[], byte[]> consumer = createConsumer()) {
+            List<TopicPartition> partitions = List.of(topicPartition);
+            boolean present = offset >= consumer.beginningOffsets(partitions, TIMEOUT).getOrDefault(topicPartition, 0L)
+                    && offset < consumer.endOffsets(partitions, TIMEOUT).getOrDefault(topicPartition, 0L);
+            consumer.assign(partitions);
+            consumer.seek(topicPartition, offset);
+            long deadline = System.nanoTime() + TIMEOUT.toNanos();
+            while (present && System.nanoTime() < deadline) {
+                List<ConsumerRecord<byte[], byte[]>> records = consumer.poll(POLL_TIMEOUT).records(topicPartition);
+                if (records.isEmpty()) {
+                    continue;
+                }
+                ConsumerRecord<byte[], byte[]> record = records.get(0);
+                if (record.offset() != offset) {
+                    break;
+                }
+                await(List.of(send(record)));
+                log.info("Replayed dead letter {}-{}@{}", record.topic(), partition, offset);
+                return new DeadLetterCount(1);
+            }
+        }
+        throw new IllegalArgumentException("No dead letter at partition " + partition + ", offset " + offset);
+    }
+
+    // Replays every current dead letter, then deletes them once the retry topic has acknowledged all of them
+    public DeadLetterCount replayAll() {
+        List<CompletableFuture<?>> sends = new ArrayList<>();
+        Map<TopicPartition, Long> ends = readAll(record -> {
+            sends.add(send(record));
+            return true;
+        });
+        await(sends);
+        deleteBefore(ends);
+        log.info("Replayed {} dead letters", sends.size());
+        return new DeadLetterCount(sends.size());
+    }
+
+    public DeadLetterCount purge() {
+        try (Consumer<byte[], byte[]> consumer = createConsumer()) {
+            List<TopicPartition> partitions = partitions(consumer);
+            Map<TopicPartition, Long> beginnings = consumer.beginningOffsets(partitions, TIMEOUT);
+            Map<TopicPartition, Long> ends = consumer.endOffsets(partitions, TIMEOUT);
+            deleteBefore(ends);
+            long purged = ends.entrySet().stream()
+                    .mapToLong(entry -> entry.getValue() - beginnings.getOrDefault(entry.getKey(), entry.getValue()))
+                    .sum();
+            log.info("Purged {} dead letters", purged);
+            return new DeadLetterCount(purged);
+        }
+    }
+
+    /**
+     * Hands the records present when called to the visitor, in order within each partition,
+     * until it returns false. Returns the end offsets the read stopped at.
+     */
+    private Map<TopicPartition, Long> readAll(Predicate<ConsumerRecord<byte[], byte[]>> visitor) {
+        try (Consumer<byte[], byte[]> consumer = createConsumer()) {
+            List<TopicPartition> partitions = partitions(consumer);
+            Map<TopicPartition, Long> ends = consumer.endOffsets(partitions, TIMEOUT);
+            Set<TopicPartition> remaining = new HashSet<>(partitions);
+            consumer.assign(partitions);
+            consumer.seekToBeginning(partitions);
+
+            long deadline = System.nanoTime() + TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                remaining.removeIf(partition -> consumer.position(partition, TIMEOUT) >= ends.get(partition));
+                if (remaining.isEmpty()) {
+                    return ends;
+                }
+                for (ConsumerRecord<byte[], byte[]> record : consumer.poll(POLL_TIMEOUT)) {
+                    if (record.offset() < ends.get(new TopicPartition(record.topic(), record.partition()))
+                            && !visitor.test(record)) {
+                        return ends;
+                    }
+                }
+            }
+            throw new IllegalStateException("Could not read " + KafkaConfig.PRODUCT_EVENT_DLT + " within " + TIMEOUT);
+        }
+    }
+
+    // Key and value are sent as read; the retry headers start over, so the event gets every retry again
+    private CompletableFuture<?> send(ConsumerRecord<byte[], byte[]> record) {
+        return retryKafkaTemplate.send(KafkaConfig.PRODUCT_EVENT_RETRY_TOPIC, record.key(), record.value());
+    }
+
+    private static void await(List<CompletableFuture<?>> sends) {
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while replaying dead letters", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Dead letters could not be replayed: " + e.getMessage(), e);
+        }
+    }
+
+    private void deleteBefore(Map<TopicPartition, Long> offsets) {
+        Map<TopicPartition, RecordsToDelete> deletes = new HashMap<>();
+        offsets.forEach((partition, offset) -> deletes.put(partition, RecordsToDelete.beforeOffset(offset)));
+        if (deletes.isEmpty()) {
+            return;
+        }
+        try (AdminClient admin = AdminClient.create(kafkaAdmin.getConfigurationProperties())) {
+            admin.deleteRecords(deletes).all().get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while purging dead letters", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Dead letters could not be purged: " + e.getMessage(), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<byte[], byte[]> createConsumer() {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        overrides.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        return (Consumer<byte[], byte[]>) consumerFactory.createConsumer(null, "dead-letters", null, overrides);
+    }
+
+    private static List<TopicPartition> partitions(Consumer<?, ?> consumer) {
+        return consumer.partitionsFor(KafkaConfig.PRODUCT_EVENT_DLT, TIMEOUT)
+                .stream()
+                .map(info -> new TopicPartition(info.topic(), info.partition()))
+                .toList();
+    }
+
+    private static DeadLetter toDeadLetter(ConsumerRecord<byte[], byte[]> record) {
+        DeadLetter.DeadLetterBuilder deadLetter = DeadLetter.builder()
+                .partition(record.partition())
+                .offset(record.offset())
+                .key(record.key() != null ? new String(record.key(), StandardCharsets.UTF_8) : null)
+                .exception(header(record.headers(), KafkaHeaders.EXCEPTION_FQCN))
+                .message(header(record.headers(), KafkaHeaders.EXCEPTION_MESSAGE))
+                .originalTopic(firstHeader(record.headers(), KafkaHeaders.ORIGINAL_TOPIC)
+                        .map(value -> new String(value, StandardCharsets.UTF_8)).orElse(null))
+                .originalPartition(firstHeader(record.headers(), KafkaHeaders.ORIGINAL_PARTITION)
+                        .map(value -> ByteBuffer.wrap(value).getInt()).orElse(null))
+                .originalOffset(firstHeader(record.headers(), KafkaHeaders.ORIGINAL_OFFSET)
+                        .map(value -> ByteBuffer.wrap(value).getLong()).orElse(null))
+                .deadLetteredAt(Instant.ofEpochMilli(record.timestamp()));
+        try {
+            ProductEvent event = new ProductEventDeserializer().deserialize(record.topic(), record.value());
+            if (event != null) {
+                deadLetter.eventType(event.getEventType());
+                if (event.getProduct() != null) {
+                    deadLetter.productId(event.getProduct().getId()).version(event.getProduct().getVersion());
+                }
+            }
+        } catch (RuntimeException e) {
+            // Dead-lettered because it could not be read; the headers say why
+        }
+        return deadLetter.build();
+    }
+
+    private static String header(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
+    // Every hop appends its source, so the first one is the topic the event was originally consumed from
+    private static Optional<byte[]> firstHeader(Headers headers, String name) {
+        Iterator<Header> values = headers.headers(name).iterator();
+        return values.hasNext() ? Optional.of(values.next().value()) : Optional.empty();
+    }
+}
@@ -0,0 +1,98 @@
+package com.yeshwanth.pqm.kafka;
+
+import com.yeshwanth.pqm.config.KafkaConfig;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reports the projection as down until it has applied everything that was in
+ * product-event-topic when the service started, then stays up. It is part of the
+ * readiness group, so an instance only takes traffic once its read model has
+ * caught up with the snapshot or replay. Instances sharing product-query-group
+ * read one table that any of them may have written, so for them a partition
+ * also counts as applied up to the group's committed offset; each instance
+ * only consumes the partitions assigned to it.
+ */
+@Component("projection")
+public class ProjectionHealthIndicator extends AbstractHealthIndicator {
+
+    private static final Duration METADATA_TIMEOUT = Duration.ofSeconds(5);
+
+    private final ConsumerFactory<?, ?> consumerFactory;
+    private final ProjectionProgress projectionProgress;
+    private final ProjectionConsumerGroup projectionConsumerGroup;
+
+    private volatile Map<TopicPartition, Long> startupEndOffsets;
+    private volatile Map<TopicPartition, Long> startupBeginningOffsets;
+    private volatile boolean caughtUp;
+
+    public ProjectionHealthIndicator(ConsumerFactory<?, ?> consumerFactory, ProjectionProgress projectionProgress,
+                                     ProjectionConsumerGroup projectionConsumerGroup) {
+        super("Projection health check failed");
+        this.consumerFactory = consumerFactory;
+        this.projectionProgress = projectionProgress;
+        this.projectionConsumerGroup = projectionConsumerGroup;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        if (caughtUp) {
+            builder.up();
+            return;
+        }
+        if (startupEndOffsets == null) {
+            loadStartupOffsets();
+        }
+
+        Map<TopicPartition, OffsetAndMetadata> committed = projectionConsumerGroup.isShared() ? groupOffsets() : Map.of();
+        Map<Integer, Long> lag = new TreeMap<>();
+        startupEndOffsets.forEach((partition, end) -> {
+            long beginning = startupBeginningOffsets.getOrDefault(partition, 0L);
+            if (end <= beginning) {
+                return; // nothing to apply
+            }
+            Long next = projectionProgress.nextOffset(partition.partition());
+            OffsetAndMetadata groupOffset = committed.get(partition);
+            long applied = Math.max(next != null ? next : beginning, groupOffset != null ? groupOffset.offset() : beginning);
+            long behind = end - applied;
+            if (behind > 0) {
+                lag.put(partition.partition(), behind);
+            }
+        });
+
+        if (lag.isEmpty()) {
+            caughtUp = true;
+            builder.up();
+        } else {
+            builder.down().withDetail("lag", lag);
+        }
+    }
+
+    // Only reads the group's offsets; the consumer is never subscribed, so it does not join the group
+    private Map<TopicPartition, OffsetAndMetadata> groupOffsets() {
+        try (Consumer<?, ?> consumer = consumerFactory.createConsumer(projectionConsumerGroup.getGroupId(), "projection-health", null)) {
+            return consumer.committed(startupEndOffsets.keySet(), METADATA_TIMEOUT);
+        }
+    }
+
+    private void loadStartupOffsets() {
+        try (Consumer<?, ?> consumer = consumerFactory.createConsumer()) {
+            List<TopicPartition> partitions = consumer.partitionsFor(KafkaConfig.PRODUCT_EVENT_TOPIC, METADATA_TIMEOUT)
+                    .stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .toList();
+            startupBeginningOffsets = consumer.beginningOffsets(partitions, METADATA_TIMEOUT);
+            startupEndOffsets = consumer.endOffsets(partitions, METADATA_TIMEOUT);
+        }
+    }
+}
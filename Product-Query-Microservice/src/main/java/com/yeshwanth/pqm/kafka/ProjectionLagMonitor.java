@@ -0,0 +1,106 @@
+package com.yeshwanth.pqm.kafka;
+
+import com.yeshwanth.pqm.config.KafkaConfig;
+import com.yeshwanth.pqm.dto.ProjectionLag;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Current projection lag: how many records of product-event-topic have been
+ * produced but not applied yet. Unlike {@link ProjectionHealthIndicator}, which
+ * only looks at the backlog present at startup, this follows the live end of the
+ * topic. End offsets are fetched at most once per {@link #REFRESH_INTERVAL} with
+ * a single long-lived consumer, so scraping the gauge stays cheap. Partitions
+ * another member of product-query-group owns are left out, so the gauges of all
+ * instances add up to the group's lag.
+ */
+@Component
+public class ProjectionLagMonitor {
+
+    static final Duration REFRESH_INTERVAL = Duration.ofSeconds(1);
+    private static final Duration METADATA_TIMEOUT = Duration.ofSeconds(5);
+
+    private final ConsumerFactory<?, ?> consumerFactory;
+    private final ProjectionProgress projectionProgress;
+    private final ProjectionConsumerGroup projectionConsumerGroup;
+
+    private Consumer<?, ?> consumer;
+    private List<TopicPartition> partitions;
+    private Map<TopicPartition, Long> beginningOffsets;
+    private Map<TopicPartition, Long> endOffsets;
+    private long refreshedAt;
+
+    public ProjectionLagMonitor(ConsumerFactory<?, ?> consumerFactory,
+                                ProjectionProgress projectionProgress,
+                                ProjectionConsumerGroup projectionConsumerGroup,
+                                MeterRegistry meterRegistry) {
+        this.consumerFactory = consumerFactory;
+        this.projectionProgress = projectionProgress;
+        this.projectionConsumerGroup = projectionConsumerGroup;
+        Gauge.builder("projection.lag", this, monitor -> monitor.currentLag().getTotal())
+                .description("Records of product-event-topic not yet applied to the projection")
+                .baseUnit("records")
+                .register(meterRegistry);
+    }
+
+    public ProjectionLag currentLag() {
+        Map<TopicPartition, Long> ends;
+        Map<TopicPartition, Long> beginnings;
+        synchronized (this) {
+            refreshEndOffsets();
+            ends = endOffsets;
+            beginnings = beginningOffsets;
+        }
+
+        Map<Integer, Long> lag = new TreeMap<>();
+        long total = 0;
+        for (Map.Entry<TopicPartition, Long> entry : ends.entrySet()) {
+            int partition = entry.getKey().partition();
+            if (!projectionConsumerGroup.owns(partition)) {
+                continue;
+            }
+            Long next = projectionProgress.nextOffset(partition);
+            long applied = next != null ? next : beginnings.getOrDefault(entry.getKey(), 0L);
+            long behind = Math.max(0, entry.getValue() - applied);
+            lag.put(partition, behind);
+            total += behind;
+        }
+        return new ProjectionLag(lag, total);
+    }
+
+    private void refreshEndOffsets() {
+        long now = System.nanoTime();
+        if (endOffsets != null && now - refreshedAt < REFRESH_INTERVAL.toNanos()) {
+            return;
+        }
+        if (consumer == null) {
+            consumer = consumerFactory.createConsumer();
+            partitions = consumer.partitionsFor(KafkaConfig.PRODUCT_EVENT_TOPIC, METADATA_TIMEOUT)
+                    .stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .toList();
+        }
+        // Retention may move the beginning, which is where an idle partition's lag counts from
+        beginningOffsets = consumer.beginningOffsets(partitions, METADATA_TIMEOUT);
+        endOffsets = consumer.endOffsets(partitions, METADATA_TIMEOUT);
+        refreshedAt = now;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (consumer != null) {
+            consumer.close();
+            consumer = null;
+        }
+    }
+}
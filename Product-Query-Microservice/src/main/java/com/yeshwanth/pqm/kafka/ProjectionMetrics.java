@@ -0,0 +1,88 @@
+package com.yeshwanth.pqm.kafka;
+
+import com.yeshwanth.pqm.config.KafkaConfig;
+import com.yeshwanth.pqm.dto.ProductEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of the projection listeners. End-to-end lag runs from the record
+ * timestamp, which the command service's producer sets when the change is
+ * written, to the moment the change is committed to the projection, so it covers
+ * the outbox, Kafka and the listener alike. It is measured across two hosts and
+ * includes their clock skew.
+ */
+@Component
+public class ProjectionMetrics {
+
+    private static final Set<String> EVENT_TYPES = Set.of(
+            KafkaConfig.EVENT_CREATE_PRODUCT, KafkaConfig.EVENT_UPDATE_PRODUCT, KafkaConfig.EVENT_DELETE_PRODUCT,
+            KafkaConfig.EVENT_STOCK_ADJUSTED);
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> applyTimers = new ConcurrentHashMap<>();
+    private final Timer endToEndLag;
+    private final Timer batchApply;
+    private final DistributionSummary batchSizes;
+    private final DistributionSummary coalescedSizes;
+
+    public ProjectionMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.endToEndLag = Timer.builder("projection.end.to.end.lag")
+                .description("Time from the command-side write to the change being visible in the projection")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.batchApply = Timer.builder("projection.batch.apply")
+                .description("Time to apply one poll of the batch or parallel listener")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("projection.batch.size")
+                .description("Records per poll of the batch or parallel listener")
+                .register(meterRegistry);
+        this.coalescedSizes = DistributionSummary.builder("projection.batch.coalesced")
+                .description("Events per poll left to apply after coalescing")
+                .register(meterRegistry);
+    }
+
+    // Applies one event and records the time per event type
+    public void timeApply(ProductEvent event, Runnable apply) {
+        String type = EVENT_TYPES.contains(event.getEventType()) ? event.getEventType() : "unknown";
+        applyTimers.computeIfAbsent(type, t -> Timer.builder("projection.apply")
+                        .description("Time to apply one event to the projection")
+                        .tag("type", t)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry))
+                .record(apply);
+    }
+
+    public void batchApplied(int records, int applied, long startedNanos) {
+        batchApply.record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+        batchSizes.record(records);
+        coalescedSizes.record(applied);
+    }
+
+    // Records of the retry topics carry the time they were forwarded, not written, so only main-topic records count
+    public void applied(String topic, long timestamp) {
+        if (KafkaConfig.PRODUCT_EVENT_TOPIC.equals(topic) && timestamp > 0) {
+            endToEndLag.record(Math.max(0, System.currentTimeMillis() - timestamp), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void applied(Collection<? extends ConsumerRecord<?, ?>> records) {
+        long now = System.currentTimeMillis();
+        for (ConsumerRecord<?, ?> record : records) {
+            if (KafkaConfig.PRODUCT_EVENT_TOPIC.equals(record.topic()) && record.timestamp() > 0) {
+                endToEndLag.record(Math.max(0, now - record.timestamp()), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.yeshwanth.pqm.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * How far the projection has got in product-event-topic: for each partition, the
+ * offset of the next record it has not applied yet. Listeners advance it once a
+ * record's change is visible in the store.
+ */
+@Component
+public class ProjectionProgress {
+
+    private final ConcurrentHashMap<Integer, Long> nextOffsets = new ConcurrentHashMap<>();
+
+    public void markApplied(ConsumerRecord<?, ?> record) {
+        markPosition(record.partition(), record.offset() + 1);
+    }
+
+    public void markApplied(Collection<? extends ConsumerRecord<?, ?>> records) {
+        records.forEach(this::markApplied);
+    }
+
+    public void markApplied(int partition, long offset) {
+        markPosition(partition, offset + 1);
+    }
+
+    // Positions only move forward, so a late or repeated mark is harmless
+    public void markPosition(int partition, long nextOffset) {
+        nextOffsets.merge(partition, nextOffset, Math::max);
+    }
+
+    public Long nextOffset(int partition) {
+        return nextOffsets.get(partition);
+    }
+
+    public Map<Integer, Long> nextOffsets() {
+        return Map.copyOf(nextOffsets);
+    }
+}
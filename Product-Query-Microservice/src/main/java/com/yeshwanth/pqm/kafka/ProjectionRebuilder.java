@@ -0,0 +1,347 @@
+package com.yeshwanth.pqm.kafka;
+
+import com.yeshwanth.pqm.cache.ProductCache;
+import com.yeshwanth.pqm.config.KafkaConfig;
+import com.yeshwanth.pqm.config.RebuildProperties;
+import com.yeshwanth.pqm.dto.ProductEvent;
+import com.yeshwanth.pqm.dto.ProductState;
+import com.yeshwanth.pqm.dto.RebuildStatus;
+import com.yeshwanth.pqm.index.InventoryAggregates;
+import com.yeshwanth.pqm.index.ProductSearchIndex;
+import com.yeshwanth.pqm.model.Product;
+import com.yeshwanth.pqm.repository.ProductShadowTable;
+import com.yeshwanth.pqm.store.ProductProjectionStore;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rebuilds the JPA projection from scratch without taking reads offline. The
+ * topic is replayed from the beginning into {@link ProductShadowTable} by a
+ * separate consumer group, with partitions spread over
+ * {@code pqm.rebuild.threads} workers that coalesce each poll and write it as one
+ * JDBC batch. Once the replay has reached the end offsets seen at the start, the
+ * live listeners are paused, the workers apply what arrived meanwhile, and the
+ * shadow table is renamed into place. The live listeners then resume from their
+ * own committed offsets, re-applying a few events that the version rule makes
+ * no-ops.
+ *
+ * <p>Pausing and reloading only reach this instance, so a rebuild is refused
+ * while other replicas are members of product-query-group: they would keep
+ * writing to the old table during the catch-up and the swap, and keep their
+ * caches and indexes. The check is repeated once the listeners are paused, so a
+ * replica that joined meanwhile fails the rebuild before the swap.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(RebuildProperties.class)
+public class ProjectionRebuilder {
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(200);
+    private static final Duration METADATA_TIMEOUT = Duration.ofSeconds(10);
+
+    private final ConsumerFactory<?, ?> consumerFactory;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final ProjectionConsumerGroup projectionConsumerGroup;
+    private final ProductShadowTable shadowTable;
+    private final ProductProjectionStore productStore;
+    private final ProductCache productCache;
+    private final ProductSearchIndex searchIndex;
+    private final InventoryAggregates inventory;
+    private final RebuildProperties properties;
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "projection-rebuild"));
+
+    private volatile Run current;
+
+    public ProjectionRebuilder(ConsumerFactory<?, ?> consumerFactory,
+                               KafkaListenerEndpointRegistry listenerRegistry,
+                               ProjectionConsumerGroup projectionConsumerGroup,
+                               ProductShadowTable shadowTable,
+                               ProductProjectionStore productStore,
+                               ProductCache productCache,
+                               ProductSearchIndex searchIndex,
+                               InventoryAggregates inventory,
+                               RebuildProperties properties) {
+        this.consumerFactory = consumerFactory;
+        this.listenerRegistry = listenerRegistry;
+        this.projectionConsumerGroup = projectionConsumerGroup;
+        this.shadowTable = shadowTable;
+        this.productStore = productStore;
+        this.productCache = productCache;
+        this.searchIndex = searchIndex;
+        this.inventory = inventory;
+        this.properties = properties;
+    }
+
+    /**
+     * Starts a rebuild in the background and returns its initial status.
+     *
+     * @throws IllegalStateException when a rebuild is running, the store is not durable
+     *                               or other replicas share the listeners' group
+     */
+    public synchronized RebuildStatus start() {
+        if (!productStore.isDurable()) {
+            throw new IllegalStateException("The in-memory projection is rebuilt from the topic on every start");
+        }
+        if (current != null && current.isActive()) {
+            throw new IllegalStateException("A projection rebuild is already running");
+        }
+        requireSoleMember();
+        Run run = new Run();
+        current = run;
+        coordinator.execute(run::execute);
+        return run.status();
+    }
+
+    public RebuildStatus status() {
+        Run run = current;
+        return run != null ? run.status() : RebuildStatus.builder().state(RebuildStatus.State.IDLE).build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Run run = current;
+        if (run != null) {
+            run.cancelled = true;
+        }
+        coordinator.shutdownNow();
+    }
+
+    private final class Run {
+
+        private final Instant startedAt = Instant.now();
+        private final AtomicLong recordsRead = new AtomicLong();
+        private final Map<TopicPartition, Long> positions = new ConcurrentHashMap<>();
+        private volatile Map<TopicPartition, Long> targets = Map.of();
+        private volatile RebuildStatus.State state = RebuildStatus.State.REPLAYING;
+        private volatile Instant finishedAt;
+        private volatile String error;
+        private volatile boolean cancelled;
+
+        boolean isActive() {
+            return state != RebuildStatus.State.COMPLETED && state != RebuildStatus.State.FAILED;
+        }
+
+        void execute() {
+            List<Worker> workers = new ArrayList<>();
+            ExecutorService pool = null;
+            boolean paused = false;
+            try {
+                shadowTable.create();
+                List<TopicPartition> partitions = partitions();
+                int threads = Math.max(1, Math.min(properties.getThreads(), partitions.size()));
+                for (int i = 0; i < threads; i++) {
+                    List<TopicPartition> assigned = new ArrayList<>();
+                    for (int p = i; p < partitions.size(); p += threads) {
+                        assigned.add(partitions.get(p));
+                    }
+                    workers.add(new Worker(this, assigned));
+                }
+                pool = Executors.newFixedThreadPool(threads);
+                log.info("Rebuilding the projection from {} partitions with {} workers", partitions.size(), threads);
+
+                replay(workers, pool);
+
+                state = RebuildStatus.State.CATCHING_UP;
+                paused = true;
+                pauseListeners();
+                requireSoleMember();
+                replay(workers, pool);
+
+                state = RebuildStatus.State.SWAPPING;
+                shadowTable.swap();
+                productCache.invalidateAll();
+                searchIndex.reload();
+                inventory.reload();
+                state = RebuildStatus.State.COMPLETED;
+                log.info("Projection rebuild completed: {} records in {}", recordsRead.get(),
+                        Duration.between(startedAt, Instant.now()));
+            } catch (Exception e) {
+                log.error("Projection rebuild failed", e);
+                error = e.getMessage();
+                state = RebuildStatus.State.FAILED;
+                try {
+                    shadowTable.drop();
+                } catch (RuntimeException dropFailure) {
+                    log.warn("Could not drop {}", ProductShadowTable.SHADOW_TABLE, dropFailure);
+                }
+            } finally {
+                finishedAt = Instant.now();
+                if (paused) {
+                    resumeListeners();
+                }
+                workers.forEach(Worker::close);
+                if (pool != null) {
+                    pool.shutdownNow();
+                }
+            }
+        }
+
+        // Every worker reads up to the end offsets as of now, in parallel
+        private void replay(List<Worker> workers, ExecutorService pool) {
+            try (Consumer<?, ?> consumer = consumerFactory.createConsumer()) {
+                targets = consumer.endOffsets(List.copyOf(positions.keySet()), METADATA_TIMEOUT);
+            }
+            CompletableFuture.allOf(workers.stream()
+                            .map(worker -> CompletableFuture.runAsync(worker::drain, pool))
+                            .toArray(CompletableFuture[]::new))
+                    .join();
+        }
+
+        private List<TopicPartition> partitions() {
+            try (Consumer<?, ?> consumer = consumerFactory.createConsumer()) {
+                List<TopicPartition> partitions = consumer.partitionsFor(KafkaConfig.PRODUCT_EVENT_TOPIC, METADATA_TIMEOUT)
+                        .stream()
+                        .map(info -> new TopicPartition(info.topic(), info.partition()))
+                        .sorted((a, b) -> Integer.compare(a.partition(), b.partition()))
+                        .toList();
+                partitions.forEach(partition -> positions.put(partition, 0L));
+                return partitions;
+            }
+        }
+
+        RebuildStatus status() {
+            Map<Integer, RebuildStatus.PartitionProgress> partitions = new TreeMap<>();
+            positions.forEach((partition, position) -> partitions.put(partition.partition(),
+                    new RebuildStatus.PartitionProgress(position, targets.getOrDefault(partition, 0L))));
+            Instant end = finishedAt != null ? finishedAt : Instant.now();
+            double seconds = Math.max(Duration.between(startedAt, end).toMillis(), 1) / 1000.0;
+            return RebuildStatus.builder()
+                    .state(state)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .recordsRead(recordsRead.get())
+                    .recordsPerSecond(recordsRead.get() / seconds)
+                    .partitions(partitions)
+                    .error(error)
+                    .build();
+        }
+    }
+
+    /**
+     * One rebuild consumer and the partitions assigned to it. It never joins the
+     * live group and never commits, so the live listeners' offsets are untouched.
+     */
+    private final class Worker {
+
+        private final Run run;
+        private final List<TopicPartition> partitions;
+        private final Consumer<?, ?> consumer;
+
+        Worker(Run run, List<TopicPartition> partitions) {
+            this.run = run;
+            this.partitions = partitions;
+            Properties overrides = new Properties();
+            overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+            overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(properties.getBatchSize()));
+            this.consumer = consumerFactory.createConsumer(KafkaConfig.PRODUCT_QUERY_GROUP + "-rebuild", null, null, overrides);
+            consumer.assign(partitions);
+            consumer.seekToBeginning(partitions);
+        }
+
+        void drain() {
+            while (!reachedTargets()) {
+                if (run.cancelled) {
+                    throw new IllegalStateException("Rebuild cancelled");
+                }
+                ConsumerRecords<?, ?> records = consumer.poll(POLL_TIMEOUT);
+                if (!records.isEmpty()) {
+                    apply(records);
+                    run.recordsRead.addAndGet(records.count());
+                }
+            }
+        }
+
+        private boolean reachedTargets() {
+            boolean reached = true;
+            for (TopicPartition partition : partitions) {
+                long position = consumer.position(partition, METADATA_TIMEOUT);
+                run.positions.put(partition, position);
+                reached &= position >= run.targets.getOrDefault(partition, 0L);
+            }
+            return reached;
+        }
+
+        // Records of one product share a partition, so coalescing a poll keeps per-product order
+        private void apply(ConsumerRecords<?, ?> records) {
+            List<ProductEvent> events = new ArrayList<>(records.count());
+            for (ConsumerRecord<?, ?> record : records) {
+                if (record.value() instanceof ProductEvent event
+                        && event.getProduct() != null && event.getProduct().getId() != null) {
+                    events.add(event);
+                } else {
+                    log.warn("Skipping unreadable product event at {}-{}@{}", record.topic(), record.partition(), record.offset());
+                }
+            }
+
+            List<Product> upserts = new ArrayList<>();
+            Map<Long, Long> deletes = new HashMap<>();
+            for (ProductEvent event : ProductEventCoalescer.coalesce(events)) {
+                ProductState state = event.getProduct();
+                switch (event.getEventType()) {
+                    case KafkaConfig.EVENT_CREATE_PRODUCT, KafkaConfig.EVENT_UPDATE_PRODUCT,
+                         KafkaConfig.EVENT_STOCK_ADJUSTED -> upserts.add(new Product(
+                            state.getId(), state.getName(), state.getDescription(), state.getPrice(), state.getQuantity(),
+                            state.getCreatedAt(), state.getUpdatedAt(), state.getVersion()));
+                    case KafkaConfig.EVENT_DELETE_PRODUCT -> deletes.put(state.getId(), state.getVersion());
+                    default -> log.warn("Unknown event type: {}", event.getEventType());
+                }
+            }
+            shadowTable.upsertAll(upserts);
+            shadowTable.deleteAll(deletes);
+        }
+
+        void close() {
+            consumer.close();
+        }
+    }
+
+    private void requireSoleMember() {
+        List<String> others = projectionConsumerGroup.otherMembers();
+        if (!others.isEmpty()) {
+            throw new IllegalStateException("Other replicas are consuming " + projectionConsumerGroup.getGroupId()
+                    + " " + others + "; stop them before rebuilding the projection");
+        }
+    }
+
+    private void pauseListeners() throws InterruptedException {
+        listenerRegistry.getListenerContainers().forEach(MessageListenerContainer::pause);
+        long deadline = System.nanoTime() + properties.getPauseTimeout().toNanos();
+        for (MessageListenerContainer container : listenerRegistry.getListenerContainers()) {
+            while (container.isRunning() && !container.isContainerPaused()) {
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("Live listeners did not pause within " + properties.getPauseTimeout());
+                }
+                Thread.sleep(50);
+            }
+        }
+    }
+
+    private void resumeListeners() {
+        listenerRegistry.getListenerContainers().forEach(MessageListenerContainer::resume);
+    }
+}
@@ -0,0 +1,99 @@
+package com.yeshwanth.pqm.kafka;
+
+import com.yeshwanth.pqm.cache.ProductCache;
+import com.yeshwanth.pqm.config.KafkaConfig;
+import com.yeshwanth.pqm.dto.ProductEvent;
+import com.yeshwanth.pqm.dto.ProductState;
+import com.yeshwanth.pqm.index.InventoryAggregates;
+import com.yeshwanth.pqm.index.ProductSearchIndex;
+import com.yeshwanth.pqm.model.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps this instance's in-memory views (the product cache, the search index and
+ * the inventory totals) in step with every partition of product-event-topic when
+ * replicas share product-query-group, where the projection listeners only see
+ * the partitions assigned to this instance. It reads in a group of its own and
+ * never writes to the store: the store is shared, only the views are per
+ * instance. It starts from the offsets product-query-group had committed before
+ * the views were loaded from the store, so no change is missed, and the views'
+ * version rules make events they already hold no-ops.
+ *
+ * <p>The views follow the topic, not the table: an event the owning replica
+ * fails to write, and dead-letters, is still in them until the product next
+ * changes or the views are reloaded.
+ *
+ * <p>Its container, {@link KafkaConfig#VIEW_CONTAINER}, only starts with a shared
+ * group; with an instance-owned group the listeners already see every partition.
+ */
+@Slf4j
+@Component
+public class ProjectionViewConsumer implements MessageListener<String, ProductEvent>, ConsumerSeekAware {
+
+    private final ProjectionConsumerGroup projectionConsumerGroup;
+    private final ProductCache productCache;
+    private final ProductSearchIndex searchIndex;
+    private final InventoryAggregates inventory;
+    private final String groupId = KafkaConfig.PRODUCT_QUERY_GROUP + "-views-" + UUID.randomUUID();
+    private final Set<TopicPartition> positioned = ConcurrentHashMap.newKeySet();
+
+    public ProjectionViewConsumer(ProjectionConsumerGroup projectionConsumerGroup,
+                                  ProductCache productCache,
+                                  ProductSearchIndex searchIndex,
+                                  InventoryAggregates inventory) {
+        this.projectionConsumerGroup = projectionConsumerGroup;
+        this.productCache = productCache;
+        this.searchIndex = searchIndex;
+        this.inventory = inventory;
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    @Override
+    public void onMessage(ConsumerRecord<String, ProductEvent> record) {
+        ProductEvent event = record.value();
+        if (event == null || event.getProduct() == null || event.getProduct().getId() == null) {
+            log.warn("Skipping unreadable product event at {}-{}@{}", record.topic(), record.partition(), record.offset());
+            return;
+        }
+        ProductState state = event.getProduct();
+        switch (event.getEventType()) {
+            case KafkaConfig.EVENT_CREATE_PRODUCT, KafkaConfig.EVENT_UPDATE_PRODUCT, KafkaConfig.EVENT_STOCK_ADJUSTED -> {
+                Product product = new Product(state.getId(), state.getName(), state.getDescription(), state.getPrice(),
+                        state.getQuantity(), state.getCreatedAt(), state.getUpdatedAt(), state.getVersion());
+                productCache.changed(product);
+                searchIndex.put(product);
+                inventory.put(product);
+            }
+            case KafkaConfig.EVENT_DELETE_PRODUCT -> {
+                productCache.deleted(state.getId(), state.getVersion());
+                searchIndex.remove(state.getId(), state.getVersion());
+                inventory.remove(state.getId(), state.getVersion());
+            }
+            default -> log.warn("Unknown event type: {}", event.getEventType());
+        }
+    }
+
+    // Positions each partition once; after that the group's own offsets take over
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        for (TopicPartition partition : assignments.keySet()) {
+            Long offset = projectionConsumerGroup.startupOffset(partition);
+            if (positioned.add(partition) && offset != null) {
+                callback.seek(partition.topic(), partition.partition(), offset);
+            }
+        }
+    }
+}
@@ -1,10 +1,8 @@
 package com.yeshwanth.pqm.model;
 
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
-import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -19,8 +17,8 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class Product {
 
+    // Same id as product_command, taken from the event
     @Id
-    @GeneratedValue(strategy = jakarta.persistence.GenerationType.IDENTITY)
     private Long id;
 
     private String name;
@@ -30,4 +28,7 @@ public class Product {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
+    // Version of the last applied event; older and repeated events are dropped against it
+    private Long version;
+
 }
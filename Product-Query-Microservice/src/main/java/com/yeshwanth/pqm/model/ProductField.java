@@ -0,0 +1,91 @@
+package com.yeshwanth.pqm.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * The product attributes a read can be narrowed to with {@code ?fields=}. Each
+ * name is both the JSON property and the entity attribute, so a field list maps
+ * straight onto a select list.
+ */
+public enum ProductField {
+
+    ID("id", (product, value) -> product.setId((Long) value)),
+    NAME("name", (product, value) -> product.setName((String) value)),
+    DESCRIPTION("description", (product, value) -> product.setDescription((String) value)),
+    PRICE("price", (product, value) -> product.setPrice((BigDecimal) value)),
+    QUANTITY("quantity", (product, value) -> product.setQuantity((Integer) value)),
+    CREATED_AT("createdAt", (product, value) -> product.setCreatedAt((LocalDateTime) value)),
+    UPDATED_AT("updatedAt", (product, value) -> product.setUpdatedAt((LocalDateTime) value)),
+    VERSION("version", (product, value) -> product.setVersion((Long) value));
+
+    // Jackson filter id for products, see config.JacksonConfig
+    public static final String FILTER = "productFields";
+
+    public static final Set<ProductField> ALL = Collections.unmodifiableSet(EnumSet.allOf(ProductField.class));
+
+    private final String property;
+    private final BiConsumer<Product, Object> setter;
+
+    ProductField(String property, BiConsumer<Product, Object> setter) {
+        this.property = property;
+        this.setter = setter;
+    }
+
+    public String property() {
+        return property;
+    }
+
+    public void set(Product product, Object value) {
+        setter.accept(product, value);
+    }
+
+    /**
+     * Parses a comma-separated field list, ignoring case and blanks. The id is
+     * always included, since cursors and lookups need it; null or empty means all
+     * fields.
+     */
+    public static Set<ProductField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        EnumSet<ProductField> parsed = EnumSet.of(ID);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            parsed.add(Arrays.stream(values())
+                    .filter(field -> field.property.equalsIgnoreCase(trimmed))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown field: " + trimmed
+                            + ", expected some of " + key(ALL))));
+        }
+        return parsed.size() == values().length ? ALL : Collections.unmodifiableSet(parsed);
+    }
+
+    // Canonical form of a field list: properties in declaration order, comma-separated
+    public static String key(Set<ProductField> fields) {
+        return fields.stream().sorted().map(ProductField::property).collect(Collectors.joining(","));
+    }
+
+    public static Set<String> properties(Set<ProductField> fields) {
+        return fields.stream().map(ProductField::property).collect(Collectors.toSet());
+    }
+
+    public static Set<ProductField> with(Set<ProductField> fields, ProductField field) {
+        if (fields.contains(field)) {
+            return fields;
+        }
+        EnumSet<ProductField> extended = EnumSet.copyOf(fields);
+        extended.add(field);
+        return extended.size() == values().length ? ALL : Collections.unmodifiableSet(extended);
+    }
+}
@@ -0,0 +1,29 @@
+package com.yeshwanth.pqm.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * What is left of a deleted product in product_query_tombstone. Retry topics and
+ * dead-letter replays can hand back an event after the delete that followed it;
+ * without a row to compare versions against, that event would insert the product
+ * again.
+ */
+@Entity
+@Table(name = "product_query_tombstone")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductTombstone {
+
+    @Id
+    private Long id;
+
+    // Version of the delete; events at or below it are dropped
+    private Long version;
+
+}
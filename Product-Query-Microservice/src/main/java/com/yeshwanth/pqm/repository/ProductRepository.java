@@ -1,10 +1,66 @@
 package com.yeshwanth.pqm.repository;
 
 import com.yeshwanth.pqm.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
-    // Additional query methods can be added here if needed
+
+    // Keyset page: rows after the cursor id in id order, served straight off the primary key
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
+
+    // Forward-only cursor for exports; the caller must hold a transaction and close the stream
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p from Product p order by p.id")
+    Stream<Product> streamAllOrderById();
+
+    // One statement per event: insert, or overwrite only when the stored version is older.
+    // version is assigned last so every CASE still compares against the stored value. Events from
+    // conditional updates carry no created_at, which then keeps the stored one. Nothing is inserted
+    // for a product whose tombstone is at or after the event's version.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query(value = """
+            insert into product_query (id, name, description, price, quantity, created_at, updated_at, version)
+            select :id, :name, :description, :price, :quantity, :createdAt, :updatedAt, :version from dual
+            where not exists (select 1 from product_query_tombstone t where t.id = :id and t.version >= :version)
+            on duplicate key update
+                name = case when coalesce(version, -1) < values(version) then values(name) else name end,
+                description = case when coalesce(version, -1) < values(version) then values(description) else description end,
+                price = case when coalesce(version, -1) < values(version) then values(price) else price end,
+                quantity = case when coalesce(version, -1) < values(version) then values(quantity) else quantity end,
+                created_at = case when coalesce(version, -1) < values(version) then coalesce(values(created_at), created_at) else created_at end,
+                updated_at = case when coalesce(version, -1) < values(version) then values(updated_at) else updated_at end,
+                version = case when coalesce(version, -1) < values(version) then values(version) else version end
+            """, nativeQuery = true)
+    int upsertIfNewer(@Param("id") Long id,
+                      @Param("name") String name,
+                      @Param("description") String description,
+                      @Param("price") BigDecimal price,
+                      @Param("quantity") Integer quantity,
+                      @Param("createdAt") LocalDateTime createdAt,
+                      @Param("updatedAt") LocalDateTime updatedAt,
+                      @Param("version") Long version);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("delete from Product p where p.id = :id and (p.version is null or p.version < :version)")
+    int deleteIfOlder(@Param("id") Long id, @Param("version") long version);
 }
@@ -0,0 +1,124 @@
+package com.yeshwanth.pqm.repository;
+
+import com.yeshwanth.pqm.model.Product;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * product_query_rebuild, the table a projection rebuild writes into while reads
+ * keep using product_query. It is created with the live table's current structure
+ * and swapped in by renaming both tables once the rebuild has caught up.
+ */
+@Repository
+public class ProductShadowTable {
+
+    public static final String LIVE_TABLE = "product_query";
+    public static final String SHADOW_TABLE = "product_query_rebuild";
+    private static final String RETIRED_TABLE = "product_query_retired";
+
+    // Same rule as ProductRepository.upsertIfNewer, except that unversioned events overwrite: the
+    // rebuild replays each partition in order, so for them the last event is the current state.
+    // A missing version therefore compares as the largest possible one.
+    private static final String UPSERT = """
+            insert into %s (id, name, description, price, quantity, created_at, updated_at, version)
+            values (?, ?, ?, ?, ?, ?, ?, ?)
+            on duplicate key update
+                name = case when coalesce(version, -1) < coalesce(values(version), 9223372036854775807) then values(name) else name end,
+                description = case when coalesce(version, -1) < coalesce(values(version), 9223372036854775807) then values(description) else description end,
+                price = case when coalesce(version, -1) < coalesce(values(version), 9223372036854775807) then values(price) else price end,
+                quantity = case when coalesce(version, -1) < coalesce(values(version), 9223372036854775807) then values(quantity) else quantity end,
+                created_at = case when coalesce(version, -1) < coalesce(values(version), 9223372036854775807) then coalesce(values(created_at), created_at) else created_at end,
+                updated_at = case when coalesce(version, -1) < coalesce(values(version), 9223372036854775807) then values(updated_at) else updated_at end,
+                version = case when coalesce(version, -1) < coalesce(values(version), 9223372036854775807) then values(version) else version end
+            """.formatted(SHADOW_TABLE);
+
+    private static final String DELETE = "delete from " + SHADOW_TABLE
+            + " where id = ? and (? is null or version is null or version < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+
+    public ProductShadowTable(JdbcTemplate jdbcTemplate, DataSource dataSource) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+    }
+
+    // Drops any leftover shadow table and creates an empty one shaped like product_query
+    public void create() {
+        jdbcTemplate.execute("drop table if exists " + SHADOW_TABLE);
+        if (isMySql()) {
+            jdbcTemplate.execute("create table " + SHADOW_TABLE + " like " + LIVE_TABLE);
+        } else {
+            jdbcTemplate.execute("create table " + SHADOW_TABLE + " as select * from " + LIVE_TABLE + " where 1 = 0");
+            // create-as-select copies columns only
+            jdbcTemplate.execute("alter table " + SHADOW_TABLE + " alter column id set not null");
+            jdbcTemplate.execute("alter table " + SHADOW_TABLE + " add primary key (id)");
+        }
+    }
+
+    public void upsertAll(Collection<Product> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT, products, products.size(), (statement, product) -> {
+            statement.setLong(1, product.getId());
+            statement.setString(2, product.getName());
+            statement.setString(3, product.getDescription());
+            statement.setBigDecimal(4, product.getPrice());
+            statement.setObject(5, product.getQuantity());
+            statement.setTimestamp(6, product.getCreatedAt() != null ? Timestamp.valueOf(product.getCreatedAt()) : null);
+            statement.setTimestamp(7, product.getUpdatedAt() != null ? Timestamp.valueOf(product.getUpdatedAt()) : null);
+            statement.setObject(8, product.getVersion());
+        });
+    }
+
+    // Deletes each id unless the row was written at or after the delete's version (null: unconditionally)
+    public void deleteAll(Map<Long, Long> versionsById) {
+        if (versionsById.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Long>> deletes = List.copyOf(versionsById.entrySet());
+        jdbcTemplate.batchUpdate(DELETE, deletes, deletes.size(), (statement, delete) -> {
+            statement.setLong(1, delete.getKey());
+            statement.setObject(2, delete.getValue());
+            statement.setObject(3, delete.getValue());
+        });
+    }
+
+    /**
+     * Puts the shadow table in place of product_query and drops the old one. On
+     * MySQL both renames are a single atomic RENAME TABLE, so readers see either
+     * the old or the new table, never neither.
+     */
+    public void swap() {
+        jdbcTemplate.execute("drop table if exists " + RETIRED_TABLE);
+        if (isMySql()) {
+            jdbcTemplate.execute("rename table " + LIVE_TABLE + " to " + RETIRED_TABLE + ", "
+                    + SHADOW_TABLE + " to " + LIVE_TABLE);
+        } else {
+            jdbcTemplate.execute("alter table " + LIVE_TABLE + " rename to " + RETIRED_TABLE);
+            jdbcTemplate.execute("alter table " + SHADOW_TABLE + " rename to " + LIVE_TABLE);
+        }
+        jdbcTemplate.execute("drop table " + RETIRED_TABLE);
+    }
+
+    public void drop() {
+        jdbcTemplate.execute("drop table if exists " + SHADOW_TABLE);
+    }
+
+    private boolean isMySql() {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not determine the database type", e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.yeshwanth.pqm.repository;
+
+import com.yeshwanth.pqm.model.ProductTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface ProductTombstoneRepository extends JpaRepository<ProductTombstone, Long> {
+
+    // A redelivered or stale delete never lowers the recorded version
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query(value = """
+            insert into product_query_tombstone (id, version) values (:id, :version)
+            on duplicate key update version = greatest(version, values(version))
+            """, nativeQuery = true)
+    int record(@Param("id") Long id, @Param("version") long version);
+}
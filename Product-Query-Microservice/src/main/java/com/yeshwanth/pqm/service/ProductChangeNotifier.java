@@ -0,0 +1,82 @@
+package com.yeshwanth.pqm.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yeshwanth.pqm.config.ConsistencyProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wakes readers waiting for a product to reach a version. The projection calls
+ * {@link #applied} once a change is committed and visible to reads; waiters are
+ * kept per product id, so an event only touches the readers of its own product.
+ * Notifications are in-process: with several query instances sharing product_query,
+ * only the instance that consumed the event wakes its readers early.
+ */
+@Component
+@EnableConfigurationProperties(ConsistencyProperties.class)
+public class ProductChangeNotifier {
+
+    private final ConcurrentHashMap<Long, Set<Waiter>> waiters = new ConcurrentHashMap<>();
+
+    // Version of recent deletes, so a read for a deleted product's final version need not wait it out
+    private final Cache<Long, Long> deletedVersions;
+
+    public ProductChangeNotifier(ConsistencyProperties properties) {
+        this.deletedVersions = Caffeine.newBuilder()
+                .maximumSize(properties.getDeletedVersions())
+                .build();
+    }
+
+    /**
+     * Registers interest in the product reaching {@code minVersion}. The returned
+     * future completes when a change at or above that version (or an unversioned
+     * change) is applied; the caller must {@link #cancel} it when giving up.
+     */
+    public CompletableFuture<Void> await(Long id, long minVersion) {
+        Waiter waiter = new Waiter(minVersion, new CompletableFuture<>());
+        waiters.computeIfAbsent(id, key -> ConcurrentHashMap.newKeySet()).add(waiter);
+        return waiter.future();
+    }
+
+    public void cancel(Long id, CompletableFuture<Void> future) {
+        waiters.computeIfPresent(id, (key, set) -> {
+            set.removeIf(waiter -> waiter.future() == future);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    public void applied(Long id, Long version) {
+        wake(id, version);
+    }
+
+    public void deleted(Long id, Long version) {
+        if (version != null) {
+            deletedVersions.asMap().merge(id, version, Math::max);
+        }
+        wake(id, version);
+    }
+
+    public Long deletedVersion(Long id) {
+        return deletedVersions.getIfPresent(id);
+    }
+
+    private void wake(Long id, Long version) {
+        Set<Waiter> set = waiters.get(id);
+        if (set == null) {
+            return;
+        }
+        for (Waiter waiter : set) {
+            if (version == null || version >= waiter.minVersion()) {
+                waiter.future().complete(null);
+            }
+        }
+    }
+
+    private record Waiter(long minVersion, CompletableFuture<Void> future) {
+    }
+}
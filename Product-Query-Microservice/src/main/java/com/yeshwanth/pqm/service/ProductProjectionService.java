@@ -0,0 +1,266 @@
+package com.yeshwanth.pqm.service;
+
+import com.yeshwanth.pqm.cache.ProductCache;
+import com.yeshwanth.pqm.config.KafkaConfig;
+import com.yeshwanth.pqm.dto.ProductEvent;
+import com.yeshwanth.pqm.dto.ProductState;
+import com.yeshwanth.pqm.index.InventoryAggregates;
+import com.yeshwanth.pqm.index.ProductSearchIndex;
+import com.yeshwanth.pqm.model.Product;
+import com.yeshwanth.pqm.store.ProductProjectionStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductProjectionService {
+
+    private final ProductProjectionStore productStore;
+    private final ProductCache productCache;
+    private final ProductSearchIndex searchIndex;
+    private final InventoryAggregates inventory;
+    private final ProductChangeNotifier changeNotifier;
+
+    /**
+     * Applies a single event. Used by the record listener and by each worker lane
+     * of the parallel listener. Versioned events take one conditional statement
+     * each, so a redelivered or out-of-date event is a no-op; events produced
+     * before versioning fall back to read-then-write.
+     */
+    public void apply(ProductEvent event) {
+        if (event.getProduct().getVersion() != null) {
+            applyVersioned(event);
+            return;
+        }
+        switch (event.getEventType()) {
+            case KafkaConfig.EVENT_CREATE_PRODUCT:
+                handleProductCreated(event.getProduct());
+                break;
+            case KafkaConfig.EVENT_UPDATE_PRODUCT:
+                handleProductUpdated(event.getProduct());
+                break;
+            case KafkaConfig.EVENT_DELETE_PRODUCT:
+                handleProductDeleted(event.getProduct());
+                break;
+            default:
+                log.warn("Unknown event type: {}", event.getEventType());
+        }
+    }
+
+    private void applyVersioned(ProductEvent event) {
+        ProductState state = event.getProduct();
+        switch (event.getEventType()) {
+            case KafkaConfig.EVENT_CREATE_PRODUCT, KafkaConfig.EVENT_UPDATE_PRODUCT, KafkaConfig.EVENT_STOCK_ADJUSTED -> {
+                Product product = toProduct(state);
+                if (!productStore.upsertIfNewer(product)) {
+                    // Stale, or the product was deleted after this event; the views must not get it back
+                    log.debug("Skipping product {} at version {}", state.getId(), state.getVersion());
+                    return;
+                }
+                afterCommit(() -> {
+                    productCache.refreshIfPresent(product);
+                    searchIndex.put(product);
+                    inventory.put(product);
+                    changeNotifier.applied(product.getId(), product.getVersion());
+                });
+                log.debug("Upserted product {} at version {}", state.getId(), state.getVersion());
+            }
+            case KafkaConfig.EVENT_DELETE_PRODUCT -> {
+                productStore.deleteIfOlder(state.getId(), state.getVersion());
+                afterCommit(() -> {
+                    productCache.invalidate(state.getId());
+                    searchIndex.remove(state.getId(), state.getVersion());
+                    inventory.remove(state.getId(), state.getVersion());
+                    changeNotifier.deleted(state.getId(), state.getVersion());
+                });
+                log.debug("Deleted product {} at version {}", state.getId(), state.getVersion());
+            }
+            default -> log.warn("Unknown event type: {}", event.getEventType());
+        }
+    }
+
+    /**
+     * Applies already coalesced events (at most one per product) in a single
+     * transaction: one findAllById for the whole batch, then batched inserts of
+     * the products it did not find, updates and deletes. STOCK_ADJUSTED events
+     * carry the whole row and are written like updates.
+     */
+    @Transactional
+    public void applyBatch(Collection<ProductEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        Set<Long> ids = events.stream()
+                .map(event -> event.getProduct().getId())
+                .collect(Collectors.toSet());
+        Map<Long, Product> existing = productStore.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        List<Product> toSave = new ArrayList<>();
+        List<Product> toInsert = new ArrayList<>();
+        List<Product> toUpdate = new ArrayList<>();
+        List<Product> toDelete = new ArrayList<>();
+        List<ProductState> deleted = new ArrayList<>();
+        for (ProductEvent event : events) {
+            ProductState incoming = event.getProduct();
+            Product current = existing.get(incoming.getId());
+            if (current != null && !isNewer(incoming, current)) {
+                log.debug("Skipping stale event for product {} at version {}", incoming.getId(), incoming.getVersion());
+                continue;
+            }
+
+            if (KafkaConfig.EVENT_DELETE_PRODUCT.equals(event.getEventType())) {
+                deleted.add(incoming);
+                if (current != null) {
+                    toDelete.add(current);
+                } else {
+                    log.warn("Product with ID {} not found for deletion", incoming.getId());
+                }
+                continue;
+            }
+
+            if (current == null) {
+                current = new Product();
+                current.setId(incoming.getId());
+                current.setCreatedAt(incoming.getCreatedAt());
+                toInsert.add(current);
+            } else {
+                toUpdate.add(current);
+            }
+            current.setName(incoming.getName());
+            current.setDescription(incoming.getDescription());
+            current.setPrice(incoming.getPrice());
+            current.setQuantity(incoming.getQuantity());
+            current.setUpdatedAt(incoming.getUpdatedAt() != null ? incoming.getUpdatedAt() : LocalDateTime.now());
+            current.setVersion(incoming.getVersion());
+            toSave.add(current);
+        }
+
+        // Rows found above are updated in place; the missing ones are inserted without a merge reading each first
+        productStore.insertAll(toInsert);
+        productStore.saveAll(toUpdate);
+        productStore.deleteAllById(toDelete.stream().map(Product::getId).toList());
+        afterCommit(() -> {
+            toSave.forEach(productCache::refreshIfPresent);
+            toDelete.forEach(product -> productCache.invalidate(product.getId()));
+            toSave.forEach(searchIndex::put);
+            toSave.forEach(inventory::put);
+            deleted.forEach(state -> searchIndex.remove(state.getId(), state.getVersion()));
+            deleted.forEach(state -> inventory.remove(state.getId(), state.getVersion()));
+            toSave.forEach(product -> changeNotifier.applied(product.getId(), product.getVersion()));
+            deleted.forEach(state -> changeNotifier.deleted(state.getId(), state.getVersion()));
+        });
+        log.debug("Applied product event batch: {} upserts, {} deletes", toSave.size(), toDelete.size());
+    }
+
+    private void handleProductCreated(ProductState product) {
+        log.debug("Handling product created event for product: {}", product);
+        Product newProduct = new Product();
+        // Keep the command-side id so later events for this product find the row
+        newProduct.setId(product.getId());
+        newProduct.setName(product.getName());
+        newProduct.setDescription(product.getDescription());
+        newProduct.setPrice(product.getPrice());
+        newProduct.setQuantity(product.getQuantity());
+        newProduct.setCreatedAt(product.getCreatedAt());
+        newProduct.setUpdatedAt(product.getUpdatedAt());
+        productStore.save(newProduct);
+        afterCommit(() -> {
+            productCache.refreshIfPresent(newProduct);
+            searchIndex.put(newProduct);
+            inventory.put(newProduct);
+            changeNotifier.applied(newProduct.getId(), null);
+        });
+        log.debug("New product saved successfully: {}", newProduct);
+    }
+
+
+    private void handleProductUpdated(ProductState product) {
+        log.debug("Handling product updated event for product: {}", product);
+        productStore.findById(product.getId())
+                .ifPresentOrElse(existingProduct -> {
+                    // Update the existing product
+                    existingProduct.setName(product.getName());
+                    existingProduct.setDescription(product.getDescription());
+                    existingProduct.setPrice(product.getPrice());
+                    existingProduct.setQuantity(product.getQuantity());
+                    // Preserve created time, update updated time
+                    if (product.getUpdatedAt() != null) {
+                        existingProduct.setUpdatedAt(product.getUpdatedAt());
+                    } else {
+                        log.debug("Product from producer has null updatedAt, setting to current time");
+                        existingProduct.setUpdatedAt(LocalDateTime.now());
+                    }
+
+                    // Note: We don't need to set the version field as it's managed by JPA
+                    productStore.save(existingProduct);
+                    afterCommit(() -> {
+                        productCache.refreshIfPresent(existingProduct);
+                        searchIndex.put(existingProduct);
+                        inventory.put(existingProduct);
+                        changeNotifier.applied(existingProduct.getId(), null);
+                    });
+                    log.debug("Product updated successfully: {}", existingProduct);
+                }, () -> {
+                    // If product doesn't exist, create it
+                    log.warn("Product with ID {} not found for update, creating new", product.getId());
+                    handleProductCreated(product);
+                });
+    }
+
+    private void handleProductDeleted(ProductState product) {
+        log.debug("Handling product deleted event for product ID: {}", product.getId());
+        productStore.findById(product.getId())
+                .ifPresentOrElse(existingProduct -> {
+                    productStore.deleteById(existingProduct.getId());
+                    afterCommit(() -> {
+                        productCache.invalidate(existingProduct.getId());
+                        searchIndex.remove(existingProduct.getId(), null);
+                        inventory.remove(existingProduct.getId(), null);
+                        changeNotifier.deleted(existingProduct.getId(), null);
+                    });
+                    log.debug("Product deleted successfully: {}", existingProduct);
+                }, () -> {
+                    log.warn("Product with ID {} not found for deletion", product.getId());
+                });
+    }
+
+    // Unversioned events and rows are applied as before versioning: always
+    private static boolean isNewer(ProductState incoming, Product current) {
+        return incoming.getVersion() == null || current.getVersion() == null || current.getVersion() < incoming.getVersion();
+    }
+
+    private static Product toProduct(ProductState state) {
+        return new Product(state.getId(), state.getName(), state.getDescription(), state.getPrice(),
+                state.getQuantity(), state.getCreatedAt(), state.getUpdatedAt(), state.getVersion());
+    }
+
+    // Cache updates must follow the commit, otherwise a read-through load could cache the row being replaced
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
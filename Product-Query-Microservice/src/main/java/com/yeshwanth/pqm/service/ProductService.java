@@ -1,24 +1,227 @@
 package com.yeshwanth.pqm.service;
 
+import com.yeshwanth.pqm.cache.CachedProduct;
+import com.yeshwanth.pqm.cache.ProductCache;
+import com.yeshwanth.pqm.config.ConsistencyProperties;
+import com.yeshwanth.pqm.dto.ProductPage;
+import com.yeshwanth.pqm.dto.ProductSearchPage;
+import com.yeshwanth.pqm.index.ProductSearchIndex;
 import com.yeshwanth.pqm.model.Product;
-import com.yeshwanth.pqm.repository.ProductRepository;
-import lombok.RequiredArgsConstructor;
+import com.yeshwanth.pqm.model.ProductField;
+import com.yeshwanth.pqm.store.ProductProjectionStore;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 public class ProductService {
 
-    private final ProductRepository productRepository;
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
 
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
+    private final ProductProjectionStore productStore;
+    private final ProductCache productCache;
+    private final ProductSearchIndex searchIndex;
+    private final ProductChangeNotifier changeNotifier;
+    private final ConsistencyProperties consistencyProperties;
+    private final Executor readExecutor;
+
+    public ProductService(ProductProjectionStore productStore,
+                          ProductCache productCache,
+                          ProductSearchIndex searchIndex,
+                          ProductChangeNotifier changeNotifier,
+                          ConsistencyProperties consistencyProperties,
+                          @Qualifier("applicationTaskExecutor") Executor readExecutor) {
+        this.productStore = productStore;
+        this.productCache = productCache;
+        this.searchIndex = searchIndex;
+        this.changeNotifier = changeNotifier;
+        this.consistencyProperties = consistencyProperties;
+        this.readExecutor = readExecutor;
+    }
+
+    /**
+     * Product as seen by a projection that has applied {@code minVersion}, the
+     * version returned by the command service. {@code caughtUp} is false when the
+     * wait ran out first, in which case the current state is returned.
+     */
+    public record VersionedRead(Optional<CachedProduct> product, boolean caughtUp) {
+    }
+
+    // The list reads fill only the given fields; see ProductProjectionStore
+    public List<Product> getAllProducts(Set<ProductField> fields) {
+        return productStore.findAll(fields);
+    }
+
+    public ProductPage getProductPage(Long after, int limit, Set<ProductField> fields) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        List<Product> items = productStore.findPage(after != null ? after : Long.MIN_VALUE, pageSize, fields);
+        Long nextAfter = items.size() == pageSize ? items.get(items.size() - 1).getId() : null;
+        return new ProductPage(items, nextAfter);
+    }
+
+    /**
+     * Products priced between min and max (inclusive, either may be null), in price
+     * then id order, found through the in-memory price index.
+     */
+    public ProductSearchPage searchByPrice(BigDecimal min, BigDecimal max, String cursor, int limit,
+                                           Set<ProductField> fields) {
+        if (min != null && max != null && min.compareTo(max) > 0) {
+            throw new IllegalArgumentException("minPrice must not be greater than maxPrice");
+        }
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        ProductSearchIndex.PriceKey after = cursor != null ? decodePriceCursor(cursor) : null;
+        List<ProductSearchIndex.PriceKey> keys = searchIndex.findByPrice(min, max, after, pageSize);
+
+        List<Product> items = loadInOrder(keys.stream().map(ProductSearchIndex.PriceKey::id).toList(),
+                ProductField.with(fields, ProductField.PRICE),
+                product -> product.getPrice() != null
+                        && (min == null || product.getPrice().compareTo(min) >= 0)
+                        && (max == null || product.getPrice().compareTo(max) <= 0));
+        String nextCursor = keys.size() == pageSize ? encodePriceCursor(keys.get(keys.size() - 1)) : null;
+        return new ProductSearchPage(items, nextCursor);
+    }
+
+    /**
+     * Products whose name starts with the prefix, ignoring case, in name then id
+     * order, found through the in-memory name index.
+     */
+    public ProductSearchPage searchByNamePrefix(String prefix, String cursor, int limit, Set<ProductField> fields) {
+        if (prefix == null || prefix.isEmpty()) {
+            throw new IllegalArgumentException("prefix must not be empty");
+        }
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        ProductSearchIndex.NameKey after = cursor != null ? decodeNameCursor(cursor) : null;
+        List<ProductSearchIndex.NameKey> keys = searchIndex.findByNamePrefix(prefix, after, pageSize);
+
+        String key = ProductSearchIndex.nameKey(prefix);
+        List<Product> items = loadInOrder(keys.stream().map(ProductSearchIndex.NameKey::id).toList(),
+                ProductField.with(fields, ProductField.NAME),
+                product -> product.getName() != null && ProductSearchIndex.nameKey(product.getName()).startsWith(key));
+        String nextCursor = keys.size() == pageSize ? encodeNameCursor(keys.get(keys.size() - 1)) : null;
+        return new ProductSearchPage(items, nextCursor);
+    }
+
+    // One store lookup for the page; rechecking the filter drops hits the index has not caught up on yet.
+    // fields must include whatever the filter reads.
+    private List<Product> loadInOrder(List<Long> ids, Set<ProductField> fields, Predicate<Product> filter) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Product> found = productStore.findAllById(ids, fields).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        return ids.stream()
+                .map(found::get)
+                .filter(product -> product != null && filter.test(product))
+                .toList();
+    }
+
+    public void streamAllProducts(Set<ProductField> fields, Consumer<Product> consumer) {
+        productStore.streamAll(fields, consumer);
     }
 
     public Optional<Product> getProductById(Long id) {
-        return productRepository.findById(id);
+        return productCache.get(id, productStore::findById);
+    }
+
+    // The product with its pre-serialized JSON body and ETag, for GET /api/products/{id}
+    public Optional<CachedProduct> getSerializedProductById(Long id) {
+        return productCache.getSerialized(id, productStore::findById);
+    }
+
+    /**
+     * Long-polls until the projection has applied the given version of the product,
+     * at most for {@code wait} (bounded by {@code pqm.consistency.max-wait}). The
+     * waiter is registered before the first read, so a change applied in between
+     * still wakes it; no thread is held while waiting.
+     */
+    public CompletableFuture<VersionedRead> getProductAtVersion(Long id, long minVersion, Duration wait) {
+        Duration maxWait = consistencyProperties.getMaxWait();
+        Duration boundedWait = wait == null ? consistencyProperties.getDefaultWait()
+                : wait.compareTo(maxWait) > 0 ? maxWait : wait;
+
+        CompletableFuture<Void> change = changeNotifier.await(id, minVersion);
+        VersionedRead current = readAtVersion(id, minVersion);
+        if (current.caughtUp() || boundedWait.isZero() || boundedWait.isNegative()) {
+            changeNotifier.cancel(id, change);
+            return CompletableFuture.completedFuture(current);
+        }
+        // Re-read off the consumer and timer threads that complete the wait
+        return change.orTimeout(boundedWait.toMillis(), TimeUnit.MILLISECONDS)
+                .handleAsync((applied, timeout) -> {
+                    changeNotifier.cancel(id, change);
+                    return readAtVersion(id, minVersion);
+                }, readExecutor);
+    }
+
+    private VersionedRead readAtVersion(Long id, long minVersion) {
+        // Read like GET /{id}, so the controller writes the same bytes under the same ETag
+        Optional<CachedProduct> product = getSerializedProductById(id);
+        boolean caughtUp = product
+                // Rows from unversioned events cannot be compared, so they are taken as current
+                .map(found -> found.product().getVersion() == null || found.product().getVersion() >= minVersion)
+                .orElseGet(() -> {
+                    Long deletedVersion = changeNotifier.deletedVersion(id);
+                    return deletedVersion != null && deletedVersion >= minVersion;
+                });
+        return new VersionedRead(product, caughtUp);
+    }
+
+    // Cursors are opaque to clients: base64url of "price:id" or "id:name"
+    private static String encodePriceCursor(ProductSearchIndex.PriceKey key) {
+        return encodeCursor(key.price().toPlainString() + ":" + key.id());
+    }
+
+    private static ProductSearchIndex.PriceKey decodePriceCursor(String cursor) {
+        String value = decodeCursor(cursor);
+        int separator = value.lastIndexOf(':');
+        try {
+            return new ProductSearchIndex.PriceKey(new BigDecimal(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private static String encodeNameCursor(ProductSearchIndex.NameKey key) {
+        return encodeCursor(key.id() + ":" + key.name());
+    }
+
+    private static ProductSearchIndex.NameKey decodeNameCursor(String cursor) {
+        String value = decodeCursor(cursor);
+        int separator = value.indexOf(':');
+        try {
+            return new ProductSearchIndex.NameKey(value.substring(separator + 1),
+                    Long.parseLong(value.substring(0, separator)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private static String encodeCursor(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
     }
 }
@@ -0,0 +1,196 @@
+package com.yeshwanth.pqm.store;
+
+import com.yeshwanth.pqm.config.MemoryStoreProperties;
+import com.yeshwanth.pqm.model.Product;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Heap-resident projection for read models that fit in memory, enabled with
+ * {@code pqm.store=memory}. Products are kept as immutable {@link ProductRecord}s
+ * in a {@link LongProductMap}, so lookups from request threads never lock while
+ * the consumer writes. The projection is rebuilt from the topic on every start.
+ *
+ * <p>Tombstones are kept for {@code pqm.memory.tombstone-retention} after the
+ * delete and then pruned, oldest first, whenever a conditional write runs, so the
+ * map holds only the deletes of that window.
+ */
+@Component
+@ConditionalOnProperty(name = "pqm.store", havingValue = "memory")
+@EnableConfigurationProperties(MemoryStoreProperties.class)
+public class InMemoryProductProjectionStore implements ProductProjectionStore {
+
+    private record Tombstone(long version, long recordedAt) {
+    }
+
+    private static final Comparator<ProductRecord> BY_ID = Comparator.comparingLong(ProductRecord::id);
+
+    private final LongProductMap products = new LongProductMap();
+
+    // Version of each delete in the order recorded, guarded by the conditional writes' lock; not part of snapshots
+    private final Map<Long, Tombstone> tombstones = new LinkedHashMap<>();
+    private final long tombstoneRetentionNanos;
+
+    public InMemoryProductProjectionStore(MemoryStoreProperties properties) {
+        this.tombstoneRetentionNanos = properties.getTombstoneRetention().toNanos();
+    }
+
+    @Override
+    public Optional<Product> findById(Long id) {
+        return Optional.ofNullable(products.get(id)).map(ProductRecord::toProduct);
+    }
+
+    @Override
+    public List<Product> findAllById(Collection<Long> ids) {
+        List<Product> found = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ProductRecord record = products.get(id);
+            if (record != null) {
+                found.add(record.toProduct());
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<Product> findAll() {
+        List<Product> all = new ArrayList<>(products.size());
+        products.forEach(record -> all.add(record.toProduct()));
+        return all;
+    }
+
+    /**
+     * Keeps the {@code limit} smallest ids above the cursor in a bounded max-heap
+     * while walking the table once, so a page costs O(n log limit) without sorting
+     * the whole projection.
+     */
+    @Override
+    public List<Product> findPage(Long after, int limit) {
+        PriorityQueue<ProductRecord> page = new PriorityQueue<>(limit + 1, BY_ID.reversed());
+        products.forEach(record -> {
+            if (record.id() > after) {
+                page.offer(record);
+                if (page.size() > limit) {
+                    page.poll();
+                }
+            }
+        });
+        List<ProductRecord> ordered = new ArrayList<>(page);
+        ordered.sort(BY_ID);
+        return ordered.stream().map(ProductRecord::toProduct).toList();
+    }
+
+    @Override
+    public void streamAll(Consumer<Product> consumer) {
+        List<ProductRecord> ordered = new ArrayList<>(products.size());
+        products.forEach(ordered::add);
+        ordered.sort(BY_ID);
+        ordered.forEach(record -> consumer.accept(record.toProduct()));
+    }
+
+    @Override
+    public void save(Product product) {
+        products.put(ProductRecord.of(product));
+    }
+
+    @Override
+    public void saveAll(Collection<Product> products) {
+        products.forEach(this::save);
+    }
+
+    @Override
+    public void insertAll(Collection<Product> products) {
+        saveAll(products);
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        products.remove(id);
+    }
+
+    @Override
+    public void deleteAllById(Collection<Long> ids) {
+        ids.forEach(products::remove);
+    }
+
+    // Synchronized so the version check and the write cannot interleave with another conditional write
+    @Override
+    public synchronized boolean upsertIfNewer(Product product) {
+        pruneTombstones();
+        Tombstone deleted = tombstones.get(product.getId());
+        if (deleted != null && deleted.version() >= product.getVersion()) {
+            return false;
+        }
+        ProductRecord current = products.get(product.getId());
+        if (current == null) {
+            products.put(ProductRecord.of(product));
+            return true;
+        }
+        if (current.isOlderThan(product.getVersion())) {
+            ProductRecord updated = ProductRecord.of(product);
+            // Conditional updates on the command side do not read the creation time
+            if (product.getCreatedAt() == null) {
+                updated = new ProductRecord(updated.id(), updated.name(), updated.description(), updated.price(),
+                        updated.quantity(), current.createdAt(), updated.updatedAt(), updated.version());
+            }
+            products.put(updated);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized void deleteIfOlder(Long id, long version) {
+        pruneTombstones();
+        // Re-inserted, so the map stays ordered by when each tombstone was last raised
+        Tombstone previous = tombstones.remove(id);
+        long kept = previous != null ? Math.max(previous.version(), version) : version;
+        tombstones.put(id, new Tombstone(kept, System.nanoTime()));
+        ProductRecord current = products.get(id);
+        if (current != null && current.isOlderThan(version)) {
+            products.remove(id);
+        }
+    }
+
+    // Called under the conditional writes' lock
+    private void pruneTombstones() {
+        long now = System.nanoTime();
+        Iterator<Tombstone> oldest = tombstones.values().iterator();
+        while (oldest.hasNext() && now - oldest.next().recordedAt() > tombstoneRetentionNanos) {
+            oldest.remove();
+        }
+    }
+
+    synchronized int tombstoneCount() {
+        return tombstones.size();
+    }
+
+    public void forEachRecord(Consumer<ProductRecord> consumer) {
+        products.forEach(consumer);
+    }
+
+    public void putRecord(ProductRecord record) {
+        products.put(record);
+    }
+
+    public void clear() {
+        products.clear();
+    }
+
+    @Override
+    public boolean isDurable() {
+        return false;
+    }
+}
@@ -0,0 +1,181 @@
+package com.yeshwanth.pqm.store;
+
+import com.yeshwanth.pqm.model.Product;
+import com.yeshwanth.pqm.model.ProductField;
+import com.yeshwanth.pqm.repository.ProductRepository;
+import com.yeshwanth.pqm.repository.ProductTombstoneRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "pqm.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaProductProjectionStore implements ProductProjectionStore {
+
+    private final ProductRepository productRepository;
+    private final ProductTombstoneRepository tombstoneRepository;
+    private final EntityManager entityManager;
+
+    @Override
+    public Optional<Product> findById(Long id) {
+        return productRepository.findById(id);
+    }
+
+    @Override
+    public List<Product> findAllById(Collection<Long> ids) {
+        return productRepository.findAllById(ids);
+    }
+
+    @Override
+    public List<Product> findAll() {
+        return productRepository.findAll();
+    }
+
+    @Override
+    public List<Product> findPage(Long after, int limit) {
+        return productRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(limit));
+    }
+
+    /**
+     * Reads through a forward-only cursor and detaches each entity once consumed,
+     * so memory use does not grow with the table.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Product> consumer) {
+        try (Stream<Product> products = productRepository.streamAllOrderById()) {
+            products.forEach(product -> {
+                consumer.accept(product);
+                entityManager.detach(product);
+            });
+        }
+    }
+
+    /*
+     * Narrowed reads select only the requested columns as scalars. The rows are
+     * never managed entities, so they skip the persistence context and dirty
+     * checking as well. Reads of every field take the entity paths above.
+     */
+
+    @Override
+    public List<Product> findAllById(Collection<Long> ids, Set<ProductField> fields) {
+        if (fields.equals(ProductField.ALL)) {
+            return findAllById(ids);
+        }
+        return query(fields, "where p.id in :ids").setParameter("ids", ids).getResultStream()
+                .map(row -> toProduct(fields, row))
+                .toList();
+    }
+
+    @Override
+    public List<Product> findAll(Set<ProductField> fields) {
+        if (fields.equals(ProductField.ALL)) {
+            return findAll();
+        }
+        return query(fields, "").getResultStream().map(row -> toProduct(fields, row)).toList();
+    }
+
+    @Override
+    public List<Product> findPage(Long after, int limit, Set<ProductField> fields) {
+        if (fields.equals(ProductField.ALL)) {
+            return findPage(after, limit);
+        }
+        return query(fields, "where p.id > :after order by p.id")
+                .setParameter("after", after)
+                .setMaxResults(limit)
+                .getResultStream()
+                .map(row -> toProduct(fields, row))
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAll(Set<ProductField> fields, Consumer<Product> consumer) {
+        if (fields.equals(ProductField.ALL)) {
+            streamAll(consumer);
+            return;
+        }
+        try (Stream<Object[]> rows = query(fields, "order by p.id")
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 500)
+                .getResultStream()) {
+            rows.forEach(row -> consumer.accept(toProduct(fields, row)));
+        }
+    }
+
+    // Field names come from the enum, never from the request
+    private TypedQuery<Object[]> query(Set<ProductField> fields, String clauses) {
+        String columns = fields.stream().sorted().map(field -> "p." + field.property()).collect(Collectors.joining(", "));
+        return entityManager.createQuery("select " + columns + " from Product p " + clauses, Object[].class);
+    }
+
+    private static Product toProduct(Set<ProductField> fields, Object[] row) {
+        Product product = new Product();
+        int column = 0;
+        for (ProductField field : ProductField.values()) {
+            if (fields.contains(field)) {
+                field.set(product, row[column++]);
+            }
+        }
+        return product;
+    }
+
+    @Override
+    public void save(Product product) {
+        productRepository.save(product);
+    }
+
+    @Override
+    public void saveAll(Collection<Product> products) {
+        productRepository.saveAll(products);
+    }
+
+    // Ids are assigned, so save would merge, selecting each row first; persist goes straight to the batched insert
+    @Override
+    @Transactional
+    public void insertAll(Collection<Product> products) {
+        products.forEach(entityManager::persist);
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        productRepository.deleteById(id);
+    }
+
+    @Override
+    public void deleteAllById(Collection<Long> ids) {
+        productRepository.deleteAllByIdInBatch(ids);
+    }
+
+    @Override
+    public boolean upsertIfNewer(Product product) {
+        return productRepository.upsertIfNewer(product.getId(), product.getName(), product.getDescription(), product.getPrice(),
+                product.getQuantity(), product.getCreatedAt(), product.getUpdatedAt(), product.getVersion()) > 0;
+    }
+
+    // The tombstone goes first, so an upsert racing with the delete either waits for it or is deleted by it
+    @Override
+    @Transactional
+    public void deleteIfOlder(Long id, long version) {
+        tombstoneRepository.record(id, version);
+        productRepository.deleteIfOlder(id, version);
+    }
+
+    @Override
+    public boolean isDurable() {
+        return true;
+    }
+}
@@ -0,0 +1,161 @@
+package com.yeshwanth.pqm.store;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.Consumer;
+
+/**
+ * Open-addressing hash map from primitive {@code long} product ids to
+ * {@link ProductRecord}s, with linear probing over a single reference array. The
+ * key lives inside the record, so there is no boxed {@code Long} and no entry
+ * object per product.
+ *
+ * <p>Writers serialize on the map's monitor; readers never lock. A slot only ever
+ * goes from empty to a record, from a record to a newer record or a tombstone, or
+ * from a tombstone to a record, and every slot write is a release store read back
+ * with an acquire load, so a probe sequence is always terminated by an empty slot
+ * and a reader sees either the old or the new record. Growth and tombstone cleanup
+ * copy into a fresh table that is published through a volatile field; readers
+ * already probing the previous table finish against it.
+ */
+public final class LongProductMap {
+
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(ProductRecord[].class);
+    private static final ProductRecord TOMBSTONE = new ProductRecord(Long.MIN_VALUE, null, null, null, 0, 0, 0, 0);
+    private static final float MAX_FILL = 0.6f;
+
+    private volatile ProductRecord[] table;
+
+    // Guarded by this
+    private int size;
+    private int tombstones;
+
+    public LongProductMap() {
+        this(1024);
+    }
+
+    public LongProductMap(int expectedSize) {
+        this.table = new ProductRecord[capacityFor(expectedSize)];
+    }
+
+    public ProductRecord get(long id) {
+        ProductRecord[] tab = table;
+        int mask = tab.length - 1;
+        for (int i = indexFor(id, mask); ; i = (i + 1) & mask) {
+            ProductRecord record = (ProductRecord) SLOT.getAcquire(tab, i);
+            if (record == null) {
+                return null;
+            }
+            if (record != TOMBSTONE && record.id() == id) {
+                return record;
+            }
+        }
+    }
+
+    public synchronized void put(ProductRecord record) {
+        ProductRecord[] tab = table;
+        int mask = tab.length - 1;
+        int firstTombstone = -1;
+        for (int i = indexFor(record.id(), mask); ; i = (i + 1) & mask) {
+            ProductRecord current = tab[i];
+            if (current == null) {
+                if (firstTombstone >= 0) {
+                    SLOT.setRelease(tab, firstTombstone, record);
+                    tombstones--;
+                } else {
+                    SLOT.setRelease(tab, i, record);
+                }
+                size++;
+                break;
+            }
+            if (current == TOMBSTONE) {
+                if (firstTombstone < 0) {
+                    firstTombstone = i;
+                }
+            } else if (current.id() == record.id()) {
+                SLOT.setRelease(tab, i, record);
+                return;
+            }
+        }
+        if (size + tombstones > tab.length * MAX_FILL) {
+            rehash();
+        }
+    }
+
+    public synchronized boolean remove(long id) {
+        ProductRecord[] tab = table;
+        int mask = tab.length - 1;
+        for (int i = indexFor(id, mask); ; i = (i + 1) & mask) {
+            ProductRecord current = tab[i];
+            if (current == null) {
+                return false;
+            }
+            if (current != TOMBSTONE && current.id() == id) {
+                SLOT.setRelease(tab, i, TOMBSTONE);
+                size--;
+                tombstones++;
+                return true;
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Visits the records of the current table in slot order. Lock-free like
+     * {@link #get}; records written during the walk may or may not be seen.
+     */
+    public void forEach(Consumer<ProductRecord> action) {
+        ProductRecord[] tab = table;
+        for (int i = 0; i < tab.length; i++) {
+            ProductRecord record = (ProductRecord) SLOT.getAcquire(tab, i);
+            if (record != null && record != TOMBSTONE) {
+                action.accept(record);
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        table = new ProductRecord[table.length];
+        size = 0;
+        tombstones = 0;
+    }
+
+    // Caller holds the monitor. Doubles while live records need the room, otherwise just drops tombstones.
+    private void rehash() {
+        ProductRecord[] old = table;
+        int capacity = size > old.length * MAX_FILL / 2 ? old.length * 2 : old.length;
+        ProductRecord[] fresh = new ProductRecord[capacity];
+        int mask = capacity - 1;
+        for (ProductRecord record : old) {
+            if (record == null || record == TOMBSTONE) {
+                continue;
+            }
+            int i = indexFor(record.id(), mask);
+            while (fresh[i] != null) {
+                i = (i + 1) & mask;
+            }
+            fresh[i] = record;
+        }
+        tombstones = 0;
+        table = fresh;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / MAX_FILL)) - 1) << 1;
+        return Math.max(capacity, 16);
+    }
+
+    // Sequential ids would cluster under linear probing, so scramble them first (murmur3 finalizer)
+    private static int indexFor(long id, int mask) {
+        long h = id;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+}
@@ -0,0 +1,90 @@
+package com.yeshwanth.pqm.store;
+
+import com.yeshwanth.pqm.model.Product;
+import com.yeshwanth.pqm.model.ProductField;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Where the query-side projection lives. The projection service writes through it
+ * and {@link com.yeshwanth.pqm.service.ProductService} reads from it.
+ * Selected with {@code pqm.store}: {@code jpa} (default) keeps the projection in
+ * product_query, {@code memory} keeps it on the heap.
+ *
+ * <p>Products returned by a store are the caller's to modify; changes only take
+ * effect when passed back to {@link #save} or {@link #saveAll}.
+ *
+ * <p>The reads that take a set of {@link ProductField}s only need to fill those
+ * fields, and the JPA store selects just their columns. Products read that way
+ * are for serializing, not for saving back.
+ *
+ * @see com.yeshwanth.pqm.service.ProductProjectionService
+ */
+public interface ProductProjectionStore {
+
+    Optional<Product> findById(Long id);
+
+    List<Product> findAllById(Collection<Long> ids);
+
+    List<Product> findAll();
+
+    // Up to limit products with an id greater than after, in id order
+    List<Product> findPage(Long after, int limit);
+
+    // Hands every product to the consumer in id order without holding the whole table
+    void streamAll(Consumer<Product> consumer);
+
+    default List<Product> findAllById(Collection<Long> ids, Set<ProductField> fields) {
+        return findAllById(ids);
+    }
+
+    default List<Product> findAll(Set<ProductField> fields) {
+        return findAll();
+    }
+
+    default List<Product> findPage(Long after, int limit, Set<ProductField> fields) {
+        return findPage(after, limit);
+    }
+
+    default void streamAll(Set<ProductField> fields, Consumer<Product> consumer) {
+        streamAll(consumer);
+    }
+
+    void save(Product product);
+
+    void saveAll(Collection<Product> products);
+
+    /**
+     * Writes products the caller has just found missing from the store. Unlike
+     * {@link #saveAll}, the JPA store does not read each row first to decide
+     * between insert and update; a product that exists after all fails the write.
+     */
+    void insertAll(Collection<Product> products);
+
+    void deleteById(Long id);
+
+    void deleteAllById(Collection<Long> ids);
+
+    /**
+     * Inserts or replaces the product in a single step unless the stored product
+     * already has the same or a newer version, or was deleted at the same or a
+     * newer version, so stale and redelivered events are dropped without reading
+     * the row first. The product's version must be set. Returns false when nothing
+     * was written, always so for a deleted product; a stale event may still count
+     * as written where the driver reports matched rather than changed rows.
+     */
+    boolean upsertIfNewer(Product product);
+
+    /**
+     * Deletes the product unless it has been changed at or after the given version,
+     * and keeps a tombstone at that version for {@link #upsertIfNewer} to check.
+     */
+    void deleteIfOlder(Long id, long version);
+
+    // False when the projection does not survive a restart and has to be rebuilt from the topic
+    boolean isDurable();
+}
@@ -0,0 +1,53 @@
+package com.yeshwanth.pqm.store;
+
+import com.yeshwanth.pqm.model.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Immutable in-memory form of a projected product. The id, quantity and timestamps
+ * are kept as primitives (timestamps as nanoseconds since the epoch in UTC), which
+ * leaves three references per product instead of the entity's seven boxed fields.
+ */
+public record ProductRecord(long id, String name, String description, BigDecimal price, int quantity,
+                            long createdAt, long updatedAt, long version) {
+
+    private static final int NULL_QUANTITY = Integer.MIN_VALUE;
+    private static final long NULL_TIMESTAMP = Long.MIN_VALUE;
+    private static final long NULL_VERSION = Long.MIN_VALUE;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    public static ProductRecord of(Product product) {
+        return new ProductRecord(product.getId(), product.getName(), product.getDescription(), product.getPrice(),
+                product.getQuantity() != null ? product.getQuantity() : NULL_QUANTITY,
+                encode(product.getCreatedAt()), encode(product.getUpdatedAt()),
+                product.getVersion() != null ? product.getVersion() : NULL_VERSION);
+    }
+
+    public Product toProduct() {
+        return new Product(id, name, description, price, quantity != NULL_QUANTITY ? quantity : null,
+                decode(createdAt), decode(updatedAt), version != NULL_VERSION ? version : null);
+    }
+
+    // Unversioned records (from events produced before versioning) are older than any versioned change
+    public boolean isOlderThan(long incomingVersion) {
+        return version == NULL_VERSION || version < incomingVersion;
+    }
+
+    private static long encode(LocalDateTime timestamp) {
+        if (timestamp == null) {
+            return NULL_TIMESTAMP;
+        }
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * NANOS_PER_SECOND + timestamp.getNano();
+    }
+
+    private static LocalDateTime decode(long timestamp) {
+        if (timestamp == NULL_TIMESTAMP) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(timestamp, NANOS_PER_SECOND),
+                (int) Math.floorMod(timestamp, NANOS_PER_SECOND), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,191 @@
+package com.yeshwanth.pqm.store;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Binary snapshot of the in-memory projection together with the topic offsets it
+ * covers. Files are written through a memory mapping of the exact encoded size and
+ * moved into place atomically, and read back straight from a read-only mapping.
+ *
+ * <pre>
+ * header   int magic, int version, int partitionCount, (int partition, long nextOffset)*, int productCount
+ * product  long id, int quantity, long createdAt, long updatedAt, long version, price, string name, string description
+ * price    byte 0 + int scale + long unscaled, or byte 1 + int scale + int length + bytes (BigInteger), or byte -1 (null)
+ * string   int length (-1 for null) + UTF-8 bytes
+ * </pre>
+ */
+public final class ProductSnapshotFile {
+
+    private static final int MAGIC = 0x50515331; // "PQS1"
+    private static final int VERSION = 2;
+
+    private static final byte PRICE_LONG = 0;
+    private static final byte PRICE_BIG = 1;
+    private static final byte PRICE_NULL = -1;
+
+    private ProductSnapshotFile() {
+    }
+
+    /**
+     * Snapshot header: the next offset to read per partition once the products of
+     * the snapshot are loaded.
+     */
+    public record Offsets(Map<Integer, Long> nextOffsets, int productCount) {
+    }
+
+    public static void write(Path path, Map<Integer, Long> nextOffsets, List<ProductRecord> products) throws IOException {
+        long size = 4 + 4 + 4 + nextOffsets.size() * 12L + 4;
+        for (ProductRecord product : products) {
+            size += sizeOf(product);
+        }
+
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(nextOffsets.size());
+            nextOffsets.forEach((partition, offset) -> buffer.putInt(partition).putLong(offset));
+            buffer.putInt(products.size());
+            for (ProductRecord product : products) {
+                writeProduct(buffer, product);
+            }
+            buffer.force();
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static Offsets read(Path path, Consumer<ProductRecord> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a product snapshot: " + path);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported product snapshot version " + version + ": " + path);
+            }
+
+            int partitions = buffer.getInt();
+            Map<Integer, Long> nextOffsets = new HashMap<>();
+            for (int i = 0; i < partitions; i++) {
+                nextOffsets.put(buffer.getInt(), buffer.getLong());
+            }
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                sink.accept(readProduct(buffer));
+            }
+            return new Offsets(nextOffsets, count);
+        }
+    }
+
+    private static void writeProduct(ByteBuffer buffer, ProductRecord product) {
+        buffer.putLong(product.id())
+                .putInt(product.quantity())
+                .putLong(product.createdAt())
+                .putLong(product.updatedAt())
+                .putLong(product.version());
+        BigDecimal price = product.price();
+        if (price == null) {
+            buffer.put(PRICE_NULL);
+        } else if (price.unscaledValue().bitLength() < 64) {
+            buffer.put(PRICE_LONG).putInt(price.scale()).putLong(price.unscaledValue().longValue());
+        } else {
+            byte[] unscaled = price.unscaledValue().toByteArray();
+            buffer.put(PRICE_BIG).putInt(price.scale()).putInt(unscaled.length).put(unscaled);
+        }
+        writeString(buffer, product.name());
+        writeString(buffer, product.description());
+    }
+
+    private static ProductRecord readProduct(ByteBuffer buffer) {
+        long id = buffer.getLong();
+        int quantity = buffer.getInt();
+        long createdAt = buffer.getLong();
+        long updatedAt = buffer.getLong();
+        long version = buffer.getLong();
+        BigDecimal price = switch (buffer.get()) {
+            case PRICE_LONG -> {
+                int scale = buffer.getInt();
+                yield BigDecimal.valueOf(buffer.getLong(), scale);
+            }
+            case PRICE_BIG -> {
+                int scale = buffer.getInt();
+                byte[] unscaled = new byte[buffer.getInt()];
+                buffer.get(unscaled);
+                yield new BigDecimal(new BigInteger(unscaled), scale);
+            }
+            default -> null;
+        };
+        String name = readString(buffer);
+        String description = readString(buffer);
+        return new ProductRecord(id, name, description, price, quantity, createdAt, updatedAt, version);
+    }
+
+    private static void writeString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long sizeOf(ProductRecord product) {
+        long size = 8 + 4 + 8 + 8 + 8 + 1;
+        BigDecimal price = product.price();
+        if (price != null) {
+            size += price.unscaledValue().bitLength() < 64 ? 4 + 8 : 4 + 4 + price.unscaledValue().toByteArray().length;
+        }
+        return size + sizeOf(product.name()) + sizeOf(product.description());
+    }
+
+    private static long sizeOf(String value) {
+        return 4 + (value != null ? utf8Length(value) : 0);
+    }
+
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // unpaired surrogates are encoded as '?'
+                length += 1;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
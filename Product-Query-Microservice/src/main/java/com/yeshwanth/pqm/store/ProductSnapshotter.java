@@ -0,0 +1,90 @@
+package com.yeshwanth.pqm.store;
+
+import com.yeshwanth.pqm.config.SnapshotProperties;
+import com.yeshwanth.pqm.kafka.ProjectionProgress;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persists the in-memory projection so a restart only replays the tail of
+ * product-event-topic. The snapshot is restored before the listeners start, and
+ * the offsets it covers seed {@link ProjectionProgress} so each partition resumes
+ * right after them. Offsets are captured before the records: every change below
+ * them is already in the store, and anything applied meanwhile is replayed again,
+ * which is harmless because events carry the full product state.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${pqm.snapshot.enabled:false} and '${pqm.store:jpa}' == 'memory'")
+public class ProductSnapshotter implements SchedulingConfigurer {
+
+    private final InMemoryProductProjectionStore productStore;
+    private final ProjectionProgress projectionProgress;
+    private final SnapshotProperties properties;
+
+    public ProductSnapshotter(InMemoryProductProjectionStore productStore,
+                              ProjectionProgress projectionProgress,
+                              SnapshotProperties properties) {
+        this.productStore = productStore;
+        this.projectionProgress = projectionProgress;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void restore() {
+        if (!Files.exists(properties.getPath())) {
+            log.info("No projection snapshot at {}, rebuilding from the topic", properties.getPath());
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            ProductSnapshotFile.Offsets offsets = ProductSnapshotFile.read(properties.getPath(), productStore::putRecord);
+            offsets.nextOffsets().forEach(projectionProgress::markPosition);
+            log.info("Restored {} products from {} in {} ms, resuming at {}",
+                    offsets.productCount(), properties.getPath(), (System.nanoTime() - start) / 1_000_000, offsets.nextOffsets());
+        } catch (IOException | RuntimeException e) {
+            // A bad snapshot only costs a full replay
+            log.warn("Ignoring unreadable projection snapshot {}", properties.getPath(), e);
+            productStore.clear();
+        }
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.addFixedDelayTask(new FixedDelayTask(this::writeSnapshot, properties.getInterval(), properties.getInterval()));
+    }
+
+    @PreDestroy
+    public void writeFinalSnapshot() {
+        writeSnapshot();
+    }
+
+    public synchronized void writeSnapshot() {
+        Map<Integer, Long> nextOffsets = projectionProgress.nextOffsets();
+        if (nextOffsets.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<ProductRecord> records = new ArrayList<>();
+        productStore.forEachRecord(records::add);
+        try {
+            ProductSnapshotFile.write(properties.getPath(), nextOffsets, records);
+            log.info("Wrote {} products to {} in {} ms at {}",
+                    records.size(), properties.getPath(), (System.nanoTime() - start) / 1_000_000, nextOffsets);
+        } catch (IOException e) {
+            log.error("Failed to write projection snapshot {}", properties.getPath(), e);
+        }
+    }
+}
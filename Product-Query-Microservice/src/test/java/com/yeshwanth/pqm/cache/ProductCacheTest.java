@@ -0,0 +1,74 @@
+package com.yeshwanth.pqm.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yeshwanth.pqm.config.JacksonConfig;
+import com.yeshwanth.pqm.config.ProductCacheProperties;
+import com.yeshwanth.pqm.model.Product;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductCacheTest {
+
+    private final ProductCache cache = new ProductCache(new ProductCacheProperties(), new SimpleMeterRegistry(),
+            JacksonConfig.addProductFieldsFilter(new ObjectMapper().findAndRegisterModules()));
+
+    @Test
+    void rowsOlderThanAChangeSeenOnTheTopicAreNotKept() {
+        AtomicInteger loads = new AtomicInteger();
+        // The replica that owns the partition has not written version 1 yet
+        cache.changed(product(1L, "renamed", 1L));
+
+        assertThat(cache.get(1L, id -> load(loads, product(id, "original", 0L)))).get()
+                .extracting(Product::getVersion).isEqualTo(0L);
+        assertThat(cache.get(1L, id -> load(loads, product(id, "original", 0L)))).isPresent();
+        assertThat(loads).hasValue(2);
+
+        // Written now: cached from here on
+        assertThat(cache.get(1L, id -> load(loads, product(id, "renamed", 1L)))).get()
+                .extracting(Product::getVersion).isEqualTo(1L);
+        assertThat(cache.get(1L, id -> load(loads, product(id, "renamed", 1L)))).isPresent();
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void rowsOlderThanADeleteSeenOnTheTopicAreNotKept() {
+        AtomicInteger loads = new AtomicInteger();
+        assertThat(cache.get(1L, id -> load(loads, product(id, "desk", 0L)))).isPresent();
+
+        cache.deleted(1L, 1L);
+        cache.get(1L, id -> load(loads, product(id, "desk", 0L)));
+        cache.get(1L, id -> load(loads, product(id, "desk", 0L)));
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void changesRefreshCachedEntries() {
+        cache.get(1L, id -> Optional.of(product(id, "desk", 0L)));
+
+        cache.changed(product(1L, "standing desk", 1L));
+        cache.changed(product(1L, "desk", 0L));
+
+        CachedProduct cached = cache.getSerialized(1L, id -> Optional.empty()).orElseThrow();
+        assertThat(cached.product().getName()).isEqualTo("standing desk");
+        assertThat(cached.etag()).isEqualTo("\"1\"");
+        assertThat(new String(cached.json(), StandardCharsets.UTF_8)).contains("\"standing desk\"");
+    }
+
+    private static Optional<Product> load(AtomicInteger loads, Product product) {
+        loads.incrementAndGet();
+        return Optional.of(product);
+    }
+
+    private static Product product(Long id, String name, Long version) {
+        LocalDateTime now = LocalDateTime.now();
+        return new Product(id, name, null, BigDecimal.TEN, 1, now, now, version);
+    }
+}
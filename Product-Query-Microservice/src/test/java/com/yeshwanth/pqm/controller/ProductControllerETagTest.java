@@ -0,0 +1,167 @@
+package com.yeshwanth.pqm.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yeshwanth.pqm.cache.ProductCache;
+import com.yeshwanth.pqm.config.ConsistencyProperties;
+import com.yeshwanth.pqm.config.JacksonConfig;
+import com.yeshwanth.pqm.exception.GlobalExceptionHandler;
+import com.yeshwanth.pqm.config.ProductCacheProperties;
+import com.yeshwanth.pqm.index.ProductSearchIndex;
+import com.yeshwanth.pqm.model.Product;
+import com.yeshwanth.pqm.service.ProductChangeNotifier;
+import com.yeshwanth.pqm.service.ProductService;
+import com.yeshwanth.pqm.store.ProductProjectionStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ProductControllerETagTest {
+
+    private ProductProjectionStore store;
+    private ObjectMapper objectMapper;
+    private ProductCache cache;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        store = mock(ProductProjectionStore.class);
+        objectMapper = spy(JacksonConfig.addProductFieldsFilter(new ObjectMapper().findAndRegisterModules()));
+        cache = new ProductCache(new ProductCacheProperties(), new SimpleMeterRegistry(), objectMapper);
+        ConsistencyProperties consistency = new ConsistencyProperties();
+        ProductService service = new ProductService(store, cache, new ProductSearchIndex(store),
+                new ProductChangeNotifier(consistency), consistency, Runnable::run);
+        mockMvc = MockMvcBuilders.standaloneSetup(new ProductController(service, objectMapper))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .setMessageConverters(new ByteArrayHttpMessageConverter(), new MappingJackson2HttpMessageConverter(objectMapper))
+                .build();
+    }
+
+    @Test
+    void servesCachedBytesAndAnswersMatchingETagWith304() throws Exception {
+        when(store.findById(1L)).thenReturn(Optional.of(product(3L, "Desk")));
+
+        mockMvc.perform(get("/api/products/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(jsonPath("$.name").value("Desk"));
+        mockMvc.perform(get("/api/products/1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/products/1"))
+                .andExpect(status().isOk());
+
+        verify(objectMapper, times(1)).writeValueAsBytes(any());
+    }
+
+    @Test
+    void appliedChangeReplacesBodyAndETag() throws Exception {
+        when(store.findById(1L)).thenReturn(Optional.of(product(3L, "Desk")));
+        mockMvc.perform(get("/api/products/1")).andExpect(status().isOk());
+
+        cache.refreshIfPresent(product(4L, "Standing Desk"));
+
+        mockMvc.perform(get("/api/products/1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(jsonPath("$.name").value("Standing Desk"));
+    }
+
+    @Test
+    void fieldsNarrowTheBodyAndTheETag() throws Exception {
+        when(store.findById(1L)).thenReturn(Optional.of(product(3L, "Desk")));
+
+        mockMvc.perform(get("/api/products/1").param("fields", "price,name"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3;id+name+price\""))
+                .andExpect(jsonPath("$.name").value("Desk"))
+                .andExpect(jsonPath("$.price").value(10))
+                .andExpect(jsonPath("$.description").doesNotExist())
+                .andExpect(jsonPath("$.version").doesNotExist());
+        mockMvc.perform(get("/api/products/1").param("fields", "name,price")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3;id+name+price\""))
+                .andExpect(status().isNotModified());
+        // The whole product's ETag does not match a narrowed one, nor the other way round
+        mockMvc.perform(get("/api/products/1").param("fields", "name")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3;id+name+price\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3;id+name\""));
+        mockMvc.perform(get("/api/products/1").header(HttpHeaders.IF_NONE_MATCH, "\"3;id+name+price\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.description").value(""));
+    }
+
+    @Test
+    void minVersionReadsShareTheFieldsAndETagOfThePlainRead() throws Exception {
+        when(store.findById(1L)).thenReturn(Optional.of(product(3L, "Desk")));
+
+        MvcResult whole = mockMvc.perform(get("/api/products/1").param("minVersion", "3")).andReturn();
+        mockMvc.perform(asyncDispatch(whole))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(header().string(ProductController.MIN_VERSION_MET_HEADER, "true"))
+                .andExpect(jsonPath("$.name").value("Desk"));
+
+        MvcResult narrowed = mockMvc.perform(get("/api/products/1").param("minVersion", "3")
+                .param("fields", "price,name")).andReturn();
+        mockMvc.perform(asyncDispatch(narrowed))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3;id+name+price\""))
+                .andExpect(jsonPath("$.price").value(10))
+                .andExpect(jsonPath("$.description").doesNotExist());
+
+        MvcResult revalidated = mockMvc.perform(get("/api/products/1").param("minVersion", "3")
+                .param("fields", "name,price").header(HttpHeaders.IF_NONE_MATCH, "\"3;id+name+price\"")).andReturn();
+        mockMvc.perform(asyncDispatch(revalidated))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3;id+name+price\""))
+                .andExpect(header().string(ProductController.MIN_VERSION_MET_HEADER, "true"))
+                .andExpect(content().string(""));
+
+        // The whole body is the cached bytes, serialized once for both kinds of read
+        mockMvc.perform(get("/api/products/1")).andExpect(status().isOk());
+        verify(objectMapper, times(1)).writeValueAsBytes(any());
+    }
+
+    @Test
+    void listsOnlyWriteTheRequestedFields() throws Exception {
+        when(store.findAll(any())).thenReturn(List.of(product(3L, "Desk")));
+
+        mockMvc.perform(get("/api/products").param("fields", "quantity"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].quantity").value(1))
+                .andExpect(jsonPath("$[0].name").doesNotExist());
+        mockMvc.perform(get("/api/products").param("fields", "colour"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static Product product(Long version, String name) {
+        LocalDateTime now = LocalDateTime.now();
+        return new Product(1L, name, "", BigDecimal.TEN, 1, now, now, version);
+    }
+}
@@ -0,0 +1,181 @@
+package com.yeshwanth.pqm.controller;
+
+import com.yeshwanth.pqm.ProductQueryMicroserviceApplication;
+import com.yeshwanth.pqm.model.Product;
+import com.yeshwanth.pqm.store.ProductProjectionStore;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Drives keyset page reads through HTTP with many concurrent clients, once on
+ * platform threads and once with the virtual-threads profile, and prints
+ * requests per second and p99 latency for both. Both runs get the same limit on
+ * concurrent database work: the {@value #POOL_SIZE} connections the profile ships,
+ * with a connection timeout long enough that no request fails while queueing.
+ * Tomcat keeps its default 200 threads, which only the platform run is bound by,
+ * so the thread model is the one difference. Every statement waits
+ * {@value #STATEMENT_LATENCY_MS} ms to stand in for the MySQL round trip, which
+ * H2 in memory does not have. Needs Java 21; run with
+ * {@code mvn test -Pbenchmark,java21}.
+ */
+@Tag("benchmark")
+class VirtualThreadsBenchmarkTest {
+
+    private static final int PRODUCTS = 10_000;
+    private static final int CLIENTS = 400;
+    private static final int WARMUP_REQUESTS = 4_000;
+    private static final int REQUESTS = 40_000;
+    private static final long STATEMENT_LATENCY_MS = 5;
+    // maximum-pool-size in application-virtual-threads.yml
+    private static final int POOL_SIZE = 20;
+
+    @Test
+    void virtualThreadsServeMoreConcurrentBlockingReads() throws Exception {
+        assumeTrue(Runtime.version().feature() >= 21, "Virtual threads need Java 21");
+
+        Run platform = run(false);
+        Run virtual = run(true);
+
+        System.out.printf("Page reads with %d clients: platform=%.0f req/s (p99 %.1f ms), "
+                        + "virtual=%.0f req/s (p99 %.1f ms), %.1fx throughput%n",
+                CLIENTS, platform.requestsPerSecond(), platform.p99Millis(),
+                virtual.requestsPerSecond(), virtual.p99Millis(),
+                virtual.requestsPerSecond() / platform.requestsPerSecond());
+    }
+
+    private Run run(boolean virtualThreads) throws Exception {
+        String[] args = {
+                "--spring.profiles.active=" + (virtualThreads ? "virtual-threads" : "default"),
+                "--spring.datasource.url=jdbc:h2:mem:virtual-threads-" + virtualThreads + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                "--spring.datasource.hikari.minimum-idle=" + POOL_SIZE,
+                "--spring.datasource.hikari.connection-timeout=30000",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--spring.kafka.listener.auto-startup=false",
+                "--server.port=0",
+                "--logging.level.com.yeshwanth.pqm=WARN"
+        };
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ProductQueryMicroserviceApplication.class)
+                .initializers(applicationContext -> applicationContext.getBeanFactory()
+                        .addBeanPostProcessor(new StatementLatency()))
+                .run(args)) {
+            seed(context.getBean(ProductProjectionStore.class));
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+            load(port, WARMUP_REQUESTS);
+            long start = System.nanoTime();
+            long[] latencies = load(port, REQUESTS);
+            long elapsed = System.nanoTime() - start;
+
+            Arrays.sort(latencies);
+            return new Run(REQUESTS / (elapsed / 1_000_000_000.0),
+                    latencies[(int) (latencies.length * 0.99)] / 1_000_000.0);
+        }
+    }
+
+    private static long[] load(int port, int requests) throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                futures.add(clients.submit(() -> {
+                    long[] latencies = new long[requests / CLIENTS];
+                    for (int i = 0; i < latencies.length; i++) {
+                        long after = ThreadLocalRandom.current().nextLong(PRODUCTS - 100);
+                        HttpRequest request = HttpRequest.newBuilder(
+                                URI.create("http://localhost:" + port + "/api/products?limit=20&after=" + after)).build();
+                        long started = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        latencies[i] = System.nanoTime() - started;
+                        assertThat(response.statusCode()).isEqualTo(200);
+                    }
+                    return latencies;
+                }));
+            }
+            long[] all = new long[0];
+            for (Future<long[]> future : futures) {
+                long[] latencies = future.get();
+                int offset = all.length;
+                all = Arrays.copyOf(all, offset + latencies.length);
+                System.arraycopy(latencies, 0, all, offset, latencies.length);
+            }
+            return all;
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    private static void seed(ProductProjectionStore productStore) {
+        LocalDateTime now = LocalDateTime.now();
+        for (long id = 1; id <= PRODUCTS; id++) {
+            productStore.upsertIfNewer(new Product(id, "product-" + id, null, BigDecimal.TEN, 1, now, now, 0L));
+        }
+    }
+
+    /**
+     * Wraps the data source so each prepared statement holds its connection for
+     * the simulated round trip before running.
+     */
+    private static class StatementLatency implements BeanPostProcessor {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource)) {
+                return bean;
+            }
+            return new DelegatingDataSource(dataSource) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    Connection connection = super.getConnection();
+                    return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                            new Class<?>[]{Connection.class}, (proxy, method, methodArgs) -> {
+                                if (method.getName().equals("prepareStatement")) {
+                                    Thread.sleep(STATEMENT_LATENCY_MS);
+                                }
+                                try {
+                                    return method.invoke(connection, methodArgs);
+                                } catch (InvocationTargetException e) {
+                                    throw e.getCause();
+                                }
+                            });
+                }
+            };
+        }
+    }
+
+    private record Run(double requestsPerSecond, double p99Millis) {
+    }
+}
@@ -0,0 +1,132 @@
+package com.yeshwanth.pqm.index;
+
+import com.yeshwanth.pqm.config.InventoryProperties;
+import com.yeshwanth.pqm.dto.InventoryStats;
+import com.yeshwanth.pqm.dto.LowStockProduct;
+import com.yeshwanth.pqm.model.Product;
+import com.yeshwanth.pqm.store.ProductProjectionStore;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class InventoryAggregatesTest {
+
+    private final ProductProjectionStore store = mock(ProductProjectionStore.class);
+    private final InventoryAggregates inventory = new InventoryAggregates(store, properties());
+
+    @Test
+    void totalsFollowCreatesUpdatesAndDeletes() {
+        inventory.put(product(1L, "10.00", 5, 1L));
+        inventory.put(product(2L, "2.50", 100, 1L));
+        inventory.put(product(3L, "7", 1, 1L));
+
+        InventoryStats stats = inventory.stats();
+        assertThat(stats.getProductCount()).isEqualTo(3);
+        assertThat(stats.getTotalQuantity()).isEqualTo(106);
+        assertThat(stats.getTotalStockValue()).isEqualByComparingTo("307");
+        assertThat(stats.getMinPrice()).isEqualByComparingTo("2.50");
+        assertThat(stats.getMaxPrice()).isEqualByComparingTo("10");
+        assertThat(stats.getAveragePrice()).isEqualByComparingTo("6.50");
+        assertThat(stats.getLowStock()).extracting(LowStockProduct::getId).containsExactly(3L, 1L);
+
+        inventory.put(product(1L, "1.00", 50, 2L));
+        inventory.remove(2L, 2L);
+
+        stats = inventory.stats();
+        assertThat(stats.getProductCount()).isEqualTo(2);
+        assertThat(stats.getTotalQuantity()).isEqualTo(51);
+        assertThat(stats.getTotalStockValue()).isEqualByComparingTo("57");
+        assertThat(stats.getMinPrice()).isEqualByComparingTo("1");
+        assertThat(stats.getMaxPrice()).isEqualByComparingTo("7");
+        assertThat(stats.getLowStockCount()).isEqualTo(1);
+    }
+
+    @Test
+    void staleChangesAreIgnored() {
+        inventory.put(product(1L, "10", 5, 3L));
+        inventory.put(product(1L, "99", 500, 2L));
+        inventory.remove(1L, 3L);
+
+        InventoryStats stats = inventory.stats();
+        assertThat(stats.getProductCount()).isEqualTo(1);
+        assertThat(stats.getTotalQuantity()).isEqualTo(5);
+        assertThat(stats.getMaxPrice()).isEqualByComparingTo("10");
+    }
+
+    @Test
+    void stockChangesMoveProductsInAndOutOfLowStock() {
+        inventory.put(product(1L, "4", 20, 1L));
+        inventory.put(product(2L, "4", 8, 1L));
+
+        inventory.put(product(1L, "4", 5, 2L));
+        assertThat(inventory.stats().getLowStock())
+                .containsExactly(new LowStockProduct(1L, 5), new LowStockProduct(2L, 8));
+        assertThat(inventory.stats().getTotalStockValue()).isEqualByComparingTo("52");
+
+        inventory.put(product(2L, "4", 18, 2L));
+        InventoryStats stats = inventory.stats();
+        assertThat(stats.getLowStock()).containsExactly(new LowStockProduct(1L, 5));
+        assertThat(stats.getTotalQuantity()).isEqualTo(23);
+    }
+
+    @Test
+    void lowStockListIsCappedButCountIsNot() {
+        for (long id = 1; id <= 5; id++) {
+            inventory.put(product(id, "1", (int) (10 - id), 1L));
+        }
+
+        InventoryStats stats = inventory.stats();
+        assertThat(stats.getLowStockCount()).isEqualTo(5);
+        assertThat(stats.getLowStock()).extracting(LowStockProduct::getId).containsExactly(5L, 4L, 3L);
+    }
+
+    @Test
+    void emptyInventoryHasNoPriceStatistics() {
+        InventoryStats stats = inventory.stats();
+        assertThat(stats.getProductCount()).isZero();
+        assertThat(stats.getTotalStockValue()).isEqualByComparingTo("0");
+        assertThat(stats.getMinPrice()).isNull();
+        assertThat(stats.getAveragePrice()).isNull();
+        assertThat(stats.getLowStock()).isEmpty();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reconcileRecountsFromTheStore() {
+        inventory.put(product(1L, "10", 5, 1L));
+        inventory.put(product(2L, "10", 5, 1L)); // deleted from the table behind the totals' back
+        List<Product> rows = List.of(product(1L, "10", 7, 2L), product(3L, "20", 1, 1L));
+        doAnswer(invocation -> {
+            rows.forEach(invocation.<Consumer<Product>>getArgument(0));
+            return null;
+        }).when(store).streamAll(any(Consumer.class));
+
+        InventoryStats stats = inventory.reconcile();
+
+        assertThat(stats.getProductCount()).isEqualTo(2);
+        assertThat(stats.getTotalQuantity()).isEqualTo(8);
+        assertThat(stats.getTotalStockValue()).isEqualByComparingTo("90");
+        assertThat(stats.getAveragePrice()).isEqualByComparingTo("15.00");
+        assertThat(stats.getLowStock()).containsExactly(new LowStockProduct(3L, 1), new LowStockProduct(1L, 7));
+    }
+
+    private static InventoryProperties properties() {
+        InventoryProperties properties = new InventoryProperties();
+        properties.setLowStockThreshold(10);
+        properties.setLowStockListSize(3);
+        return properties;
+    }
+
+    private static Product product(Long id, String price, int quantity, Long version) {
+        LocalDateTime now = LocalDateTime.now();
+        return new Product(id, "p" + id, "", new BigDecimal(price), quantity, now, now, version);
+    }
+}
@@ -0,0 +1,140 @@
+package com.yeshwanth.pqm.index;
+
+import com.yeshwanth.pqm.dto.ProductSearchPage;
+import com.yeshwanth.pqm.model.Product;
+import com.yeshwanth.pqm.model.ProductField;
+import com.yeshwanth.pqm.service.ProductService;
+import com.yeshwanth.pqm.store.JpaProductProjectionStore;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the in-memory price and name-prefix indexes, including the store lookup
+ * of the matching page, with the equivalent SQL on product_query (which has no
+ * secondary indexes). Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:search-benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({JpaProductProjectionStore.class, ProductSearchIndex.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductSearchIndexBenchmarkTest {
+
+    private static final int PRODUCTS = 200_000;
+    private static final int QUERIES = 200;
+    private static final int PAGE_SIZE = 100;
+    private static final String[] WORDS = {"laptop", "lamp", "desk", "chair", "monitor", "mouse", "keyboard", "cable"};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JpaProductProjectionStore store;
+
+    @Autowired
+    private ProductSearchIndex index;
+
+    @Test
+    void indexLookupsAreFasterThanSql() {
+        load();
+        index.start();
+        assertThat(index.size()).isEqualTo(PRODUCTS);
+        ProductService service = new ProductService(store, null, index, null, null, Runnable::run);
+
+        Random random = new Random(42);
+        BigDecimal[] minPrices = new BigDecimal[QUERIES];
+        String[] prefixes = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            minPrices[i] = BigDecimal.valueOf(random.nextInt(900));
+            prefixes[i] = WORDS[random.nextInt(WORDS.length)].substring(0, 3);
+        }
+
+        IntFunction<List<Product>> indexPrice = i -> service.searchByPrice(
+                minPrices[i], minPrices[i].add(BigDecimal.valueOf(40)), null, PAGE_SIZE, ProductField.ALL).getItems();
+        IntFunction<List<Product>> sqlPrice = i -> jdbcTemplate.query(
+                "select * from product_query where price between ? and ? order by price, id limit ?",
+                new BeanPropertyRowMapper<>(Product.class), minPrices[i], minPrices[i].add(BigDecimal.valueOf(40)), PAGE_SIZE);
+        IntFunction<List<Product>> indexName = i -> service.searchByNamePrefix(prefixes[i], null, PAGE_SIZE, ProductField.ALL).getItems();
+        IntFunction<List<Product>> sqlName = i -> jdbcTemplate.query(
+                "select * from product_query where lower(name) like ? order by lower(name), id limit ?",
+                new BeanPropertyRowMapper<>(Product.class), prefixes[i] + "%", PAGE_SIZE);
+
+        for (int i = 0; i < QUERIES; i++) {
+            assertThat(ids(indexPrice.apply(i))).isEqualTo(ids(sqlPrice.apply(i)));
+            assertThat(ids(indexName.apply(i))).isEqualTo(ids(sqlName.apply(i)));
+        }
+
+        double indexPriceMicros = measure(indexPrice);
+        double sqlPriceMicros = measure(sqlPrice);
+        double indexNameMicros = measure(indexName);
+        double sqlNameMicros = measure(sqlName);
+        System.out.printf("Search over %d products, pages of %d: price range index=%.0f us, sql=%.0f us (%.1fx); "
+                        + "name prefix index=%.0f us, sql=%.0f us (%.1fx)%n",
+                PRODUCTS, PAGE_SIZE, indexPriceMicros, sqlPriceMicros, sqlPriceMicros / indexPriceMicros,
+                indexNameMicros, sqlNameMicros, sqlNameMicros / indexNameMicros);
+        assertThat(indexPriceMicros).isLessThan(sqlPriceMicros);
+        assertThat(indexNameMicros).isLessThan(sqlNameMicros);
+    }
+
+    private void load() {
+        Random random = new Random(7);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(10_000);
+        for (long id = 1; id <= PRODUCTS; id++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + id;
+            BigDecimal price = BigDecimal.valueOf(random.nextInt(100_000), 2);
+            batch.add(new Object[]{id, name, "benchmark", price, 1, now, now, 0L});
+            if (batch.size() == 10_000) {
+                insert(batch);
+            }
+        }
+        insert(batch);
+    }
+
+    private void insert(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("insert into product_query "
+                + "(id, name, description, price, quantity, created_at, updated_at, version) values (?, ?, ?, ?, ?, ?, ?, ?)", batch);
+        batch.clear();
+    }
+
+    private static List<Long> ids(List<Product> products) {
+        return products.stream().map(Product::getId).toList();
+    }
+
+    // Mean microseconds per query after a warm-up pass
+    private static double measure(IntFunction<List<Product>> query) {
+        for (int i = 0; i < QUERIES; i++) {
+            query.apply(i);
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            query.apply(i);
+        }
+        return (System.nanoTime() - started) / 1_000.0 / QUERIES;
+    }
+}
@@ -0,0 +1,84 @@
+package com.yeshwanth.pqm.index;
+
+import com.yeshwanth.pqm.model.Product;
+import com.yeshwanth.pqm.store.ProductProjectionStore;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ProductSearchIndexTest {
+
+    private final ProductSearchIndex index = new ProductSearchIndex(mock(ProductProjectionStore.class));
+
+    @Test
+    void priceRangeIsInclusiveAndOrderedByPriceThenId() {
+        index.put(product(1L, "a", "10.00", 0L));
+        index.put(product(2L, "b", "50", 0L));
+        index.put(product(3L, "c", "9.99", 0L));
+        index.put(product(4L, "d", "10", 0L));
+        index.put(product(5L, "e", "50.01", 0L));
+
+        assertThat(ids(index.findByPrice(new BigDecimal("10"), new BigDecimal("50"), null, 10)))
+                .containsExactly(1L, 4L, 2L);
+        assertThat(ids(index.findByPrice(null, new BigDecimal("10"), null, 10)))
+                .containsExactly(3L, 1L, 4L);
+    }
+
+    @Test
+    void pagesResumeAfterTheCursorKey() {
+        for (long id = 1; id <= 10; id++) {
+            index.put(product(id, "p" + id, String.valueOf(id % 3), 0L));
+        }
+
+        List<ProductSearchIndex.PriceKey> first = index.findByPrice(BigDecimal.ONE, null, null, 4);
+        List<ProductSearchIndex.PriceKey> second = index.findByPrice(BigDecimal.ONE, null, first.get(3), 4);
+
+        assertThat(ids(first)).containsExactly(1L, 4L, 7L, 10L);
+        assertThat(ids(second)).containsExactly(2L, 5L, 8L);
+    }
+
+    @Test
+    void namePrefixIgnoresCase() {
+        index.put(product(1L, "Laptop Stand", "1", 0L));
+        index.put(product(2L, "lamp", "1", 0L));
+        index.put(product(3L, "LAPTOP", "1", 0L));
+        index.put(product(4L, "Lap", "1", 0L));
+        index.put(product(5L, "Lapis", "1", 0L));
+
+        assertThat(index.findByNamePrefix("LAPT", null, 10).stream().map(ProductSearchIndex.NameKey::id))
+                .containsExactly(3L, 1L);
+        assertThat(index.findByNamePrefix("lap", null, 10).stream().map(ProductSearchIndex.NameKey::id))
+                .containsExactly(4L, 5L, 3L, 1L);
+    }
+
+    @Test
+    void updatesMoveEntriesAndStaleChangesAreIgnored() {
+        index.put(product(1L, "Desk", "100", 1L));
+        index.put(product(1L, "Chair", "20", 3L));
+        index.put(product(1L, "Stale", "500", 2L));
+
+        assertThat(index.findByPrice(new BigDecimal("100"), null, null, 10)).isEmpty();
+        assertThat(index.findByNamePrefix("desk", null, 10)).isEmpty();
+        assertThat(index.findByNamePrefix("chair", null, 10)).hasSize(1);
+
+        index.remove(1L, 3L);
+        assertThat(index.size()).isEqualTo(1);
+        index.remove(1L, 4L);
+        assertThat(index.size()).isZero();
+        assertThat(index.findByPrice(null, null, null, 10)).isEmpty();
+    }
+
+    private static List<Long> ids(List<ProductSearchIndex.PriceKey> keys) {
+        return keys.stream().map(ProductSearchIndex.PriceKey::id).toList();
+    }
+
+    private static Product product(Long id, String name, String price, Long version) {
+        LocalDateTime now = LocalDateTime.now();
+        return new Product(id, name, "", new BigDecimal(price), 1, now, now, version);
+    }
+}
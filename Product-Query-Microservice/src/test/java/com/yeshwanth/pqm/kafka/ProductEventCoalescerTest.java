@@ -0,0 +1,68 @@
+package com.yeshwanth.pqm.kafka;
+
+import com.yeshwanth.pqm.config.KafkaConfig;
+import com.yeshwanth.pqm.dto.ProductEvent;
+import com.yeshwanth.pqm.dto.ProductState;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductEventCoalescerTest {
+
+    @Test
+    void lastStockAdjustmentReplacesTheStateBeforeIt() {
+        ProductEvent update = new ProductEvent(KafkaConfig.EVENT_UPDATE_PRODUCT,
+                new ProductState(2L, "lamp", null, BigDecimal.TEN, 10, null, null, 3L));
+        ProductEvent last = stock(2L, 5, 5L);
+
+        assertThat(ProductEventCoalescer.coalesce(List.of(update, stock(2L, 6, 4L), last))).containsExactly(last);
+    }
+
+    @Test
+    void laterUpdateReplacesPendingAdjustments() {
+        ProductEvent update = new ProductEvent(KafkaConfig.EVENT_UPDATE_PRODUCT,
+                new ProductState(3L, "chair", null, BigDecimal.ONE, 7, null, null, 6L));
+
+        assertThat(ProductEventCoalescer.coalesce(List.of(stock(3L, 2, 5L), update))).containsExactly(update);
+    }
+
+    @Test
+    void productsCreatedAndDeletedInTheBatchAreDropped() {
+        ProductEvent create = new ProductEvent(KafkaConfig.EVENT_CREATE_PRODUCT,
+                new ProductState(4L, "lamp", null, BigDecimal.TEN, 3, null, null, 0L));
+        ProductEvent delete = new ProductEvent(KafkaConfig.EVENT_DELETE_PRODUCT,
+                new ProductState(4L, null, null, null, null, null, null, 2L));
+
+        assertThat(ProductEventCoalescer.coalesce(List.of(create, stock(4L, 1, 1L), delete))).isEmpty();
+    }
+
+    @Test
+    void conditionalUpdateKeepsTheCreationTimeOfTheCreateBeforeIt() {
+        LocalDateTime created = LocalDateTime.of(2024, 5, 1, 12, 0);
+        ProductEvent create = new ProductEvent(KafkaConfig.EVENT_CREATE_PRODUCT,
+                new ProductState(5L, "lamp", null, BigDecimal.TEN, 3, created, created, 0L));
+        // If-Match updates are published without createdAt
+        ProductEvent update = new ProductEvent(KafkaConfig.EVENT_UPDATE_PRODUCT,
+                new ProductState(5L, "desk lamp", null, BigDecimal.ONE, 3, null, created.plusMinutes(1), 1L));
+
+        List<ProductEvent> coalesced = ProductEventCoalescer.coalesce(List.of(create, update));
+
+        assertThat(coalesced).singleElement().satisfies(event -> {
+            assertThat(event.getEventType()).isEqualTo(KafkaConfig.EVENT_UPDATE_PRODUCT);
+            assertThat(event.getProduct().getName()).isEqualTo("desk lamp");
+            assertThat(event.getProduct().getVersion()).isEqualTo(1L);
+            assertThat(event.getProduct().getCreatedAt()).isEqualTo(created);
+        });
+        assertThat(update.getProduct().getCreatedAt()).isNull();
+    }
+
+    // Stock events carry the whole row after the flush, like an update
+    private static ProductEvent stock(Long id, int quantity, long version) {
+        return new ProductEvent(KafkaConfig.EVENT_STOCK_ADJUSTED,
+                new ProductState(id, "lamp", null, BigDecimal.TEN, quantity, null, null, version));
+    }
+}
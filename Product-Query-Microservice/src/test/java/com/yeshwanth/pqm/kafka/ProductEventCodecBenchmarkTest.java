@@ -0,0 +1,101 @@
+package com.yeshwanth.pqm.kafka;
+
+import com.yeshwanth.pqm.config.KafkaConfig;
+import com.yeshwanth.pqm.dto.ProductEvent;
+import com.yeshwanth.pqm.dto.ProductState;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the binary codec with the JSON serializer/deserializer pair it replaced:
+ * bytes per event on the broker and serialize + deserialize time per event.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class ProductEventCodecBenchmarkTest {
+
+    private static final int EVENTS = 10_000;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 20;
+
+    @Test
+    void binaryCodecIsSmallerAndFasterThanJson() {
+        List<ProductEvent> events = events();
+
+        Serializer<ProductEvent> jsonSerializer = new JsonSerializer<ProductEvent>().noTypeInfo();
+        Deserializer<ProductEvent> jsonDeserializer = new JsonDeserializer<>(ProductEvent.class, false);
+        Serializer<ProductEvent> binarySerializer = (topic, event) -> ProductEventCodec.encode(event);
+        Deserializer<ProductEvent> binaryDeserializer = new ProductEventDeserializer();
+
+        Result json = measure(events, jsonSerializer, jsonDeserializer);
+        Result binary = measure(events, binarySerializer, binaryDeserializer);
+
+        System.out.printf("Product event codec over %d events: json=%.1f bytes, %.0f ns/event; "
+                        + "binary=%.1f bytes (%.0f%%), %.0f ns/event (%.1fx faster)%n",
+                EVENTS, json.bytesPerEvent(), json.nanosPerEvent(),
+                binary.bytesPerEvent(), 100 * binary.bytesPerEvent() / json.bytesPerEvent(),
+                binary.nanosPerEvent(), json.nanosPerEvent() / binary.nanosPerEvent());
+        assertThat(binary.bytesPerEvent()).isLessThan(json.bytesPerEvent());
+        assertThat(binary.nanosPerEvent()).isLessThan(json.nanosPerEvent());
+    }
+
+    private static Result measure(List<ProductEvent> events,
+                                  Serializer<ProductEvent> serializer,
+                                  Deserializer<ProductEvent> deserializer) {
+        long bytes = 0;
+        for (ProductEvent event : events) {
+            byte[] data = serializer.serialize(KafkaConfig.PRODUCT_EVENT_TOPIC, event);
+            assertThat(deserializer.deserialize(KafkaConfig.PRODUCT_EVENT_TOPIC, data)).isEqualTo(event);
+            bytes += data.length;
+        }
+
+        long checksum = 0;
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            checksum += roundTrip(events, serializer, deserializer);
+        }
+        long start = System.nanoTime();
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            checksum += roundTrip(events, serializer, deserializer);
+        }
+        long elapsed = System.nanoTime() - start;
+        assertThat(checksum).isNotZero();
+
+        return new Result((double) bytes / events.size(), (double) elapsed / ((long) MEASURED_ROUNDS * events.size()));
+    }
+
+    private static long roundTrip(List<ProductEvent> events,
+                                  Serializer<ProductEvent> serializer,
+                                  Deserializer<ProductEvent> deserializer) {
+        long checksum = 0;
+        for (ProductEvent event : events) {
+            byte[] data = serializer.serialize(KafkaConfig.PRODUCT_EVENT_TOPIC, event);
+            checksum += deserializer.deserialize(KafkaConfig.PRODUCT_EVENT_TOPIC, data).getProduct().getQuantity();
+        }
+        return checksum;
+    }
+
+    private static List<ProductEvent> events() {
+        List<ProductEvent> events = new ArrayList<>(EVENTS);
+        LocalDateTime now = LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_456_000);
+        for (long id = 1; id <= EVENTS; id++) {
+            String type = id % 3 == 0 ? KafkaConfig.EVENT_UPDATE_PRODUCT : KafkaConfig.EVENT_CREATE_PRODUCT;
+            events.add(new ProductEvent(type, new ProductState(id, "product-" + id, "Catalog import item " + id,
+                    BigDecimal.valueOf(999 + id % 10_000, 2), (int) (id % 500) + 1, now, now.plusSeconds(id), id % 20)));
+        }
+        return events;
+    }
+
+    private record Result(double bytesPerEvent, double nanosPerEvent) {
+    }
+}
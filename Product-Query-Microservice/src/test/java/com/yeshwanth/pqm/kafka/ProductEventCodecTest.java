@@ -0,0 +1,59 @@
+package com.yeshwanth.pqm.kafka;
+
+import com.yeshwanth.pqm.config.KafkaConfig;
+import com.yeshwanth.pqm.dto.ProductEvent;
+import com.yeshwanth.pqm.dto.ProductState;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductEventCodecTest {
+
+    private final ProductEventDeserializer deserializer = new ProductEventDeserializer();
+
+    @Test
+    void roundTripsEvents() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_456_000);
+        ProductEvent[] events = {
+                new ProductEvent(KafkaConfig.EVENT_CREATE_PRODUCT,
+                        new ProductState(42L, "Desk", "Oak, 160cm", new BigDecimal("249.99"), 3, createdAt, createdAt.plusDays(1), 4L)),
+                new ProductEvent(KafkaConfig.EVENT_UPDATE_PRODUCT,
+                        new ProductState(Long.MAX_VALUE, "Café 😀", null, new BigDecimal("-123456789012345678901234.5"), -1, null, null, 0L)),
+                new ProductEvent(KafkaConfig.EVENT_DELETE_PRODUCT, new ProductState(7L, null, null, null, null, null, null, null)),
+                new ProductEvent(KafkaConfig.EVENT_STOCK_ADJUSTED,
+                        new ProductState(7L, "Lamp", null, BigDecimal.TEN, 12, createdAt, createdAt.plusDays(2), 9L)),
+                new ProductEvent("RESTOCK_PRODUCT", null)
+        };
+
+        for (ProductEvent event : events) {
+            assertThat(deserializer.deserialize(KafkaConfig.PRODUCT_EVENT_TOPIC, ProductEventCodec.encode(event))).isEqualTo(event);
+        }
+    }
+
+    @Test
+    void readsJsonFromOlderProducers() {
+        String json = """
+                {"eventType":"UPDATE_PRODUCT","product":{"id":1,"name":"Test Product","description":"A test product",
+                "price":19.99,"quantity":10,"createdAt":"2024-03-01T12:30:15","updatedAt":null,"version":0}}""";
+
+        ProductEvent event = deserializer.deserialize(KafkaConfig.PRODUCT_EVENT_TOPIC, json.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(event.getEventType()).isEqualTo(KafkaConfig.EVENT_UPDATE_PRODUCT);
+        assertThat(event.getProduct()).isEqualTo(new ProductState(1L, "Test Product", "A test product",
+                new BigDecimal("19.99"), 10, LocalDateTime.of(2024, 3, 1, 12, 30, 15), null, 0L));
+    }
+
+    @Test
+    void rejectsUnknownSchemaVersion() {
+        byte[] data = ProductEventCodec.encode(new ProductEvent(KafkaConfig.EVENT_DELETE_PRODUCT, null));
+        data[0] = ProductEventCodec.VERSION + 1;
+
+        assertThatThrownBy(() -> ProductEventCodec.decode(data)).isInstanceOf(SerializationException.class);
+    }
+}
@@ -0,0 +1,185 @@
+package com.yeshwanth.pqm.kafka;
+
+import com.yeshwanth.pqm.ProductQueryMicroserviceApplication;
+import com.yeshwanth.pqm.config.KafkaConfig;
+import com.yeshwanth.pqm.dto.ProductEvent;
+import com.yeshwanth.pqm.dto.ProductState;
+import com.yeshwanth.pqm.model.Product;
+import com.yeshwanth.pqm.store.ProductProjectionStore;
+import jakarta.persistence.EntityManagerFactory;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Replays the same bulk-import workload through the record, batch and parallel listeners
+ * against embedded Kafka and H2 (plus the batch listener on the in-memory store), and
+ * prints events per second and SQL statements per event for each mode.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class ProductEventConsumerThroughputTest {
+
+    private static final int PARTITIONS = 3;
+    private static final int PRODUCTS = 1_000;
+    private static final int UPDATES_PER_PRODUCT = 10;
+    private static final int DELETES = 100;
+    private static final String SENTINEL = "sentinel";
+
+    @Test
+    void batchAndParallelModesOutpaceRecordMode() throws Exception {
+        List<ProductEvent> workload = workload();
+
+        Run record = run("record", "jpa", workload);
+        Run batch = run("batch", "jpa", workload);
+        Run parallel = run("parallel", "jpa", workload);
+        Run memory = run("batch", "memory", workload);
+
+        double recordRate = record.eventsPerSecond();
+        System.out.printf("Projection throughput for %d events: record=%.0f events/s, batch=%.0f events/s (%.1fx), "
+                        + "parallel=%.0f events/s (%.1fx), batch+memory store=%.0f events/s (%.1fx)%n",
+                workload.size(), recordRate, batch.eventsPerSecond(), batch.eventsPerSecond() / recordRate,
+                parallel.eventsPerSecond(), parallel.eventsPerSecond() / recordRate,
+                memory.eventsPerSecond(), memory.eventsPerSecond() / recordRate);
+        System.out.printf("SQL statements per event: record=%.2f, batch=%.2f, parallel=%.2f%n",
+                record.statementsPerEvent(), batch.statementsPerEvent(), parallel.statementsPerEvent());
+        assertThat(batch.eventsPerSecond()).isGreaterThan(recordRate);
+    }
+
+    private Run run(String mode, String store, List<ProductEvent> workload) throws Exception {
+        EmbeddedKafkaBroker broker = new EmbeddedKafkaKraftBroker(1, PARTITIONS, KafkaConfig.PRODUCT_EVENT_TOPIC);
+        broker.afterPropertiesSet();
+        try {
+            publish(broker, workload);
+
+            String[] args = {
+                    "--spring.datasource.url=jdbc:h2:mem:throughput-" + mode + "-" + store + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+                    "--spring.datasource.driver-class-name=org.h2.Driver",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password=",
+                    "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                    "--spring.jpa.hibernate.ddl-auto=create-drop",
+                    "--spring.jpa.show-sql=false",
+                    "--spring.jpa.properties.hibernate.generate_statistics=true",
+                    "--logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+                    "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                    "--spring.kafka.consumer.auto-offset-reset=earliest",
+                    "--spring.kafka.listener.auto-startup=false",
+                    "--pqm.consumer.mode=" + mode,
+                    "--pqm.store=" + store,
+                    "--server.port=0",
+                    "--logging.level.com.yeshwanth.pqm=WARN"
+            };
+
+            try (ConfigurableApplicationContext context =
+                         new SpringApplicationBuilder(ProductQueryMicroserviceApplication.class).run(args)) {
+
+                ProductProjectionStore productStore = context.getBean(ProductProjectionStore.class);
+                KafkaListenerEndpointRegistry registry = context.getBean(KafkaListenerEndpointRegistry.class);
+                Statistics statistics = context.getBean(EntityManagerFactory.class)
+                        .unwrap(SessionFactory.class).getStatistics();
+                statistics.clear();
+
+                long start = System.nanoTime();
+                registry.getListenerContainers().forEach(MessageListenerContainer::start);
+                int polls = awaitCompletion(productStore);
+                long elapsed = System.nanoTime() - start;
+                // Each completion poll reads the table once
+                long statements = statistics.getPrepareStatementCount() - ("jpa".equals(store) ? polls : 0);
+
+                assertThat(productStore.findAll()).hasSize(PRODUCTS - DELETES);
+                assertThat(productStore.findById((long) PRODUCTS).map(Product::getQuantity))
+                        .contains(UPDATES_PER_PRODUCT);
+                return new Run(workload.size() / (elapsed / 1_000_000_000.0), (double) statements / workload.size());
+            }
+        } finally {
+            broker.destroy();
+        }
+    }
+
+    /**
+     * Events are spread over several partitions, so the run is complete once every
+     * surviving product shows its last update and product 1 carries the sentinel.
+     */
+    private static int awaitCompletion(ProductProjectionStore productStore) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 120_000;
+        int polls = 0;
+        while (System.currentTimeMillis() < deadline) {
+            List<Product> products = productStore.findAll();
+            polls++;
+            boolean caughtUp = products.size() == PRODUCTS - DELETES && products.stream().allMatch(product ->
+                    product.getQuantity() == UPDATES_PER_PRODUCT && (product.getId() != 1 || SENTINEL.equals(product.getName())));
+            if (caughtUp) {
+                return polls;
+            }
+            Thread.sleep(25);
+        }
+        throw new AssertionError("Projection did not catch up within two minutes");
+    }
+
+    private static void publish(EmbeddedKafkaBroker broker, List<ProductEvent> events) {
+        Map<String, Object> props = KafkaTestUtils.producerProps(broker);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, 20);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, 256 * 1024);
+        try (KafkaProducer<String, ProductEvent> producer =
+                     new KafkaProducer<>(props, new StringSerializer(), (topic, event) -> ProductEventCodec.encode(event))) {
+            for (ProductEvent event : events) {
+                String key = String.valueOf(event.getProduct().getId());
+                producer.send(new ProducerRecord<>(KafkaConfig.PRODUCT_EVENT_TOPIC, key, event));
+            }
+            producer.flush();
+        }
+    }
+
+    /**
+     * A bulk catalog import: every product created, updated repeatedly, a tail of
+     * deletes, and finally a rename of product 1.
+     */
+    private static List<ProductEvent> workload() {
+        List<ProductEvent> events = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (long id = 1; id <= PRODUCTS; id++) {
+            events.add(new ProductEvent(KafkaConfig.EVENT_CREATE_PRODUCT, product(id, "product-" + id, 0, 0, now)));
+        }
+        for (int round = 1; round <= UPDATES_PER_PRODUCT; round++) {
+            for (long id = 1; id <= PRODUCTS; id++) {
+                events.add(new ProductEvent(KafkaConfig.EVENT_UPDATE_PRODUCT, product(id, "product-" + id, round, round, now)));
+            }
+        }
+        for (long id = 2; id <= DELETES + 1; id++) {
+            events.add(new ProductEvent(KafkaConfig.EVENT_DELETE_PRODUCT,
+                    product(id, "product-" + id, UPDATES_PER_PRODUCT, UPDATES_PER_PRODUCT + 1, now)));
+        }
+        events.add(new ProductEvent(KafkaConfig.EVENT_UPDATE_PRODUCT,
+                product(1, SENTINEL, UPDATES_PER_PRODUCT, UPDATES_PER_PRODUCT + 1, now)));
+        return events;
+    }
+
+    private static ProductState product(long id, String name, int quantity, long version, LocalDateTime timestamp) {
+        return new ProductState(id, name, "bulk import", BigDecimal.valueOf(10 + id % 90), quantity, timestamp, timestamp,
+                version);
+    }
+
+    private record Run(double eventsPerSecond, double statementsPerEvent) {
+    }
+}
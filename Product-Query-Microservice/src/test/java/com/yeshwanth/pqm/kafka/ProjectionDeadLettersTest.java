@@ -0,0 +1,133 @@
+package com.yeshwanth.pqm.kafka;
+
+import com.yeshwanth.pqm.ProductQueryMicroserviceApplication;
+import com.yeshwanth.pqm.config.KafkaConfig;
+import com.yeshwanth.pqm.dto.DeadLetter;
+import com.yeshwanth.pqm.dto.ProductEvent;
+import com.yeshwanth.pqm.dto.ProductState;
+import com.yeshwanth.pqm.service.ProductService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sends a poison event and an unreadable record through the record listener and
+ * checks that the events behind them are applied, that both end up in the
+ * dead-letter topic with their failure, and that replay and purge work on them.
+ */
+class ProjectionDeadLettersTest {
+
+    @Test
+    void poisonEventsAreDeadLetteredWithoutStallingThePartition() throws Exception {
+        EmbeddedKafkaBroker broker = new EmbeddedKafkaKraftBroker(1, 1, KafkaConfig.PRODUCT_EVENT_TOPIC);
+        broker.afterPropertiesSet();
+        try (KafkaProducer<String, byte[]> producer = new KafkaProducer<>(KafkaTestUtils.producerProps(broker),
+                new StringSerializer(), new ByteArraySerializer());
+             ConfigurableApplicationContext context = start(broker)) {
+            // A stock adjustment whose name does not fit the column; the database would reject it again, so it is not retried
+            send(producer, "1", ProductEventCodec.encode(create(1)));
+            send(producer, "2", ProductEventCodec.encode(new ProductEvent(KafkaConfig.EVENT_STOCK_ADJUSTED,
+                    new ProductState(2L, "x".repeat(300), null, BigDecimal.ONE, 1, null, null, 1L))));
+            send(producer, "3", new byte[]{9, 9, 9});
+            send(producer, "4", ProductEventCodec.encode(create(4)));
+
+            ProductService productService = context.getBean(ProductService.class);
+            await(() -> productService.getProductById(1L).isPresent() && productService.getProductById(4L).isPresent());
+
+            ProjectionDeadLetters deadLetters = context.getBean(ProjectionDeadLetters.class);
+            await(() -> deadLetters.list(10).size() == 2);
+
+            // Only the two events applied from the main topic count towards end-to-end lag, not the retried ones
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            await(() -> meterRegistry.get("projection.end.to.end.lag").timer().count() == 2);
+            assertThat(meterRegistry.get("projection.apply").tag("type", KafkaConfig.EVENT_CREATE_PRODUCT).timer().count())
+                    .isEqualTo(2);
+            assertThat(meterRegistry.get("projection.apply").tag("type", KafkaConfig.EVENT_STOCK_ADJUSTED).timer().count())
+                    .isEqualTo(1);
+            List<DeadLetter> listed = deadLetters.list(10);
+            assertThat(listed).anySatisfy(deadLetter -> {
+                assertThat(deadLetter.getEventType()).isEqualTo(KafkaConfig.EVENT_STOCK_ADJUSTED);
+                assertThat(deadLetter.getProductId()).isEqualTo(2L);
+                assertThat(deadLetter.getException()).isNotBlank();
+                assertThat(deadLetter.getOriginalTopic()).isEqualTo(KafkaConfig.PRODUCT_EVENT_TOPIC);
+                assertThat(deadLetter.getOriginalOffset()).isEqualTo(1L);
+            });
+            assertThat(listed).anySatisfy(deadLetter -> {
+                assertThat(deadLetter.getKey()).isEqualTo("3");
+                assertThat(deadLetter.getEventType()).isNull();
+                assertThat(deadLetter.getException()).contains("DeserializationException");
+            });
+
+            // Still failing, so each replay comes back as a new dead letter
+            DeadLetter poison = listed.stream().filter(deadLetter -> deadLetter.getEventType() != null).findFirst().orElseThrow();
+            assertThat(deadLetters.replay(poison.getPartition(), poison.getOffset()).getRecords()).isEqualTo(1);
+            await(() -> deadLetters.list(10).size() == 3);
+
+            assertThat(deadLetters.replayAll().getRecords()).isEqualTo(3);
+            await(() -> deadLetters.list(10).size() == 3);
+            assertThat(deadLetters.list(10)).allSatisfy(deadLetter -> assertThat(deadLetter.getOffset()).isGreaterThanOrEqualTo(3L));
+
+            assertThat(deadLetters.purge().getRecords()).isEqualTo(3);
+            assertThat(deadLetters.list(10)).isEmpty();
+        } finally {
+            broker.destroy();
+        }
+    }
+
+    private static ConfigurableApplicationContext start(EmbeddedKafkaBroker broker) {
+        String[] args = {
+                "--spring.datasource.url=jdbc:h2:mem:projection-dead-letters;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                "--spring.kafka.consumer.auto-offset-reset=earliest",
+                "--pqm.retry.attempts=3",
+                "--pqm.retry.initial-delay=100ms",
+                "--pqm.retry.multiplier=2",
+                "--pqm.retry.partitions=1",
+                "--server.port=0",
+                "--logging.level.com.yeshwanth.pqm=WARN"
+        };
+        return new SpringApplicationBuilder(ProductQueryMicroserviceApplication.class).run(args);
+    }
+
+    private static void send(KafkaProducer<String, byte[]> producer, String key, byte[] value) {
+        producer.send(new ProducerRecord<>(KafkaConfig.PRODUCT_EVENT_TOPIC, key, value));
+        producer.flush();
+    }
+
+    private static ProductEvent create(long id) {
+        LocalDateTime now = LocalDateTime.now();
+        return new ProductEvent(KafkaConfig.EVENT_CREATE_PRODUCT,
+                new ProductState(id, "product-" + id, null, BigDecimal.TEN, 1, now, now, 0L));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within a minute");
+            }
+            Thread.sleep(100);
+        }
+    }
+}
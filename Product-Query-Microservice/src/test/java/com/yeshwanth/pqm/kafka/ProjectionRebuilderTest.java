@@ -0,0 +1,142 @@
+package com.yeshwanth.pqm.kafka;
+
+import com.yeshwanth.pqm.ProductQueryMicroserviceApplication;
+import com.yeshwanth.pqm.config.KafkaConfig;
+import com.yeshwanth.pqm.dto.ProductEvent;
+import com.yeshwanth.pqm.dto.ProductState;
+import com.yeshwanth.pqm.dto.RebuildStatus;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Damages a caught-up JPA projection, rebuilds it from the topic into the shadow
+ * table and checks that the swapped-in table matches the event history and that
+ * the live listeners carry on afterwards.
+ */
+class ProjectionRebuilderTest {
+
+    private static final int PARTITIONS = 3;
+    private static final int PRODUCTS = 2_000;
+
+    @Test
+    void rebuildReplacesTheProjectionWithTheReplayedHistory() throws Exception {
+        EmbeddedKafkaBroker broker = new EmbeddedKafkaKraftBroker(1, PARTITIONS, KafkaConfig.PRODUCT_EVENT_TOPIC);
+        broker.afterPropertiesSet();
+        try (KafkaProducer<String, ProductEvent> producer = producer(broker)) {
+            publish(producer, history());
+            try (ConfigurableApplicationContext context = start(broker)) {
+                ProjectionHealthIndicator projection = context.getBean(ProjectionHealthIndicator.class);
+                await(() -> Status.UP.equals(projection.health().getStatus()));
+
+                JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+                jdbcTemplate.update("update product_query set name = 'damaged'");
+                jdbcTemplate.update("insert into product_query (id, name, price, quantity, version) values (999999, 'ghost', 1, 1, 0)");
+
+                ProjectionRebuilder rebuilder = context.getBean(ProjectionRebuilder.class);
+                rebuilder.start();
+                await(() -> !isActive(rebuilder.status().getState()));
+
+                RebuildStatus status = rebuilder.status();
+                System.out.printf("Projection rebuild of %d records: %.0f records/s%n",
+                        status.getRecordsRead(), status.getRecordsPerSecond());
+                assertThat(status.getState()).isEqualTo(RebuildStatus.State.COMPLETED);
+                assertThat(jdbcTemplate.queryForObject("select count(*) from product_query", Long.class))
+                        .isEqualTo(PRODUCTS - PRODUCTS / 10);
+                assertThat(jdbcTemplate.queryForObject("select count(*) from product_query where name = 'damaged' or id = 999999", Long.class))
+                        .isZero();
+                assertThat(jdbcTemplate.queryForObject("select name from product_query where id = 7", String.class))
+                        .isEqualTo("product-7-v2");
+
+                publish(producer, List.of(new ProductEvent(KafkaConfig.EVENT_UPDATE_PRODUCT, product(7, "after-rebuild", 3))));
+                await(() -> "after-rebuild".equals(
+                        jdbcTemplate.queryForObject("select name from product_query where id = 7", String.class)));
+            }
+        } finally {
+            broker.destroy();
+        }
+    }
+
+    private static boolean isActive(RebuildStatus.State state) {
+        return state != RebuildStatus.State.COMPLETED && state != RebuildStatus.State.FAILED;
+    }
+
+    private static ConfigurableApplicationContext start(EmbeddedKafkaBroker broker) {
+        String[] args = {
+                "--spring.datasource.url=jdbc:h2:mem:projection-rebuild;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                "--spring.kafka.consumer.auto-offset-reset=earliest",
+                "--pqm.consumer.mode=batch",
+                "--pqm.rebuild.threads=2",
+                "--server.port=0",
+                "--logging.level.com.yeshwanth.pqm=WARN"
+        };
+        return new SpringApplicationBuilder(ProductQueryMicroserviceApplication.class).run(args);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 120_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within two minutes");
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private static KafkaProducer<String, ProductEvent> producer(EmbeddedKafkaBroker broker) {
+        return new KafkaProducer<>(KafkaTestUtils.producerProps(broker), new StringSerializer(),
+                (topic, event) -> ProductEventCodec.encode(event));
+    }
+
+    private static void publish(KafkaProducer<String, ProductEvent> producer, List<ProductEvent> events) {
+        for (ProductEvent event : events) {
+            producer.send(new ProducerRecord<>(KafkaConfig.PRODUCT_EVENT_TOPIC, String.valueOf(event.getProduct().getId()), event));
+        }
+        producer.flush();
+    }
+
+    // Create, two updates, and a delete for every tenth product
+    private static List<ProductEvent> history() {
+        List<ProductEvent> events = new ArrayList<>();
+        for (long id = 1; id <= PRODUCTS; id++) {
+            events.add(new ProductEvent(KafkaConfig.EVENT_CREATE_PRODUCT, product(id, "product-" + id, 0)));
+        }
+        for (int version = 1; version <= 2; version++) {
+            for (long id = 1; id <= PRODUCTS; id++) {
+                events.add(new ProductEvent(KafkaConfig.EVENT_UPDATE_PRODUCT, product(id, "product-" + id + "-v" + version, version)));
+            }
+        }
+        for (long id = 10; id <= PRODUCTS; id += 10) {
+            events.add(new ProductEvent(KafkaConfig.EVENT_DELETE_PRODUCT, product(id, "product-" + id + "-v2", 3)));
+        }
+        return events;
+    }
+
+    private static ProductState product(long id, String name, long version) {
+        LocalDateTime now = LocalDateTime.now();
+        return new ProductState(id, name, "rebuild", BigDecimal.valueOf(10 + id % 90), 1, now, now, version);
+    }
+}
@@ -0,0 +1,200 @@
+package com.yeshwanth.pqm.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yeshwanth.pqm.ProductQueryMicroserviceApplication;
+import com.yeshwanth.pqm.config.KafkaConfig;
+import com.yeshwanth.pqm.dto.InventoryStats;
+import com.yeshwanth.pqm.dto.ProductEvent;
+import com.yeshwanth.pqm.dto.ProductSearchPage;
+import com.yeshwanth.pqm.dto.ProductState;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs two replicas in product-query-group on one table, with products on both
+ * partitions cached on both replicas, and checks that each replica serves the
+ * changes the other one applied, body and ETag (no 304 for the old version),
+ * once they are on the topic, finds them through its search index and counts
+ * them in its inventory totals.
+ */
+class ProjectionReplicaViewsTest {
+
+    private static final int PARTITIONS = 2;
+    private static final int PRODUCTS = 20;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void everyReplicaServesChangesAppliedByAnother() throws Exception {
+        EmbeddedKafkaBroker broker = new EmbeddedKafkaKraftBroker(1, PARTITIONS, KafkaConfig.PRODUCT_EVENT_TOPIC);
+        broker.afterPropertiesSet();
+        try (KafkaProducer<String, ProductEvent> producer = new KafkaProducer<>(KafkaTestUtils.producerProps(broker),
+                new StringSerializer(), (topic, event) -> ProductEventCodec.encode(event))) {
+            send(producer, KafkaConfig.EVENT_CREATE_PRODUCT, "product-", 0L);
+
+            try (ConfigurableApplicationContext first = start(broker);
+                 ConfigurableApplicationContext second = start(broker)) {
+                List<Integer> ports = List.of(port(first), port(second));
+                ProjectionHealthIndicator firstHealth = first.getBean(ProjectionHealthIndicator.class);
+                ProjectionHealthIndicator secondHealth = second.getBean(ProjectionHealthIndicator.class);
+                await(() -> Status.UP.equals(firstHealth.health().getStatus())
+                        && Status.UP.equals(secondHealth.health().getStatus()));
+                await(() -> everyProduct(ports, response -> response.statusCode() == 200));
+
+                // Every product is now cached on both replicas, though each applies only half of them
+                for (int port : ports) {
+                    for (long id = 1; id <= PRODUCTS; id++) {
+                        assertThat(get(port, id).headers().firstValue("ETag")).hasValue("\"0\"");
+                    }
+                    assertThat(stats(port).getProductCount()).isEqualTo(PRODUCTS);
+                    assertThat(stats(port).getTotalQuantity()).isEqualTo(PRODUCTS);
+                }
+
+                send(producer, KafkaConfig.EVENT_UPDATE_PRODUCT, "renamed-", 1L);
+                await(() -> everyProduct(ports, response -> response.statusCode() == 200
+                        && response.headers().firstValue("ETag").orElse("").equals("\"1\"")
+                        && response.body().contains("\"renamed-")));
+                // A client revalidating the old version gets the new body, never 304
+                for (int port : ports) {
+                    for (long id = 1; id <= PRODUCTS; id++) {
+                        HttpResponse<String> stale = get(port, id, "\"0\"");
+                        assertThat(stale.statusCode()).isEqualTo(200);
+                        assertThat(stale.body()).contains("\"renamed-" + id + "\"");
+                        assertThat(get(port, id, "\"1\"").statusCode()).isEqualTo(304);
+                    }
+                }
+                for (int port : ports) {
+                    await(() -> search(port, "renamed-").getItems().size() == PRODUCTS);
+                    assertThat(search(port, "product-").getItems()).isEmpty();
+                    await(() -> stats(port).getTotalQuantity() == 2L * PRODUCTS);
+                    assertThat(stats(port).getProductCount()).isEqualTo(PRODUCTS);
+                }
+
+                send(producer, KafkaConfig.EVENT_DELETE_PRODUCT, null, 2L);
+                await(() -> everyProduct(ports, response -> response.statusCode() == 404));
+                for (int port : ports) {
+                    await(() -> search(port, "renamed-").getItems().isEmpty());
+                    await(() -> stats(port).getProductCount() == 0);
+                    assertThat(stats(port).getTotalQuantity()).isZero();
+                }
+            }
+        } finally {
+            broker.destroy();
+        }
+    }
+
+    private static void send(KafkaProducer<String, ProductEvent> producer, String type, String name, long version) {
+        LocalDateTime now = LocalDateTime.now();
+        for (long id = 1; id <= PRODUCTS; id++) {
+            ProductState state = name != null
+                    ? new ProductState(id, name + id, null, BigDecimal.TEN, (int) version + 1, now, now, version)
+                    : new ProductState(id, null, null, null, null, null, null, version);
+            producer.send(new ProducerRecord<>(KafkaConfig.PRODUCT_EVENT_TOPIC, String.valueOf(id), new ProductEvent(type, state)));
+        }
+        producer.flush();
+    }
+
+    private boolean everyProduct(List<Integer> ports, Predicate<HttpResponse<String>> condition) {
+        for (int port : ports) {
+            for (long id = 1; id <= PRODUCTS; id++) {
+                if (!condition.test(get(port, id))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private ProductSearchPage search(int port, String prefix) {
+        try {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(
+                            "http://localhost:" + port + "/api/products/by-name?limit=100&prefix=" + prefix)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            return objectMapper.readValue(response.body(), ProductSearchPage.class);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private InventoryStats stats(int port) {
+        try {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(
+                            "http://localhost:" + port + "/api/products/stats")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            return objectMapper.readValue(response.body(), InventoryStats.class);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpResponse<String> get(int port, long id) {
+        return get(port, id, null);
+    }
+
+    private HttpResponse<String> get(int port, long id, String ifNoneMatch) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/products/" + id));
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        try {
+            return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int port(ConfigurableApplicationContext context) {
+        return ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    private static ConfigurableApplicationContext start(EmbeddedKafkaBroker broker) {
+        String[] args = {
+                "--spring.datasource.url=jdbc:h2:mem:projection-replica-views;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                // The second instance must not drop the table the first one writes to
+                "--spring.jpa.hibernate.ddl-auto=update",
+                "--spring.jpa.show-sql=false",
+                "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                "--spring.kafka.consumer.auto-offset-reset=earliest",
+                "--pqm.retry.partitions=1",
+                "--server.port=0",
+                "--logging.level.com.yeshwanth.pqm=WARN"
+        };
+        return new SpringApplicationBuilder(ProductQueryMicroserviceApplication.class).run(args);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within a minute");
+            }
+            Thread.sleep(100);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.yeshwanth.pqm.kafka;
+
+import com.yeshwanth.pqm.ProductQueryMicroserviceApplication;
+import com.yeshwanth.pqm.config.KafkaConfig;
+import com.yeshwanth.pqm.dto.ProductEvent;
+import com.yeshwanth.pqm.dto.ProductState;
+import com.yeshwanth.pqm.index.InventoryAggregates;
+import com.yeshwanth.pqm.service.ProductService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hands events to the record listener through the first retry topic after the
+ * change that followed them on the main topic has been applied, as happens when
+ * their first attempt failed, and checks that they are dropped.
+ */
+class ProjectionRetryOrderTest {
+
+    private static final String RETRY_TOPIC = KafkaConfig.PRODUCT_EVENT_TOPIC + "-retry-0";
+
+    @Test
+    void eventsRetriedPastALaterChangeAreDropped() throws Exception {
+        EmbeddedKafkaBroker broker = new EmbeddedKafkaKraftBroker(1, 1, KafkaConfig.PRODUCT_EVENT_TOPIC);
+        broker.afterPropertiesSet();
+        try (KafkaProducer<String, byte[]> producer = new KafkaProducer<>(KafkaTestUtils.producerProps(broker),
+                new StringSerializer(), new ByteArraySerializer());
+             ConfigurableApplicationContext context = start(broker)) {
+            ProductService productService = context.getBean(ProductService.class);
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+
+            // An update retried past the delete that followed it
+            send(producer, KafkaConfig.PRODUCT_EVENT_TOPIC, event(KafkaConfig.EVENT_CREATE_PRODUCT, 1L, "desk", 5, 0L));
+            send(producer, KafkaConfig.PRODUCT_EVENT_TOPIC, new ProductEvent(KafkaConfig.EVENT_DELETE_PRODUCT,
+                    new ProductState(1L, null, null, null, null, null, null, 2L)));
+            await(() -> applied(meterRegistry, KafkaConfig.EVENT_DELETE_PRODUCT) == 1);
+            send(producer, RETRY_TOPIC, event(KafkaConfig.EVENT_UPDATE_PRODUCT, 1L, "renamed desk", 5, 1L));
+            await(() -> applied(meterRegistry, KafkaConfig.EVENT_UPDATE_PRODUCT) == 1);
+
+            assertThat(productService.getProductById(1L)).isEmpty();
+            assertThat(context.getBean(InventoryAggregates.class).stats().getProductCount()).isZero();
+
+            // A stock adjustment retried past a later update keeps the update's row
+            send(producer, KafkaConfig.PRODUCT_EVENT_TOPIC, event(KafkaConfig.EVENT_CREATE_PRODUCT, 2L, "lamp", 10, 0L));
+            send(producer, KafkaConfig.PRODUCT_EVENT_TOPIC, event(KafkaConfig.EVENT_UPDATE_PRODUCT, 2L, "floor lamp", 7, 2L));
+            await(() -> applied(meterRegistry, KafkaConfig.EVENT_UPDATE_PRODUCT) == 2);
+            send(producer, RETRY_TOPIC, event(KafkaConfig.EVENT_STOCK_ADJUSTED, 2L, "lamp", 7, 1L));
+            await(() -> applied(meterRegistry, KafkaConfig.EVENT_STOCK_ADJUSTED) == 1);
+
+            assertThat(productService.getProductById(2L)).get()
+                    .satisfies(product -> {
+                        assertThat(product.getName()).isEqualTo("floor lamp");
+                        assertThat(product.getQuantity()).isEqualTo(7);
+                        assertThat(product.getVersion()).isEqualTo(2L);
+                    });
+        } finally {
+            broker.destroy();
+        }
+    }
+
+    private static ConfigurableApplicationContext start(EmbeddedKafkaBroker broker) {
+        String[] args = {
+                "--spring.datasource.url=jdbc:h2:mem:projection-retry-order;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                "--spring.kafka.consumer.auto-offset-reset=earliest",
+                "--pqm.retry.partitions=1",
+                "--server.port=0",
+                "--logging.level.com.yeshwanth.pqm=WARN"
+        };
+        return new SpringApplicationBuilder(ProductQueryMicroserviceApplication.class).run(args);
+    }
+
+    private static void send(KafkaProducer<String, byte[]> producer, String topic, ProductEvent event) {
+        producer.send(new ProducerRecord<>(topic, String.valueOf(event.getProduct().getId()), ProductEventCodec.encode(event)));
+        producer.flush();
+    }
+
+    private static ProductEvent event(String type, long id, String name, int quantity, long version) {
+        LocalDateTime now = LocalDateTime.now();
+        return new ProductEvent(type, new ProductState(id, name, null, BigDecimal.TEN, quantity, now, now, version));
+    }
+
+    // Timers appear with the first event of their type
+    private static long applied(MeterRegistry meterRegistry, String type) {
+        Timer timer = meterRegistry.find("projection.apply").tag("type", type).timer();
+        return timer != null ? timer.count() : 0;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within a minute");
+            }
+            Thread.sleep(100);
+        }
+    }
+}
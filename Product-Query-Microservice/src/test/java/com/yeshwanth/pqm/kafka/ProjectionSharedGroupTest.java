@@ -0,0 +1,129 @@
+package com.yeshwanth.pqm.kafka;
+
+import com.yeshwanth.pqm.ProductQueryMicroserviceApplication;
+import com.yeshwanth.pqm.config.KafkaConfig;
+import com.yeshwanth.pqm.dto.ProductEvent;
+import com.yeshwanth.pqm.dto.ProductState;
+import com.yeshwanth.pqm.dto.RebuildStatus;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs two instances in product-query-group on one table, as replicas do, with a
+ * backlog on both partitions, and checks that each becomes ready although it is
+ * only assigned part of the topic, that each reports lag only for its own
+ * partitions, and that the projection is only rebuilt once a replica is alone in
+ * the group.
+ */
+class ProjectionSharedGroupTest {
+
+    private static final int PARTITIONS = 2;
+    private static final int PRODUCTS = 200;
+
+    @Test
+    void everyReplicaBecomesReady() throws Exception {
+        EmbeddedKafkaBroker broker = new EmbeddedKafkaKraftBroker(1, PARTITIONS, KafkaConfig.PRODUCT_EVENT_TOPIC);
+        broker.afterPropertiesSet();
+        try (KafkaProducer<String, ProductEvent> producer = new KafkaProducer<>(KafkaTestUtils.producerProps(broker),
+                new StringSerializer(), (topic, event) -> ProductEventCodec.encode(event))) {
+            LocalDateTime now = LocalDateTime.now();
+            for (long id = 1; id <= PRODUCTS; id++) {
+                producer.send(new ProducerRecord<>(KafkaConfig.PRODUCT_EVENT_TOPIC, String.valueOf(id), new ProductEvent(
+                        KafkaConfig.EVENT_CREATE_PRODUCT, new ProductState(id, "product-" + id, null, BigDecimal.TEN, 1, now, now, 0L))));
+            }
+            producer.flush();
+
+            try (ConfigurableApplicationContext first = start(broker);
+                 ConfigurableApplicationContext second = start(broker)) {
+                ProjectionHealthIndicator firstHealth = first.getBean(ProjectionHealthIndicator.class);
+                ProjectionHealthIndicator secondHealth = second.getBean(ProjectionHealthIndicator.class);
+                await(() -> Status.UP.equals(firstHealth.health().getStatus())
+                        && Status.UP.equals(secondHealth.health().getStatus()));
+
+                // One partition each once the group has settled, neither counting the other's as unapplied
+                ProjectionLagMonitor firstLag = first.getBean(ProjectionLagMonitor.class);
+                ProjectionLagMonitor secondLag = second.getBean(ProjectionLagMonitor.class);
+                await(() -> firstLag.currentLag().getPartitions().size() == 1
+                        && secondLag.currentLag().getPartitions().size() == 1);
+                Set<Integer> partitions = new HashSet<>(firstLag.currentLag().getPartitions().keySet());
+                partitions.addAll(secondLag.currentLag().getPartitions().keySet());
+                assertThat(partitions).containsExactlyInAnyOrder(0, 1);
+                await(() -> firstLag.currentLag().getTotal() == 0 && secondLag.currentLag().getTotal() == 0);
+            }
+        } finally {
+            broker.destroy();
+        }
+    }
+
+    @Test
+    void rebuildIsRefusedWhileOtherReplicasShareTheGroup() throws Exception {
+        EmbeddedKafkaBroker broker = new EmbeddedKafkaKraftBroker(1, PARTITIONS, KafkaConfig.PRODUCT_EVENT_TOPIC);
+        broker.afterPropertiesSet();
+        try (ConfigurableApplicationContext first = start(broker)) {
+            ProjectionRebuilder rebuilder = first.getBean(ProjectionRebuilder.class);
+            ProjectionConsumerGroup firstGroup = first.getBean(ProjectionConsumerGroup.class);
+            try (ConfigurableApplicationContext second = start(broker)) {
+                ProjectionConsumerGroup secondGroup = second.getBean(ProjectionConsumerGroup.class);
+                await(() -> !firstGroup.otherMembers().isEmpty() && !secondGroup.otherMembers().isEmpty());
+
+                assertThatThrownBy(rebuilder::start)
+                        .isInstanceOf(IllegalStateException.class)
+                        .hasMessageContaining("Other replicas");
+                assertThat(rebuilder.status().getState()).isEqualTo(RebuildStatus.State.IDLE);
+            }
+
+            // Alone once the other replica has left the group
+            await(() -> firstGroup.otherMembers().isEmpty());
+            rebuilder.start();
+            await(() -> rebuilder.status().getState() == RebuildStatus.State.COMPLETED);
+        } finally {
+            broker.destroy();
+        }
+    }
+
+    private static ConfigurableApplicationContext start(EmbeddedKafkaBroker broker) {
+        String[] args = {
+                "--spring.datasource.url=jdbc:h2:mem:projection-shared-group;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                // The second instance must not drop the table the first one writes to
+                "--spring.jpa.hibernate.ddl-auto=update",
+                "--spring.jpa.show-sql=false",
+                "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                "--spring.kafka.consumer.auto-offset-reset=earliest",
+                "--pqm.retry.partitions=1",
+                "--server.port=0",
+                "--logging.level.com.yeshwanth.pqm=WARN"
+        };
+        return new SpringApplicationBuilder(ProductQueryMicroserviceApplication.class).run(args);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within a minute");
+            }
+            Thread.sleep(100);
+        }
+    }
+}
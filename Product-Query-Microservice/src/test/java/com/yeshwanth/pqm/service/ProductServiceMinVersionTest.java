@@ -0,0 +1,103 @@
+package com.yeshwanth.pqm.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yeshwanth.pqm.cache.CachedProduct;
+import com.yeshwanth.pqm.cache.ProductCache;
+import com.yeshwanth.pqm.config.ConsistencyProperties;
+import com.yeshwanth.pqm.config.ProductCacheProperties;
+import com.yeshwanth.pqm.index.ProductSearchIndex;
+import com.yeshwanth.pqm.model.Product;
+import com.yeshwanth.pqm.store.ProductProjectionStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductServiceMinVersionTest {
+
+    private ProductProjectionStore store;
+    private ProductChangeNotifier notifier;
+    private ProductCache cache;
+    private ProductService service;
+
+    @BeforeEach
+    void setUp() {
+        store = mock(ProductProjectionStore.class);
+        ConsistencyProperties consistency = new ConsistencyProperties();
+        notifier = new ProductChangeNotifier(consistency);
+        ProductCacheProperties cacheProperties = new ProductCacheProperties();
+        cacheProperties.setMaxWeight(DataSize.ofBytes(0));
+        cache = new ProductCache(cacheProperties, new SimpleMeterRegistry(), new ObjectMapper().findAndRegisterModules());
+        service = new ProductService(store, cache, new ProductSearchIndex(store), notifier, consistency, Runnable::run);
+    }
+
+    @Test
+    void returnsAtOnceWhenVersionIsAlreadyApplied() {
+        when(store.findById(1L)).thenReturn(Optional.of(product(1L, 3L)));
+
+        CompletableFuture<ProductService.VersionedRead> read = service.getProductAtVersion(1L, 2, Duration.ofSeconds(5));
+
+        assertThat(read).isDone();
+        assertThat(read.join().caughtUp()).isTrue();
+        assertThat(read.join().product()).map(CachedProduct::product).map(Product::getVersion).contains(3L);
+    }
+
+    @Test
+    void wakesWhenTheVersionIsApplied() throws Exception {
+        when(store.findById(1L)).thenReturn(Optional.of(product(1L, 1L)));
+
+        CompletableFuture<ProductService.VersionedRead> read = service.getProductAtVersion(1L, 2, Duration.ofSeconds(10));
+        assertThat(read).isNotDone();
+
+        notifier.applied(2L, 5L);
+        assertThat(read).isNotDone();
+
+        // Like the projection: the cache is refreshed before readers are woken, so the re-read never sees
+        // the entry of the first read, which a zero-weight cache evicts only asynchronously
+        when(store.findById(1L)).thenReturn(Optional.of(product(1L, 2L)));
+        cache.refreshIfPresent(product(1L, 2L));
+        notifier.applied(1L, 2L);
+
+        ProductService.VersionedRead result = read.get(1, TimeUnit.SECONDS);
+        assertThat(result.caughtUp()).isTrue();
+        assertThat(result.product()).map(CachedProduct::product).map(Product::getVersion).contains(2L);
+    }
+
+    @Test
+    void returnsCurrentStateWhenTheWaitRunsOut() throws Exception {
+        when(store.findById(1L)).thenReturn(Optional.of(product(1L, 1L)));
+
+        ProductService.VersionedRead result = service.getProductAtVersion(1L, 2, Duration.ofMillis(50))
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(result.caughtUp()).isFalse();
+        assertThat(result.product()).map(CachedProduct::product).map(Product::getVersion).contains(1L);
+    }
+
+    @Test
+    void deleteAtOrAboveTheVersionCountsAsCaughtUp() {
+        when(store.findById(1L)).thenReturn(Optional.empty());
+        notifier.deleted(1L, 4L);
+
+        ProductService.VersionedRead result = service.getProductAtVersion(1L, 4, Duration.ofSeconds(5)).join();
+
+        assertThat(result.caughtUp()).isTrue();
+        assertThat(result.product()).isEmpty();
+    }
+
+    private static Product product(Long id, Long version) {
+        LocalDateTime now = LocalDateTime.now();
+        return new Product(id, "Product " + id, "", BigDecimal.TEN, 1, now, now, version);
+    }
+}
@@ -0,0 +1,55 @@
+package com.yeshwanth.pqm.store;
+
+import com.yeshwanth.pqm.config.MemoryStoreProperties;
+import com.yeshwanth.pqm.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryProductProjectionStoreTest {
+
+    @Test
+    void deletesDropOlderEventsWithinTheRetention() {
+        InMemoryProductProjectionStore store = store(Duration.ofHours(1));
+        store.upsertIfNewer(product(1L, "created", 0L));
+        store.deleteIfOlder(1L, 2L);
+        // A stale copy of the delete does not lower the tombstone
+        store.deleteIfOlder(1L, 1L);
+
+        assertThat(store.upsertIfNewer(product(1L, "retried", 1L))).isFalse();
+        assertThat(store.upsertIfNewer(product(1L, "redelivered", 2L))).isFalse();
+        assertThat(store.findById(1L)).isEmpty();
+        assertThat(store.tombstoneCount()).isEqualTo(1);
+    }
+
+    @Test
+    void tombstonesArePrunedAfterTheRetention() throws InterruptedException {
+        InMemoryProductProjectionStore store = store(Duration.ofMillis(50));
+        for (long id = 1; id <= 100; id++) {
+            store.deleteIfOlder(id, 1L);
+        }
+        assertThat(store.tombstoneCount()).isEqualTo(100);
+
+        Thread.sleep(100);
+        store.deleteIfOlder(101L, 1L);
+
+        assertThat(store.tombstoneCount()).isEqualTo(1);
+        // Past the retention an old event is applied again
+        assertThat(store.upsertIfNewer(product(1L, "replayed", 0L))).isTrue();
+    }
+
+    private static InMemoryProductProjectionStore store(Duration retention) {
+        MemoryStoreProperties properties = new MemoryStoreProperties();
+        properties.setTombstoneRetention(retention);
+        return new InMemoryProductProjectionStore(properties);
+    }
+
+    private static Product product(Long id, String name, Long version) {
+        LocalDateTime now = LocalDateTime.of(2024, 3, 1, 12, 0);
+        return new Product(id, name, "desc", BigDecimal.TEN, 5, now, now, version);
+    }
+}
@@ -0,0 +1,138 @@
+package com.yeshwanth.pqm.store;
+
+import com.yeshwanth.pqm.model.Product;
+import com.yeshwanth.pqm.model.ProductField;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:projection-store;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(JpaProductProjectionStore.class)
+class JpaProductProjectionStoreTest {
+
+    @Autowired
+    private JpaProductProjectionStore store;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void upsertKeepsTheNewestVersion() {
+        store.upsertIfNewer(product(1L, "created", 0L));
+        store.upsertIfNewer(product(1L, "renamed", 2L));
+        store.upsertIfNewer(product(1L, "stale", 1L));
+        store.upsertIfNewer(product(1L, "redelivered", 2L));
+
+        assertThat(store.findById(1L)).get()
+                .extracting(Product::getName, Product::getVersion)
+                .containsExactly("renamed", 2L);
+    }
+
+    @Test
+    void deleteOnlyRemovesOlderVersions() {
+        store.upsertIfNewer(product(2L, "created", 3L));
+
+        store.deleteIfOlder(2L, 3L);
+        assertThat(store.findById(2L)).isPresent();
+
+        store.deleteIfOlder(2L, 4L);
+        assertThat(store.findById(2L)).isEmpty();
+    }
+
+    @Test
+    void eventsOlderThanTheDeleteDoNotBringTheProductBack() {
+        store.upsertIfNewer(product(9L, "created", 0L));
+        store.deleteIfOlder(9L, 2L);
+        // A stale copy of the delete does not lower the tombstone
+        store.deleteIfOlder(9L, 1L);
+
+        assertThat(store.upsertIfNewer(product(9L, "retried", 1L))).isFalse();
+        assertThat(store.upsertIfNewer(product(9L, "redelivered", 2L))).isFalse();
+        assertThat(store.findById(9L)).isEmpty();
+    }
+
+    @Test
+    void versionedEventsReplaceUnversionedRows() {
+        Product legacy = product(3L, "legacy", null);
+        store.save(legacy);
+
+        store.upsertIfNewer(product(3L, "versioned", 0L));
+
+        assertThat(store.findById(3L)).get()
+                .extracting(Product::getName, Product::getVersion)
+                .containsExactly("versioned", 0L);
+    }
+
+    @Test
+    void updateWithoutCreationTimeKeepsTheStoredOne() {
+        store.upsertIfNewer(product(4L, "created", 0L));
+
+        Product conditional = product(4L, "renamed", 1L);
+        conditional.setCreatedAt(null);
+        store.upsertIfNewer(conditional);
+
+        assertThat(store.findById(4L)).get()
+                .extracting(Product::getName, Product::getCreatedAt)
+                .containsExactly("renamed", LocalDateTime.of(2024, 3, 1, 12, 0));
+    }
+
+    @Test
+    void projectedReadsOnlyFillTheRequestedFields() {
+        store.upsertIfNewer(product(7L, "first", 1L));
+        store.upsertIfNewer(product(8L, "second", 1L));
+
+        List<Product> page = store.findPage(6L, 2, ProductField.parse("price,name"));
+        assertThat(page).extracting(Product::getId, Product::getName, Product::getPrice)
+                .containsExactly(tuple(7L, "first", new BigDecimal("9.99")),
+                        tuple(8L, "second", new BigDecimal("9.99")));
+        assertThat(page).flatExtracting(Product::getDescription, Product::getQuantity, Product::getVersion)
+                .containsOnlyNulls();
+
+        assertThat(store.findAllById(List.of(8L), ProductField.parse("id")))
+                .singleElement()
+                .extracting(Product::getId, Product::getName)
+                .containsExactly(8L, null);
+    }
+
+    @Test
+    void insertsDoNotReadTheRowsFirst() {
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        store.insertAll(List.of(product(10L, "first", 0L), product(11L, "second", 0L), product(12L, "third", 0L)));
+        entityManager.flush();
+
+        // One batched insert statement and nothing else; a merge would select each id before inserting it
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(3);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        entityManager.clear();
+        assertThat(store.findAllById(List.of(10L, 11L, 12L))).extracting(Product::getName)
+                .containsExactlyInAnyOrder("first", "second", "third");
+    }
+
+    private static Product product(Long id, String name, Long version) {
+        LocalDateTime now = LocalDateTime.of(2024, 3, 1, 12, 0);
+        return new Product(id, name, "desc", new BigDecimal("9.99"), 5, now, now, version);
+    }
+}
@@ -0,0 +1,88 @@
+package com.yeshwanth.pqm.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongProductMapTest {
+
+    @Test
+    void putReplaceAndRemove() {
+        LongProductMap map = new LongProductMap(16);
+
+        map.put(record(7, 1));
+        map.put(record(7, 2));
+        map.put(record(8, 1));
+
+        assertThat(map.size()).isEqualTo(2);
+        assertThat(map.get(7).quantity()).isEqualTo(2);
+        assertThat(map.remove(7)).isTrue();
+        assertThat(map.remove(7)).isFalse();
+        assertThat(map.get(7)).isNull();
+        assertThat(map.get(8).quantity()).isEqualTo(1);
+    }
+
+    @Test
+    void growsAndReclaimsTombstones() {
+        LongProductMap map = new LongProductMap(16);
+
+        for (long id = 1; id <= 10_000; id++) {
+            map.put(record(id, 0));
+        }
+        for (long id = 1; id <= 10_000; id += 2) {
+            map.remove(id);
+        }
+        // Churn through the tombstones left behind; lookups must keep terminating
+        for (int round = 0; round < 5; round++) {
+            for (long id = 1; id <= 10_000; id += 2) {
+                map.put(record(id, round));
+                map.remove(id);
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(5_000);
+        assertThat(map.get(1)).isNull();
+        assertThat(map.get(10_000).id()).isEqualTo(10_000);
+        List<Long> ids = new ArrayList<>();
+        map.forEach(record -> ids.add(record.id()));
+        assertThat(ids).hasSize(5_000).allMatch(id -> id % 2 == 0);
+    }
+
+    @Test
+    void readersNeverSeeMissingOrForeignRecordsWhileWriterChurns() throws InterruptedException {
+        LongProductMap map = new LongProductMap(16);
+        map.put(record(0, 0));
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                ProductRecord stable = map.get(0);
+                if (stable == null || stable.id() != 0) {
+                    failure.set("lost the stable record: " + stable);
+                }
+            }
+        });
+        reader.start();
+        for (long id = 1; id <= 200_000; id++) {
+            map.put(record(id, (int) id));
+            if (id % 3 == 0) {
+                map.remove(id - 1);
+            }
+        }
+        running.set(false);
+        reader.join();
+
+        assertThat(failure.get()).isNull();
+    }
+
+    private static ProductRecord record(long id, int quantity) {
+        return new ProductRecord(id, "product-" + id, null, BigDecimal.ONE, quantity, 0, 0, quantity);
+    }
+}
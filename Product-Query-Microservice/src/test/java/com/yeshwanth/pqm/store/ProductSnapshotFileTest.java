@@ -0,0 +1,36 @@
+package com.yeshwanth.pqm.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductSnapshotFileTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsRecordsAndOffsets() throws Exception {
+        List<ProductRecord> records = List.of(
+                new ProductRecord(1, "Desk", "Oak, 160cm", new BigDecimal("249.99"), 3, 1_000L, 2_000L, 4L),
+                new ProductRecord(2, "Café 😀 lamp", null, new BigDecimal("123456789012345678901234.5"), 0, 5L, 6L, 0L),
+                new ProductRecord(3, null, "", null, Integer.MIN_VALUE, Long.MIN_VALUE, Long.MIN_VALUE, Long.MIN_VALUE));
+        Path file = dir.resolve("products.snapshot");
+
+        ProductSnapshotFile.write(file, Map.of(0, 42L, 2, 7L), records);
+
+        List<ProductRecord> restored = new ArrayList<>();
+        ProductSnapshotFile.Offsets offsets = ProductSnapshotFile.read(file, restored::add);
+
+        assertThat(restored).containsExactlyElementsOf(records);
+        assertThat(offsets.productCount()).isEqualTo(3);
+        assertThat(offsets.nextOffsets()).isEqualTo(Map.of(0, 42L, 2, 7L));
+    }
+}
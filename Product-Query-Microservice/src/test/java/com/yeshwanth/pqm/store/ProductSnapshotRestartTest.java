@@ -0,0 +1,162 @@
+package com.yeshwanth.pqm.store;
+
+import com.yeshwanth.pqm.ProductQueryMicroserviceApplication;
+import com.yeshwanth.pqm.config.KafkaConfig;
+import com.yeshwanth.pqm.dto.ProductEvent;
+import com.yeshwanth.pqm.dto.ProductState;
+import com.yeshwanth.pqm.kafka.ProductEventCodec;
+import com.yeshwanth.pqm.kafka.ProjectionHealthIndicator;
+import com.yeshwanth.pqm.model.Product;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts the query service on the in-memory store twice against the same topic:
+ * once with no snapshot, replaying everything, and once from the snapshot written
+ * on shutdown plus a short tail of new events. Prints the time from start to a
+ * ready projection for both.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class ProductSnapshotRestartTest {
+
+    private static final int PARTITIONS = 3;
+    private static final int PRODUCTS = 20_000;
+    private static final int UPDATES_PER_PRODUCT = 5;
+    private static final int TAIL = 100;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void restartFromSnapshotIsReadySoonerThanFullReplay() throws Exception {
+        EmbeddedKafkaBroker broker = new EmbeddedKafkaKraftBroker(1, PARTITIONS, KafkaConfig.PRODUCT_EVENT_TOPIC);
+        broker.afterPropertiesSet();
+        try {
+            publish(broker, history());
+            Path snapshot = dir.resolve("product-projection.snapshot");
+
+            long cold;
+            try (ConfigurableApplicationContext context = start(broker, snapshot)) {
+                cold = awaitReady(context);
+                assertThat(context.getBean(ProductProjectionStore.class).findAll()).hasSize(PRODUCTS);
+            }
+            assertThat(snapshot).exists();
+
+            publish(broker, tail());
+
+            long warm;
+            try (ConfigurableApplicationContext context = start(broker, snapshot)) {
+                warm = awaitReady(context);
+                ProductProjectionStore productStore = context.getBean(ProductProjectionStore.class);
+                assertThat(productStore.findAll()).hasSize(PRODUCTS);
+                assertThat(productStore.findById((long) TAIL).map(Product::getName)).contains("renamed-" + TAIL);
+            }
+
+            System.out.printf("Projection ready after a restart over %d events: full replay=%d ms, "
+                            + "snapshot (%d KB) + tail=%d ms%n",
+                    PRODUCTS * (1 + UPDATES_PER_PRODUCT) + TAIL, cold, Files.size(snapshot) / 1024, warm);
+            assertThat(warm).isLessThan(cold);
+        } finally {
+            broker.destroy();
+        }
+    }
+
+    private ConfigurableApplicationContext start(EmbeddedKafkaBroker broker, Path snapshot) {
+        String[] args = {
+                "--spring.datasource.url=jdbc:h2:mem:snapshot-restart;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                "--pqm.store=memory",
+                "--pqm.consumer.mode=batch",
+                "--pqm.cache.max-weight=0",
+                "--pqm.snapshot.enabled=true",
+                "--pqm.snapshot.path=" + snapshot,
+                "--pqm.snapshot.interval=1h",
+                "--server.port=0",
+                "--logging.level.com.yeshwanth.pqm=WARN"
+        };
+        return new SpringApplicationBuilder(ProductQueryMicroserviceApplication.class).run(args);
+    }
+
+    // Milliseconds from context startup until the projection health check reports up
+    private static long awaitReady(ConfigurableApplicationContext context) throws InterruptedException {
+        ProjectionHealthIndicator projection = context.getBean(ProjectionHealthIndicator.class);
+        long deadline = System.currentTimeMillis() + 120_000;
+        while (System.currentTimeMillis() < deadline) {
+            if (Status.UP.equals(projection.health().getStatus())) {
+                return System.currentTimeMillis() - context.getStartupDate();
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Projection did not become ready within two minutes");
+    }
+
+    private static void publish(EmbeddedKafkaBroker broker, List<ProductEvent> events) {
+        Map<String, Object> props = KafkaTestUtils.producerProps(broker);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, 20);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, 256 * 1024);
+        try (KafkaProducer<String, ProductEvent> producer =
+                     new KafkaProducer<>(props, new StringSerializer(), (topic, event) -> ProductEventCodec.encode(event))) {
+            for (ProductEvent event : events) {
+                String key = String.valueOf(event.getProduct().getId());
+                producer.send(new ProducerRecord<>(KafkaConfig.PRODUCT_EVENT_TOPIC, key, event));
+            }
+            producer.flush();
+        }
+    }
+
+    private static List<ProductEvent> history() {
+        List<ProductEvent> events = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (long id = 1; id <= PRODUCTS; id++) {
+            events.add(new ProductEvent(KafkaConfig.EVENT_CREATE_PRODUCT, product(id, "product-" + id, 0, 0, now)));
+        }
+        for (int round = 1; round <= UPDATES_PER_PRODUCT; round++) {
+            for (long id = 1; id <= PRODUCTS; id++) {
+                events.add(new ProductEvent(KafkaConfig.EVENT_UPDATE_PRODUCT, product(id, "product-" + id, round, round, now)));
+            }
+        }
+        return events;
+    }
+
+    private static List<ProductEvent> tail() {
+        List<ProductEvent> events = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (long id = 1; id <= TAIL; id++) {
+            events.add(new ProductEvent(KafkaConfig.EVENT_UPDATE_PRODUCT, product(id, "renamed-" + id, UPDATES_PER_PRODUCT, UPDATES_PER_PRODUCT + 1, now)));
+        }
+        return events;
+    }
+
+    private static ProductState product(long id, String name, int quantity, long version, LocalDateTime timestamp) {
+        return new ProductState(id, name, "bulk import", BigDecimal.valueOf(10 + id % 90), quantity, timestamp, timestamp,
+                version);
+    }
+}